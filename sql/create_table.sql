@@ -53,7 +53,10 @@ create table app
 create table chat_history
 (
     id          bigint auto_increment comment 'id' primary key,
-    message     mediumtext                               not null comment '消息',
+    message     mediumtext                               not null comment '消息（plain 为原文，blob 为外部存储的键）',
+    messageFormat  varchar(16)  default 'plain'      not null comment '存储格式：plain/deflate/blob',
+    messageData    mediumblob                         null comment '压缩后的消息（deflate）',
+    messagePreview varchar(1024)                      null comment '消息预览（非 plain 格式）',
     messageType varchar(32)                        not null comment 'user/ai',
     appId       bigint                             not null comment '应用id',
     userId      bigint                             not null comment '创建用户id',
@@ -62,6 +65,6 @@ create table chat_history
     isDelete    tinyint  default 0                 not null comment '是否删除',
     INDEX idx_appId (appId),                       -- 提升基于应用的查询性能
     INDEX idx_createTime (createTime),             -- 提升基于时间的查询性能
-    INDEX idx_appId_createTime (appId, createTime) -- 游标查询核心索引（大幅提高查询效率）
+    INDEX idx_appId_createTime (appId, createTime), -- 游标查询核心索引（大幅提高查询效率）
+    INDEX idx_messageFormat (messageFormat)         -- 清理外部存储的大消息时查询引用
 ) comment '对话历史' collate = utf8mb4_unicode_ci;
-
@@ -0,0 +1,10 @@
+# 已有库升级：对话历史大消息压缩存储
+# 新建库直接执行 create_table.sql 即可，不需要执行本脚本
+
+use yi_ai_code_master;
+
+alter table chat_history
+    add column messageFormat  varchar(16) default 'plain' not null comment '存储格式：plain/deflate/blob' after message,
+    add column messageData    mediumblob                  null comment '压缩后的消息（deflate）' after messageFormat,
+    add column messagePreview varchar(1024)               null comment '消息预览（非 plain 格式）' after messageData,
+    add index idx_messageFormat (messageFormat);
@@ -13,8 +13,7 @@ import dev.langchain4j.model.output.TokenUsage;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.TreeMap;
 
 import static dev.langchain4j.internal.Utils.isNullOrBlank;
 import static dev.langchain4j.internal.Utils.isNullOrEmpty;
@@ -24,27 +23,60 @@ import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 
 /**
- * This class needs to be thread safe because it is called when a streaming result comes back
- * and there is no guarantee that this thread will be the same as the one that initiated the request,
- * in fact it almost certainly won't be.
+ * Accumulates the streamed deltas of one request into a {@link ChatResponse}.
+ * <p>
+ * The HTTP client delivers the SSE events of one request sequentially (not necessarily on the thread that
+ * initiated the request), and {@link #build()} is called from the completion callback after the last event,
+ * so every access is ordered by the client's dispatch. The builder is therefore single-writer and uses plain
+ * fields and {@link StringBuilder}s instead of synchronized buffers and atomics.
  */
 @Internal
 public class OpenAiStreamingResponseBuilder {
 
-    private final StringBuffer contentBuilder = new StringBuffer();
+    /**
+     * Rough number of characters per output token, used to size the content buffer
+     */
+    private static final int CHARS_PER_TOKEN = 3;
 
-    private final StringBuffer toolNameBuilder = new StringBuffer();
-    private final StringBuffer toolArgumentsBuilder = new StringBuffer();
+    /**
+     * Upper bound of the pre-sized capacity, larger responses grow the buffer as usual
+     */
+    private static final int MAX_INITIAL_CAPACITY = 64 * 1024;
 
-    private final Map<Integer, ToolExecutionRequestBuilder> indexToToolExecutionRequestBuilder = new ConcurrentHashMap<>();
+    private static final int DEFAULT_INITIAL_CAPACITY = 256;
 
-    private final AtomicReference<String> id = new AtomicReference<>();
-    private final AtomicReference<Long> created = new AtomicReference<>();
-    private final AtomicReference<String> model = new AtomicReference<>();
-    private final AtomicReference<String> serviceTier = new AtomicReference<>();
-    private final AtomicReference<String> systemFingerprint = new AtomicReference<>();
-    private final AtomicReference<TokenUsage> tokenUsage = new AtomicReference<>();
-    private final AtomicReference<FinishReason> finishReason = new AtomicReference<>();
+    private final int contentCapacity;
+
+    /**
+     * Allocated on the first content delta, so turns that only call tools never reserve the buffer
+     */
+    private StringBuilder contentBuilder;
+
+    private final StringBuilder toolNameBuilder = new StringBuilder();
+    private final StringBuilder toolArgumentsBuilder = new StringBuilder();
+
+    private final Map<Integer, ToolExecutionRequestBuilder> indexToToolExecutionRequestBuilder = new TreeMap<>();
+
+    private String id;
+    private Long created;
+    private String model;
+    private String serviceTier;
+    private String systemFingerprint;
+    private TokenUsage tokenUsage;
+    private FinishReason finishReason;
+
+    public OpenAiStreamingResponseBuilder() {
+        this(null);
+    }
+
+    /**
+     * @param maxOutputTokens output token limit of the request, used to size the content buffer (nullable)
+     */
+    public OpenAiStreamingResponseBuilder(Integer maxOutputTokens) {
+        this.contentCapacity = maxOutputTokens == null || maxOutputTokens <= 0
+                ? DEFAULT_INITIAL_CAPACITY
+                : (int) Math.min((long) maxOutputTokens * CHARS_PER_TOKEN, MAX_INITIAL_CAPACITY);
+    }
 
     public void append(ChatCompletionResponse partialResponse) {
         if (partialResponse == null) {
@@ -52,24 +84,24 @@ public class OpenAiStreamingResponseBuilder {
         }
 
         if (!isNullOrBlank(partialResponse.id())) {
-            this.id.set(partialResponse.id());
+            this.id = partialResponse.id();
         }
         if (partialResponse.created() != null) {
-            this.created.set(partialResponse.created());
+            this.created = partialResponse.created();
         }
         if (!isNullOrBlank(partialResponse.model())) {
-            this.model.set(partialResponse.model());
+            this.model = partialResponse.model();
         }
         if (!isNullOrBlank(partialResponse.serviceTier())) {
-            this.serviceTier.set(partialResponse.serviceTier());
+            this.serviceTier = partialResponse.serviceTier();
         }
         if (!isNullOrBlank(partialResponse.systemFingerprint())) {
-            this.systemFingerprint.set(partialResponse.systemFingerprint());
+            this.systemFingerprint = partialResponse.systemFingerprint();
         }
 
         Usage usage = partialResponse.usage();
         if (usage != null) {
-            this.tokenUsage.set(tokenUsageFrom(usage));
+            this.tokenUsage = tokenUsageFrom(usage);
         }
 
         List<ChatCompletionChoice> choices = partialResponse.choices();
@@ -84,7 +116,7 @@ public class OpenAiStreamingResponseBuilder {
 
         String finishReason = chatCompletionChoice.finishReason();
         if (finishReason != null) {
-            this.finishReason.set(finishReasonFrom(finishReason));
+            this.finishReason = finishReasonFrom(finishReason);
         }
 
         Delta delta = chatCompletionChoice.delta();
@@ -94,7 +126,7 @@ public class OpenAiStreamingResponseBuilder {
 
         String content = delta.content();
         if (!isNullOrEmpty(content)) {
-            this.contentBuilder.append(content);
+            appendContent(content);
         }
 
         if (delta.functionCall() != null) {
@@ -110,8 +142,6 @@ public class OpenAiStreamingResponseBuilder {
         }
 
         if (delta.toolCalls() != null) {
-        //    System.out.println("OLOLO " + delta.toolCalls()); // TODO
-
             for (ToolCall toolCall : delta.toolCalls()) {
 
                 ToolExecutionRequestBuilder builder = this.indexToToolExecutionRequestBuilder.computeIfAbsent(
@@ -142,7 +172,7 @@ public class OpenAiStreamingResponseBuilder {
 
         Usage usage = partialResponse.usage();
         if (usage != null) {
-            this.tokenUsage.set(tokenUsageFrom(usage));
+            this.tokenUsage = tokenUsageFrom(usage);
         }
 
         List<CompletionChoice> choices = partialResponse.choices();
@@ -157,28 +187,35 @@ public class OpenAiStreamingResponseBuilder {
 
         String finishReason = completionChoice.finishReason();
         if (finishReason != null) {
-            this.finishReason.set(finishReasonFrom(finishReason));
+            this.finishReason = finishReasonFrom(finishReason);
         }
 
         String token = completionChoice.text();
-        if (token != null) {
-            this.contentBuilder.append(token);
+        if (!isNullOrEmpty(token)) {
+            appendContent(token);
+        }
+    }
+
+    private void appendContent(String content) {
+        if (contentBuilder == null) {
+            contentBuilder = new StringBuilder(Math.max(contentCapacity, content.length()));
         }
+        contentBuilder.append(content);
     }
 
     public ChatResponse build() {
 
         OpenAiChatResponseMetadata chatResponseMetadata = OpenAiChatResponseMetadata.builder()
-                .id(id.get())
-                .modelName(model.get())
-                .tokenUsage(tokenUsage.get())
-                .finishReason(finishReason.get())
-                .created(created.get())
-                .serviceTier(serviceTier.get())
-                .systemFingerprint(systemFingerprint.get())
+                .id(id)
+                .modelName(model)
+                .tokenUsage(tokenUsage)
+                .finishReason(finishReason)
+                .created(created)
+                .serviceTier(serviceTier)
+                .systemFingerprint(systemFingerprint)
                 .build();
 
-        String text = contentBuilder.toString();
+        String text = contentBuilder == null ? "" : contentBuilder.toString();
 
         String toolName = toolNameBuilder.toString();
         if (!toolName.isEmpty()) {
@@ -229,8 +266,8 @@ public class OpenAiStreamingResponseBuilder {
 
     private static class ToolExecutionRequestBuilder {
 
-        private final StringBuffer idBuilder = new StringBuffer();
-        private final StringBuffer nameBuilder = new StringBuffer();
-        private final StringBuffer argumentsBuilder = new StringBuffer();
+        private final StringBuilder idBuilder = new StringBuilder();
+        private final StringBuilder nameBuilder = new StringBuilder();
+        private final StringBuilder argumentsBuilder = new StringBuilder();
     }
 }
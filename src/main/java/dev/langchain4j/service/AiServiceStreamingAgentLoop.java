@@ -0,0 +1,326 @@
+package dev.langchain4j.service;
+
+import dev.langchain4j.Internal;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.guardrail.ChatExecutor;
+import dev.langchain4j.guardrail.GuardrailRequestParams;
+import dev.langchain4j.guardrail.OutputGuardrailRequest;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import dev.langchain4j.service.tool.ToolExecution;
+import dev.langchain4j.service.tool.ReadOnlyToolExecutor;
+import dev.langchain4j.service.tool.ToolExecutor;
+import dev.langchain4j.service.tool.ToolService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static dev.langchain4j.internal.Utils.copy;
+import static dev.langchain4j.internal.ValidationUtils.ensureNotNull;
+
+/**
+ * Drives the streaming "model -> tools -> model" loop of an AI Service iteratively.
+ * <p>
+ * Every model turn is streamed into a fresh {@link AiServiceStreamingResponseHandler} that only lives for that turn.
+ * When a turn asks for tools, the tools and the next turn are scheduled on {@link #TURN_EXECUTOR}, so the HTTP
+ * client callback thread is released immediately and finished turns are not referenced anymore.
+ * The limit of sequential tool invocations is enforced here, and the latency of each turn is logged.
+ */
+@Internal
+class AiServiceStreamingAgentLoop {
+    private static final Logger LOG = LoggerFactory.getLogger(AiServiceStreamingAgentLoop.class);
+
+    /**
+     * Same default as {@link ToolService}, used when the configured value can't be read.
+     */
+    private static final int DEFAULT_MAX_SEQUENTIAL_TOOLS_INVOCATIONS = 100;
+
+    private static final Executor TURN_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final ChatExecutor chatExecutor;
+    private final AiServiceContext context;
+    private final Object memoryId;
+    private final GuardrailRequestParams commonGuardrailParams;
+    private final Object methodKey;
+
+    private final Consumer<String> partialResponseHandler;
+    private final BiConsumer<Integer, ToolExecutionRequest> partialToolExecutionRequestHandler;
+    private final BiConsumer<Integer, ToolExecutionRequest> completeToolExecutionRequestHandler;
+    private final Consumer<ToolExecution> toolExecutionHandler;
+    private final Consumer<ChatResponse> completeResponseHandler;
+    private final Consumer<Throwable> errorHandler;
+
+    private final ChatMemory temporaryMemory;
+    private final List<ToolSpecification> toolSpecifications;
+    private final Map<String, ToolExecutor> toolExecutors;
+    private final boolean hasOutputGuardrails;
+    private final int maxSequentialToolsInvocations;
+
+    /**
+     * Turns run strictly one after another, so the loop state needs no synchronization
+     * beyond the happens-before edges of the executor hand-off.
+     */
+    private TokenUsage tokenUsage = new TokenUsage();
+    private int turnCount;
+    private int sequentialToolsInvocations;
+    private long turnStartNanos;
+
+    AiServiceStreamingAgentLoop(
+            ChatExecutor chatExecutor,
+            AiServiceContext context,
+            Object memoryId,
+            Consumer<String> partialResponseHandler,
+            BiConsumer<Integer, ToolExecutionRequest> partialToolExecutionRequestHandler,
+            BiConsumer<Integer, ToolExecutionRequest> completeToolExecutionRequestHandler,
+            Consumer<ToolExecution> toolExecutionHandler,
+            Consumer<ChatResponse> completeResponseHandler,
+            Consumer<Throwable> errorHandler,
+            ChatMemory temporaryMemory,
+            List<ToolSpecification> toolSpecifications,
+            Map<String, ToolExecutor> toolExecutors,
+            GuardrailRequestParams commonGuardrailParams,
+            Object methodKey) {
+        this.chatExecutor = ensureNotNull(chatExecutor, "chatExecutor");
+        this.context = ensureNotNull(context, "context");
+        this.memoryId = ensureNotNull(memoryId, "memoryId");
+        this.methodKey = methodKey;
+
+        this.partialResponseHandler = ensureNotNull(partialResponseHandler, "partialResponseHandler");
+        this.partialToolExecutionRequestHandler = partialToolExecutionRequestHandler;
+        this.completeToolExecutionRequestHandler = completeToolExecutionRequestHandler;
+        this.toolExecutionHandler = toolExecutionHandler;
+        this.completeResponseHandler = completeResponseHandler;
+        this.errorHandler = errorHandler;
+
+        this.temporaryMemory = temporaryMemory;
+        this.commonGuardrailParams = commonGuardrailParams;
+        this.toolSpecifications = copy(toolSpecifications);
+        this.toolExecutors = copy(toolExecutors);
+        this.hasOutputGuardrails = context.guardrailService().hasOutputGuardrails(methodKey);
+        this.maxSequentialToolsInvocations = readMaxSequentialToolsInvocations(context.toolService);
+    }
+
+    /**
+     * Streams the first turn of the loop.
+     */
+    void start(ChatRequest chatRequest) {
+        runTurn(chatRequest);
+    }
+
+    private void runTurn(ChatRequest chatRequest) {
+        turnCount++;
+        turnStartNanos = System.nanoTime();
+        var handler = new AiServiceStreamingResponseHandler(
+                this, partialResponseHandler, partialToolExecutionRequestHandler, hasOutputGuardrails);
+        context.streamingChatModel.chat(chatRequest, handler);
+    }
+
+    /**
+     * Called by the handler of the current turn when the model finished streaming.
+     *
+     * @param completeResponse response of the turn
+     * @param responseBuffer   partial responses held back for output guardrails
+     */
+    void onTurnComplete(ChatResponse completeResponse, List<String> responseBuffer) {
+        long turnMillis = (System.nanoTime() - turnStartNanos) / 1_000_000;
+        AiMessage aiMessage = completeResponse.aiMessage();
+        LOG.info("AI service turn {} (memoryId={}) completed in {} ms, tool requests: {}",
+                turnCount, memoryId, turnMillis,
+                aiMessage.hasToolExecutionRequests() ? aiMessage.toolExecutionRequests().size() : 0);
+
+        addToMemory(aiMessage);
+        tokenUsage = TokenUsage.sum(tokenUsage, completeResponse.metadata().tokenUsage());
+
+        if (aiMessage.hasToolExecutionRequests()) {
+            TURN_EXECUTOR.execute(() -> {
+                try {
+                    if (++sequentialToolsInvocations > maxSequentialToolsInvocations) {
+                        throw new RuntimeException(String.format(
+                                "Something is wrong, exceeded %s sequential tool executions",
+                                maxSequentialToolsInvocations));
+                    }
+                    executeToolExecutionRequests(aiMessage.toolExecutionRequests());
+                    runTurn(ChatRequest.builder()
+                            .messages(getMemory().messages())
+                            .toolSpecifications(toolSpecifications)
+                            .build());
+                } catch (Throwable e) {
+                    onError(e);
+                }
+            });
+        } else {
+            completeLoop(completeResponse, responseBuffer);
+        }
+    }
+
+    private void completeLoop(ChatResponse completeResponse, List<String> responseBuffer) {
+        if (completeResponseHandler == null) {
+            return;
+        }
+        ChatResponse finalChatResponse = ChatResponse.builder()
+                .aiMessage(completeResponse.aiMessage())
+                .metadata(completeResponse.metadata().toBuilder()
+                        .tokenUsage(tokenUsage)
+                        .build())
+                .build();
+
+        // Invoke output guardrails
+        if (hasOutputGuardrails) {
+            if (commonGuardrailParams != null) {
+                var newCommonParams = GuardrailRequestParams.builder()
+                        .chatMemory(getMemory())
+                        .augmentationResult(commonGuardrailParams.augmentationResult())
+                        .userMessageTemplate(commonGuardrailParams.userMessageTemplate())
+                        .variables(commonGuardrailParams.variables())
+                        .build();
+
+                var outputGuardrailParams = OutputGuardrailRequest.builder()
+                        .responseFromLLM(finalChatResponse)
+                        .chatExecutor(chatExecutor)
+                        .requestParams(newCommonParams)
+                        .build();
+
+                finalChatResponse = context.guardrailService().executeGuardrails(methodKey, outputGuardrailParams);
+            }
+
+            // If we have output guardrails, we should process all of the partial responses first before
+            // completing
+            responseBuffer.forEach(partialResponseHandler::accept);
+            responseBuffer.clear();
+        }
+
+        // TODO should completeResponseHandler accept all ChatResponses that happened?
+        completeResponseHandler.accept(finalChatResponse);
+    }
+
+    private void executeToolExecutionRequests(List<ToolExecutionRequest> toolExecutionRequests) {
+        int from = 0;
+        while (from < toolExecutionRequests.size()) {
+            int to = from + 1;
+            if (isReadOnly(toolExecutionRequests.get(from))) {
+                while (to < toolExecutionRequests.size() && isReadOnly(toolExecutionRequests.get(to))) {
+                    to++;
+                }
+            }
+            List<ToolExecutionRequest> batch = toolExecutionRequests.subList(from, to);
+            List<String> toolExecutionResults = executeTools(batch);
+            // Results are added to memory in request order, regardless of completion order
+            for (int i = 0; i < batch.size(); i++) {
+                handleToolExecutionResult(batch.get(i), toolExecutionResults.get(i));
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * Consecutive requests to tools registered as {@link ReadOnlyToolExecutor} are executed concurrently,
+     * every other tool acts as a barrier and is executed alone, so writes keep their relative order.
+     */
+    private boolean isReadOnly(ToolExecutionRequest toolExecutionRequest) {
+        return toolExecutors.get(toolExecutionRequest.name()) instanceof ReadOnlyToolExecutor;
+    }
+
+    private String executeTool(ToolExecutionRequest toolExecutionRequest) {
+        ToolExecutor toolExecutor = toolExecutors.get(toolExecutionRequest.name());
+        return toolExecutor.execute(toolExecutionRequest, memoryId);
+    }
+
+    /**
+     * Executes a batch of tool requests. A single request runs on the current thread,
+     * a batch of read-only requests runs concurrently on virtual threads.
+     */
+    private List<String> executeTools(List<ToolExecutionRequest> toolExecutionRequests) {
+        if (toolExecutionRequests.size() == 1) {
+            return List.of(executeTool(toolExecutionRequests.get(0)));
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> futures = new ArrayList<>(toolExecutionRequests.size());
+            for (ToolExecutionRequest toolExecutionRequest : toolExecutionRequests) {
+                futures.add(executor.submit(() -> executeTool(toolExecutionRequest)));
+            }
+            List<String> results = new ArrayList<>(futures.size());
+            for (Future<String> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void handleToolExecutionResult(ToolExecutionRequest toolExecutionRequest, String toolExecutionResult) {
+        ToolExecutionResultMessage toolExecutionResultMessage =
+                ToolExecutionResultMessage.from(toolExecutionRequest, toolExecutionResult);
+        addToMemory(toolExecutionResultMessage);
+
+        if (toolExecutionHandler != null) {
+            ToolExecution toolExecution = ToolExecution.builder()
+                    .request(toolExecutionRequest)
+                    .result(toolExecutionResult)
+                    .build();
+            toolExecutionHandler.accept(toolExecution);
+        }
+    }
+
+    private ChatMemory getMemory() {
+        return context.hasChatMemory() ? context.chatMemoryService.getOrCreateChatMemory(memoryId) : temporaryMemory;
+    }
+
+    private void addToMemory(ChatMessage chatMessage) {
+        getMemory().add(chatMessage);
+    }
+
+    void onError(Throwable error) {
+        if (errorHandler != null) {
+            try {
+                errorHandler.accept(error);
+            } catch (Exception e) {
+                LOG.error("While handling the following error...", error);
+                LOG.error("...the following error happened", e);
+            }
+        } else {
+            LOG.warn("Ignored error", error);
+        }
+    }
+
+    /**
+     * {@link ToolService} doesn't expose the configured limit, read it once per loop.
+     */
+    private static int readMaxSequentialToolsInvocations(ToolService toolService) {
+        if (toolService == null) {
+            return DEFAULT_MAX_SEQUENTIAL_TOOLS_INVOCATIONS;
+        }
+        try {
+            Field field = ToolService.class.getDeclaredField("maxSequentialToolsInvocations");
+            field.setAccessible(true);
+            return field.getInt(toolService);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOG.warn("Failed to read maxSequentialToolsInvocations, using default {}",
+                    DEFAULT_MAX_SEQUENTIAL_TOOLS_INVOCATIONS, e);
+            return DEFAULT_MAX_SEQUENTIAL_TOOLS_INVOCATIONS;
+        }
+    }
+}
@@ -2,97 +2,43 @@ package dev.langchain4j.service;
 
 import dev.langchain4j.Internal;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
-import dev.langchain4j.agent.tool.ToolSpecification;
-import dev.langchain4j.data.message.AiMessage;
-import dev.langchain4j.data.message.ChatMessage;
-import dev.langchain4j.data.message.ToolExecutionResultMessage;
-import dev.langchain4j.guardrail.ChatExecutor;
-import dev.langchain4j.guardrail.GuardrailRequestParams;
-import dev.langchain4j.guardrail.OutputGuardrailRequest;
-import dev.langchain4j.memory.ChatMemory;
-import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
 import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
-import dev.langchain4j.model.output.TokenUsage;
-import dev.langchain4j.service.tool.ToolExecution;
-import dev.langchain4j.service.tool.ToolExecutor;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
-import static dev.langchain4j.internal.Utils.copy;
 import static dev.langchain4j.internal.ValidationUtils.ensureNotNull;
 
 /**
  * Handles response from a language model for AI Service that is streamed token-by-token. Handles both regular (text)
  * responses and responses with the request to execute one or multiple tools.
+ * <p>
+ * One instance handles exactly one model turn; tool execution and the following turns are driven by
+ * {@link AiServiceStreamingAgentLoop}.
  */
 @Internal
 class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler {
-    private static final Logger LOG = LoggerFactory.getLogger(AiServiceStreamingResponseHandler.class);
 
-    private final ChatExecutor chatExecutor;
-    private final AiServiceContext context;
-    private final Object memoryId;
-    private final GuardrailRequestParams commonGuardrailParams;
-    private final Object methodKey;
+    private final AiServiceStreamingAgentLoop agentLoop;
 
     private final Consumer<String> partialResponseHandler;
     private final BiConsumer<Integer, ToolExecutionRequest> partialToolExecutionRequestHandler;
-    private final BiConsumer<Integer, ToolExecutionRequest> completeToolExecutionRequestHandler;
-    private final Consumer<ToolExecution> toolExecutionHandler;
-    private final Consumer<ChatResponse> completeResponseHandler;
 
-    private final Consumer<Throwable> errorHandler;
-
-    private final ChatMemory temporaryMemory;
-    private final TokenUsage tokenUsage;
-
-    private final List<ToolSpecification> toolSpecifications;
-    private final Map<String, ToolExecutor> toolExecutors;
     private final List<String> responseBuffer = new ArrayList<>();
     private final boolean hasOutputGuardrails;
 
     AiServiceStreamingResponseHandler(
-            ChatExecutor chatExecutor,
-            AiServiceContext context,
-            Object memoryId,
+            AiServiceStreamingAgentLoop agentLoop,
             Consumer<String> partialResponseHandler,
             BiConsumer<Integer, ToolExecutionRequest> partialToolExecutionRequestHandler,
-            BiConsumer<Integer, ToolExecutionRequest> completeToolExecutionRequestHandler,
-            Consumer<ToolExecution> toolExecutionHandler,
-            Consumer<ChatResponse> completeResponseHandler,
-            Consumer<Throwable> errorHandler,
-            ChatMemory temporaryMemory,
-            TokenUsage tokenUsage,
-            List<ToolSpecification> toolSpecifications,
-            Map<String, ToolExecutor> toolExecutors,
-            GuardrailRequestParams commonGuardrailParams,
-            Object methodKey) {
-        this.chatExecutor = ensureNotNull(chatExecutor, "chatExecutor");
-        this.context = ensureNotNull(context, "context");
-        this.memoryId = ensureNotNull(memoryId, "memoryId");
-        this.methodKey = methodKey;
-
+            boolean hasOutputGuardrails) {
+        this.agentLoop = ensureNotNull(agentLoop, "agentLoop");
         this.partialResponseHandler = ensureNotNull(partialResponseHandler, "partialResponseHandler");
         this.partialToolExecutionRequestHandler = partialToolExecutionRequestHandler;
-        this.completeToolExecutionRequestHandler = completeToolExecutionRequestHandler;
-        this.completeResponseHandler = completeResponseHandler;
-        this.toolExecutionHandler = toolExecutionHandler;
-        this.errorHandler = errorHandler;
-
-        this.temporaryMemory = temporaryMemory;
-        this.tokenUsage = ensureNotNull(tokenUsage, "tokenUsage");
-        this.commonGuardrailParams = commonGuardrailParams;
-
-        this.toolSpecifications = copy(toolSpecifications);
-        this.toolExecutors = copy(toolExecutors);
-        this.hasOutputGuardrails = context.guardrailService().hasOutputGuardrails(methodKey);
+        this.hasOutputGuardrails = hasOutputGuardrails;
     }
 
     @Override
@@ -113,119 +59,11 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
 
     @Override
     public void onCompleteResponse(ChatResponse completeResponse) {
-        AiMessage aiMessage = completeResponse.aiMessage();
-        addToMemory(aiMessage);
-
-        if (aiMessage.hasToolExecutionRequests()) {
-            for (ToolExecutionRequest toolExecutionRequest : aiMessage.toolExecutionRequests()) {
-                String toolName = toolExecutionRequest.name();
-                ToolExecutor toolExecutor = toolExecutors.get(toolName);
-                String toolExecutionResult = toolExecutor.execute(toolExecutionRequest, memoryId);
-                ToolExecutionResultMessage toolExecutionResultMessage =
-                        ToolExecutionResultMessage.from(toolExecutionRequest, toolExecutionResult);
-                addToMemory(toolExecutionResultMessage);
-
-                if (toolExecutionHandler != null) {
-                    ToolExecution toolExecution = ToolExecution.builder()
-                            .request(toolExecutionRequest)
-                            .result(toolExecutionResult)
-                            .build();
-                    toolExecutionHandler.accept(toolExecution);
-                }
-            }
-
-            ChatRequest chatRequest = ChatRequest.builder()
-                    .messages(messagesToSend(memoryId))
-                    .toolSpecifications(toolSpecifications)
-                    .build();
-
-            var handler = new AiServiceStreamingResponseHandler(
-                    chatExecutor,
-                    context,
-                    memoryId,
-                    partialResponseHandler,
-                    partialToolExecutionRequestHandler,
-                    completeToolExecutionRequestHandler,
-                    toolExecutionHandler,
-                    completeResponseHandler,
-                    errorHandler,
-                    temporaryMemory,
-                    TokenUsage.sum(tokenUsage, completeResponse.metadata().tokenUsage()),
-                    toolSpecifications,
-                    toolExecutors,
-                    commonGuardrailParams,
-                    methodKey);
-
-            context.streamingChatModel.chat(chatRequest, handler);
-        } else {
-            if (completeResponseHandler != null) {
-                ChatResponse finalChatResponse = ChatResponse.builder()
-                        .aiMessage(aiMessage)
-                        .metadata(completeResponse.metadata().toBuilder()
-                                .tokenUsage(tokenUsage.add(
-                                        completeResponse.metadata().tokenUsage()))
-                                .build())
-                        .build();
-
-                // Invoke output guardrails
-                if (hasOutputGuardrails) {
-                    if (commonGuardrailParams != null) {
-                        var newCommonParams = GuardrailRequestParams.builder()
-                                .chatMemory(getMemory())
-                                .augmentationResult(commonGuardrailParams.augmentationResult())
-                                .userMessageTemplate(commonGuardrailParams.userMessageTemplate())
-                                .variables(commonGuardrailParams.variables())
-                                .build();
-
-                        var outputGuardrailParams = OutputGuardrailRequest.builder()
-                                .responseFromLLM(finalChatResponse)
-                                .chatExecutor(chatExecutor)
-                                .requestParams(newCommonParams)
-                                .build();
-
-                        finalChatResponse =
-                                context.guardrailService().executeGuardrails(methodKey, outputGuardrailParams);
-                    }
-
-                    // If we have output guardrails, we should process all of the partial responses first before
-                    // completing
-                    responseBuffer.forEach(partialResponseHandler::accept);
-                    responseBuffer.clear();
-                }
-
-                // TODO should completeResponseHandler accept all ChatResponses that happened?
-                completeResponseHandler.accept(finalChatResponse);
-            }
-        }
-    }
-
-    private ChatMemory getMemory() {
-        return getMemory(memoryId);
-    }
-
-    private ChatMemory getMemory(Object memId) {
-        return context.hasChatMemory() ? context.chatMemoryService.getOrCreateChatMemory(memoryId) : temporaryMemory;
-    }
-
-    private void addToMemory(ChatMessage chatMessage) {
-        getMemory().add(chatMessage);
-    }
-
-    private List<ChatMessage> messagesToSend(Object memoryId) {
-        return getMemory(memoryId).messages();
+        agentLoop.onTurnComplete(completeResponse, responseBuffer);
     }
 
     @Override
     public void onError(Throwable error) {
-        if (errorHandler != null) {
-            try {
-                errorHandler.accept(error);
-            } catch (Exception e) {
-                LOG.error("While handling the following error...", error);
-                LOG.error("...the following error happened", e);
-            }
-        } else {
-            LOG.warn("Ignored error", error);
-        }
+        agentLoop.onError(error);
     }
 }
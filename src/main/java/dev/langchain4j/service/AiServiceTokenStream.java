@@ -10,7 +10,6 @@ import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
-import dev.langchain4j.model.output.TokenUsage;
 import dev.langchain4j.rag.content.Content;
 import dev.langchain4j.service.tool.ToolExecution;
 import dev.langchain4j.service.tool.ToolExecutor;
@@ -137,7 +136,7 @@ public class AiServiceTokenStream implements TokenStream {
                 .chatRequest(chatRequest)
                 .build();
 
-        var handler = new AiServiceStreamingResponseHandler(
+        var agentLoop = new AiServiceStreamingAgentLoop(
                 chatExecutor,
                 context,
                 memoryId,
@@ -148,7 +147,6 @@ public class AiServiceTokenStream implements TokenStream {
                 completeResponseHandler,
                 errorHandler,
                 initTemporaryMemory(context, messages),
-                new TokenUsage(),
                 toolSpecifications,
                 toolExecutors,
                 commonGuardrailParams,
@@ -158,7 +156,7 @@ public class AiServiceTokenStream implements TokenStream {
             contentsHandler.accept(retrievedContents);
         }
 
-        context.streamingChatModel.chat(chatRequest, handler);
+        agentLoop.start(chatRequest);
     }
 
     private void validateConfiguration() {
@@ -0,0 +1,25 @@
+package dev.langchain4j.service.tool;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+
+import static dev.langchain4j.internal.ValidationUtils.ensureNotNull;
+
+/**
+ * Marks a tool that has no side effects, such as reading a file.
+ * <p>
+ * Pass it through {@code AiServices.tools(Map<ToolSpecification, ToolExecutor>)}: the streaming agent loop
+ * executes consecutive requests to read-only tools concurrently, while every other tool is executed alone.
+ */
+public class ReadOnlyToolExecutor implements ToolExecutor {
+
+    private final ToolExecutor delegate;
+
+    public ReadOnlyToolExecutor(ToolExecutor delegate) {
+        this.delegate = ensureNotNull(delegate, "delegate");
+    }
+
+    @Override
+    public String execute(ToolExecutionRequest toolExecutionRequest, Object memoryId) {
+        return delegate.execute(toolExecutionRequest, memoryId);
+    }
+}
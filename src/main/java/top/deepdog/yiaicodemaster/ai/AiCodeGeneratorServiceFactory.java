@@ -4,7 +4,7 @@ import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
 import dev.langchain4j.data.message.ToolExecutionResultMessage;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.service.AiServices;
@@ -14,7 +14,9 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import top.deepdog.yiaicodemaster.ai.guardrail.PromptSafetyInputGuardrail;
 import top.deepdog.yiaicodemaster.ai.guardrail.RetryOutputGuardrail;
+import top.deepdog.yiaicodemaster.ai.memory.TokenBudgetChatMemory;
 import top.deepdog.yiaicodemaster.ai.tools.*;
+import top.deepdog.yiaicodemaster.config.ChatMemoryConfig;
 import top.deepdog.yiaicodemaster.exception.BusinessException;
 import top.deepdog.yiaicodemaster.exception.ErrorCode;
 import top.deepdog.yiaicodemaster.model.enums.CodeGenTypeEnum;
@@ -39,6 +41,9 @@ public class AiCodeGeneratorServiceFactory {
     @Resource
     private ToolManager toolManager;
 
+    @Resource
+    private ChatMemoryConfig chatMemoryConfig;
+
     /**
      * AI服务实例缓存
      */
@@ -92,13 +97,8 @@ public class AiCodeGeneratorServiceFactory {
      */
     public AiCodeGeneratorService createAiCodeGeneratorService(long appId, CodeGenTypeEnum codeGenType) {
         log.info("创建AI服务实例，appId: {}", appId);
-        // 根据appId构建独立的会话记忆
-        MessageWindowChatMemory chatMemory = MessageWindowChatMemory
-                .builder()
-                .id(appId)
-                .chatMemoryStore(redisChatMemoryStore)
-                .maxMessages(100)
-                .build();
+        // 根据appId构建独立的会话记忆，按 token 预算限制大小
+        ChatMemory chatMemory = new TokenBudgetChatMemory(appId, redisChatMemoryStore, chatMemoryConfig, toolManager);
         // 从数据库加载历史会话到会话记忆中
         chatHistoryService.loadChatHistoryToMemory(appId, chatMemory, 20);
         return switch (codeGenType) {
@@ -126,7 +126,8 @@ public class AiCodeGeneratorServiceFactory {
                         .builder(AiCodeGeneratorService.class)
                         .streamingChatModel(reasoningStreamingChatModel)
                         .chatMemoryProvider(memoryId -> chatMemory)
-                        .tools(toolManager.getAllTools())
+                        // 只读工具的执行器带有标记，连续调用时并发执行
+                        .tools(toolManager.getToolExecutors())
                         // 幻觉工具名称策略：如果找不到工具，则告诉AI
                         .hallucinatedToolNameStrategy(toolExecutionRequest ->
                                 ToolExecutionResultMessage.from(
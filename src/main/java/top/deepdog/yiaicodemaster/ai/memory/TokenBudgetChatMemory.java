@@ -0,0 +1,412 @@
+package top.deepdog.yiaicodemaster.ai.memory;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import lombok.extern.slf4j.Slf4j;
+import top.deepdog.yiaicodemaster.ai.tools.BaseTool;
+import top.deepdog.yiaicodemaster.ai.tools.ToolManager;
+import top.deepdog.yiaicodemaster.config.ChatMemoryConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 按 token 预算限制大小的会话记忆
+ * 1. 最近几轮之前的工具参数、工具结果和代码块超过阈值时折叠为引用，如"[已写入文件 src/App.vue（3.2 kB），内容已省略]"
+ * 2. 估算的 token 数超出预算时，从最早的轮次开始逐轮合并为一行摘要，当前轮次始终保留
+ * 3. 摘要追加在系统消息之后，随记忆一起保存；摘要由规则提取，不额外调用模型
+ */
+@Slf4j
+public class TokenBudgetChatMemory implements ChatMemory {
+
+    /**
+     * 系统消息中摘要部分的标题，前面是系统提示词
+     */
+    static final String SUMMARY_HEADER = "\n\n## 早期对话摘要\n";
+
+    /**
+     * 每条消息的固定开销（角色等）
+     */
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    /**
+     * 摘要中用户消息和 AI 回复保留的长度
+     */
+    private static final int SUMMARY_TEXT_LENGTH = 100;
+
+    private static final Pattern CODE_BLOCK_PATTERN = Pattern.compile("```([\\w-]*)\\n([\\s\\S]*?)```");
+
+    private final Object id;
+
+    private final ChatMemoryStore store;
+
+    private final ChatMemoryConfig config;
+
+    /**
+     * 用于获取工具的显示名称和是否只读
+     */
+    private final ToolManager toolManager;
+
+    public TokenBudgetChatMemory(Object id, ChatMemoryStore store, ChatMemoryConfig config, ToolManager toolManager) {
+        this.id = id;
+        this.store = store;
+        this.config = config;
+        this.toolManager = toolManager;
+    }
+
+    @Override
+    public Object id() {
+        return id;
+    }
+
+    @Override
+    public void add(ChatMessage message) {
+        add(List.of(message));
+    }
+
+    /**
+     * 批量添加消息，只读写一次存储
+     */
+    @Override
+    public void add(Iterable<ChatMessage> messages) {
+        String systemPrompt = null;
+        String summary = "";
+        List<ChatMessage> history = new ArrayList<>();
+        for (ChatMessage message : store.getMessages(id)) {
+            if (message instanceof SystemMessage systemMessage) {
+                String text = systemMessage.text();
+                int summaryIndex = text.indexOf(SUMMARY_HEADER);
+                if (summaryIndex >= 0) {
+                    systemPrompt = summaryIndex > 0 ? text.substring(0, summaryIndex) : null;
+                    summary = text.substring(summaryIndex + SUMMARY_HEADER.length());
+                } else {
+                    systemPrompt = text;
+                }
+            } else {
+                history.add(message);
+            }
+        }
+        boolean changed = false;
+        for (ChatMessage message : messages) {
+            if (message instanceof SystemMessage systemMessage) {
+                // AI 服务每轮都会写入系统提示词，相同时不需要改动
+                if (!systemMessage.text().equals(systemPrompt)) {
+                    systemPrompt = systemMessage.text();
+                    changed = true;
+                }
+            } else {
+                history.add(message);
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return;
+        }
+        List<List<ChatMessage>> turns = splitTurns(history);
+        for (int i = 0; i < turns.size() - config.getKeepRecentTurns(); i++) {
+            turns.set(i, compactTurn(turns.get(i)));
+        }
+        summary = summarizeOverflow(systemPrompt, summary, turns);
+        store.updateMessages(id, toStoredMessages(systemPrompt, summary, turns));
+    }
+
+    @Override
+    public List<ChatMessage> messages() {
+        return new ArrayList<>(store.getMessages(id));
+    }
+
+    @Override
+    public void clear() {
+        store.deleteMessages(id);
+    }
+
+    /**
+     * 按用户消息把对话划分为轮次，一轮包含用户消息及之后的 AI 回复、工具调用和结果
+     */
+    private static List<List<ChatMessage>> splitTurns(List<ChatMessage> history) {
+        List<List<ChatMessage>> turns = new ArrayList<>();
+        List<ChatMessage> turn = null;
+        for (ChatMessage message : history) {
+            if (turn == null || (message instanceof UserMessage && !turn.isEmpty())) {
+                turn = new ArrayList<>();
+                turns.add(turn);
+            }
+            turn.add(message);
+        }
+        return turns;
+    }
+
+    /**
+     * 超出 token 预算时，把最早的轮次逐轮合并到摘要中（直接修改 turns），摘要超出上限时丢弃最早的部分
+     *
+     * @return 新的摘要
+     */
+    private String summarizeOverflow(String systemPrompt, String summary, List<List<ChatMessage>> turns) {
+        List<Integer> turnTokens = turns.stream()
+                .map(TokenBudgetChatMemory::estimateTokens)
+                .collect(Collectors.toCollection(ArrayList::new));
+        int historyTokens = turnTokens.stream().mapToInt(Integer::intValue).sum();
+        int fixedTokens = estimateTokens(systemPrompt) + estimateTokens(summary);
+        if (fixedTokens + historyTokens <= config.getMaxTokens()) {
+            return summary;
+        }
+        List<String> summaryLines = new ArrayList<>(StrUtil.split(summary, '\n', true, true));
+        int summarizedTurns = 0;
+        // 当前轮次始终保留
+        while (turns.size() > 1 && fixedTokens + historyTokens > config.getMaxTokens()) {
+            List<ChatMessage> turn = turns.removeFirst();
+            historyTokens -= turnTokens.removeFirst();
+            String summaryLine = summarizeTurn(turn);
+            summaryLines.add(summaryLine);
+            fixedTokens += estimateTokens(summaryLine);
+            summarizedTurns++;
+        }
+        if (summarizedTurns == 0) {
+            return summary;
+        }
+        // 摘要本身也受预算限制，超出时丢弃最早的摘要
+        int summaryBudget = Math.min(config.getSummaryMaxTokens(),
+                config.getMaxTokens() - estimateTokens(systemPrompt) - historyTokens);
+        String newSummary = String.join("\n", summaryLines);
+        while (!summaryLines.isEmpty() && estimateTokens(newSummary) > summaryBudget) {
+            summaryLines.removeFirst();
+            newSummary = String.join("\n", summaryLines);
+        }
+        log.info("会话记忆 {} 超出 token 预算，{} 轮早期对话合并为摘要，剩余 {} 轮", id, summarizedTurns, turns.size());
+        return newSummary;
+    }
+
+    private static List<ChatMessage> toStoredMessages(String systemPrompt, String summary, List<List<ChatMessage>> turns) {
+        List<ChatMessage> messages = new ArrayList<>();
+        if (StrUtil.isNotEmpty(summary)) {
+            messages.add(SystemMessage.from(StrUtil.nullToEmpty(systemPrompt) + SUMMARY_HEADER + summary));
+        } else if (systemPrompt != null) {
+            messages.add(SystemMessage.from(systemPrompt));
+        }
+        turns.forEach(messages::addAll);
+        return messages;
+    }
+
+    /**
+     * 折叠一轮对话中的大段内容
+     */
+    private List<ChatMessage> compactTurn(List<ChatMessage> turn) {
+        Map<String, ToolExecutionRequest> requestsById = new HashMap<>();
+        List<ChatMessage> compacted = new ArrayList<>(turn.size());
+        for (ChatMessage message : turn) {
+            if (message instanceof AiMessage aiMessage) {
+                if (aiMessage.hasToolExecutionRequests()) {
+                    aiMessage.toolExecutionRequests().forEach(request -> requestsById.put(request.id(), request));
+                }
+                compacted.add(compactAiMessage(aiMessage));
+            } else if (message instanceof ToolExecutionResultMessage resultMessage
+                    && resultMessage.text().length() > config.getCompactThresholdChars()) {
+                ToolExecutionRequest request = requestsById.get(resultMessage.id());
+                String reference = buildReference(resultMessage.toolName(),
+                        request == null ? null : parseArguments(request).getStr(BaseTool.FILE_PATH_ARGUMENT),
+                        resultMessage.text());
+                compacted.add(ToolExecutionResultMessage.from(resultMessage.id(), resultMessage.toolName(), reference));
+            } else {
+                compacted.add(message);
+            }
+        }
+        return compacted;
+    }
+
+    private AiMessage compactAiMessage(AiMessage aiMessage) {
+        String text = aiMessage.text() == null ? null : compactCodeBlocks(aiMessage.text());
+        boolean changed = !StrUtil.equals(text, aiMessage.text());
+        List<ToolExecutionRequest> requests = new ArrayList<>();
+        if (aiMessage.hasToolExecutionRequests()) {
+            for (ToolExecutionRequest request : aiMessage.toolExecutionRequests()) {
+                ToolExecutionRequest compactedRequest = compactRequest(request);
+                changed |= compactedRequest != request;
+                requests.add(compactedRequest);
+            }
+        }
+        if (!changed) {
+            return aiMessage;
+        }
+        if (requests.isEmpty()) {
+            return AiMessage.from(text);
+        }
+        return text == null ? AiMessage.from(requests) : AiMessage.from(text, requests);
+    }
+
+    /**
+     * 工具参数中的大段文本（如写入的文件内容）替换为引用，保留文件路径等其他参数
+     */
+    private ToolExecutionRequest compactRequest(ToolExecutionRequest request) {
+        if (StrUtil.length(request.arguments()) <= config.getCompactThresholdChars()) {
+            return request;
+        }
+        JSONObject arguments = parseArguments(request);
+        String filePath = arguments.getStr(BaseTool.FILE_PATH_ARGUMENT);
+        boolean changed = false;
+        for (Map.Entry<String, Object> entry : arguments.entrySet()) {
+            if (entry.getValue() instanceof String value && value.length() > config.getCompactThresholdChars()) {
+                entry.setValue(buildReference(request.name(), filePath, value));
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return request;
+        }
+        return ToolExecutionRequest.builder()
+                .id(request.id())
+                .name(request.name())
+                .arguments(arguments.toString())
+                .build();
+    }
+
+    private String compactCodeBlocks(String text) {
+        if (text.length() <= config.getCompactThresholdChars()) {
+            return text;
+        }
+        Matcher matcher = CODE_BLOCK_PATTERN.matcher(text);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String code = matcher.group(2);
+            String replacement = code.length() > config.getCompactThresholdChars()
+                    ? "```" + matcher.group(1) + "\n[代码已省略（" + readableSize(code) + "）]\n```"
+                    : matcher.group();
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    /**
+     * 生成折叠后的引用，如"[已写入文件 src/App.vue（3.2 kB），内容已省略]"
+     */
+    private String buildReference(String toolName, String filePath, String content) {
+        BaseTool tool = toolManager.getTool(toolName);
+        String action = tool == null ? toolName : "已" + tool.getDisplayName();
+        String target = StrUtil.isBlank(filePath) ? "" : " " + filePath;
+        return String.format("[%s%s（%s），内容已省略]", action, target, readableSize(content));
+    }
+
+    /**
+     * 一轮对话的摘要：用户请求、修改的文件和 AI 回复的开头
+     */
+    private String summarizeTurn(List<ChatMessage> turn) {
+        List<String> parts = new ArrayList<>();
+        Set<String> changedFiles = new LinkedHashSet<>();
+        String aiText = null;
+        for (ChatMessage message : turn) {
+            if (message instanceof UserMessage userMessage && parts.isEmpty()) {
+                parts.add("用户：" + abbreviate(textOf(userMessage)));
+            } else if (message instanceof AiMessage aiMessage) {
+                if (aiMessage.hasToolExecutionRequests()) {
+                    aiMessage.toolExecutionRequests().stream()
+                            .filter(request -> isFileChange(request.name()))
+                            .map(request -> parseArguments(request).getStr(BaseTool.FILE_PATH_ARGUMENT))
+                            .filter(StrUtil::isNotBlank)
+                            .forEach(changedFiles::add);
+                }
+                if (StrUtil.isNotBlank(aiMessage.text())) {
+                    aiText = aiMessage.text();
+                }
+            }
+        }
+        if (!changedFiles.isEmpty()) {
+            parts.add("修改文件：" + String.join("、", changedFiles));
+        }
+        if (aiText != null) {
+            parts.add("AI：" + abbreviate(CODE_BLOCK_PATTERN.matcher(aiText).replaceAll("[代码]")));
+        }
+        return "- " + String.join("；", parts);
+    }
+
+    /**
+     * 除只读工具外的文件工具都会修改文件
+     */
+    private boolean isFileChange(String toolName) {
+        BaseTool tool = toolManager.getTool(toolName);
+        return tool != null && !tool.isReadOnly();
+    }
+
+    private static String abbreviate(String text) {
+        return StrUtil.maxLength(StrUtil.trim(text).replaceAll("\\s+", " "), SUMMARY_TEXT_LENGTH);
+    }
+
+    private static JSONObject parseArguments(ToolExecutionRequest request) {
+        try {
+            return JSONUtil.parseObj(request.arguments());
+        } catch (Exception e) {
+            return new JSONObject();
+        }
+    }
+
+    private static String readableSize(String content) {
+        return FileUtil.readableFileSize(content.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private static String textOf(UserMessage userMessage) {
+        return userMessage.contents().stream()
+                .filter(TextContent.class::isInstance)
+                .map(content -> ((TextContent) content).text())
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static int estimateTokens(List<ChatMessage> messages) {
+        return messages.stream().mapToInt(TokenBudgetChatMemory::estimateTokens).sum();
+    }
+
+    static int estimateTokens(ChatMessage message) {
+        int tokens = MESSAGE_OVERHEAD_TOKENS;
+        if (message instanceof SystemMessage systemMessage) {
+            tokens += estimateTokens(systemMessage.text());
+        } else if (message instanceof UserMessage userMessage) {
+            tokens += estimateTokens(textOf(userMessage));
+        } else if (message instanceof AiMessage aiMessage) {
+            tokens += estimateTokens(aiMessage.text());
+            if (aiMessage.hasToolExecutionRequests()) {
+                for (ToolExecutionRequest request : aiMessage.toolExecutionRequests()) {
+                    tokens += estimateTokens(request.name()) + estimateTokens(request.arguments());
+                }
+            }
+        } else if (message instanceof ToolExecutionResultMessage resultMessage) {
+            tokens += estimateTokens(resultMessage.text());
+        }
+        return tokens;
+    }
+
+    /**
+     * 粗略估算 token 数：ASCII 字符约 4 个一个 token，其他字符（如中文）约一个字符一个 token
+     */
+    static int estimateTokens(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int asciiChars = 0;
+        int otherChars = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < 128) {
+                asciiChars++;
+            } else {
+                otherChars++;
+            }
+        }
+        return (asciiChars + 3) / 4 + otherChars;
+    }
+}
@@ -6,10 +6,11 @@ import lombok.NoArgsConstructor;
 
 /**
  * 流消息响应基类
+ * 生成流程内部直接传递类型化的消息对象，只在 SSE 输出时序列化
  */
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-public class StreamMessage {
+public abstract sealed class StreamMessage permits AiResponseMessage, ToolRequestMessage, ToolExecutedMessage {
     private String type;
 }
@@ -8,6 +8,11 @@ import cn.hutool.json.JSONObject;
  */
 public abstract class BaseTool {
 
+    /**
+     * 文件类工具的文件路径参数名，与工具方法的参数名一致
+     */
+    public static final String FILE_PATH_ARGUMENT = "relativeFilePath";
+
     /**
      * 获取工具的英文名称（对应方法名）
      *
@@ -22,6 +27,15 @@ public abstract class BaseTool {
      */
     public abstract String getDisplayName();
 
+    /**
+     * 工具是否只读取项目文件，只读工具的连续调用会并发执行
+     *
+     * @return 是否只读
+     */
+    public boolean isReadOnly() {
+        return false;
+    }
+
     /**
      * 生成工具请求时的返回值（显示给用户）
      *
@@ -4,9 +4,11 @@ import cn.hutool.json.JSONObject;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import top.deepdog.yiaicodemaster.constant.AppConstant;
+import top.deepdog.yiaicodemaster.core.builder.ProjectChangeTracker;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -21,6 +23,9 @@ import java.nio.file.Paths;
 @Component
 public class FileDeleteTool extends BaseTool {
 
+    @Resource
+    private ProjectChangeTracker projectChangeTracker;
+
     @Tool("删除指定路径的文件")
     public String deleteFile(
             @P("文件的相对路径")
@@ -46,6 +51,7 @@ public class FileDeleteTool extends BaseTool {
                 return "错误：不允许删除重要文件 - " + fileName;
             }
             Files.delete(path);
+            projectChangeTracker.recordChange(appId, path);
             log.info("成功删除文件: {}", path.toAbsolutePath());
             return "文件删除成功: " + relativeFilePath;
         } catch (IOException e) {
@@ -86,7 +92,7 @@ public class FileDeleteTool extends BaseTool {
 
     @Override
     public String generateToolExecutedResult(JSONObject arguments) {
-        String relativeFilePath = arguments.getStr("relativeFilePath");
+        String relativeFilePath = arguments.getStr(FILE_PATH_ARGUMENT);
         return String.format("[工具调用] %s %s", getDisplayName(), relativeFilePath);
     }
 
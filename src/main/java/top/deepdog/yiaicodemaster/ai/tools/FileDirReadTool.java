@@ -117,6 +117,11 @@ public class FileDirReadTool extends BaseTool {
         return "读取目录";
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     public String generateToolExecutedResult(JSONObject arguments) {
         String relativeDirPath = arguments.getStr("relativeDirPath");
@@ -4,9 +4,11 @@ import cn.hutool.json.JSONObject;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import top.deepdog.yiaicodemaster.constant.AppConstant;
+import top.deepdog.yiaicodemaster.core.builder.ProjectChangeTracker;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -22,6 +24,9 @@ import java.nio.file.StandardOpenOption;
 @Component
 public class FileModifyTool extends BaseTool {
 
+    @Resource
+    private ProjectChangeTracker projectChangeTracker;
+
     @Tool("修改文件内容，用新内容替换指定的旧内容")
     public String modifyFile(
             @P("文件的相对路径")
@@ -51,6 +56,7 @@ public class FileModifyTool extends BaseTool {
                 return "信息：替换后文件内容未发生变化 - " + relativeFilePath;
             }
             Files.writeString(path, modifiedContent, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            projectChangeTracker.recordChange(appId, path);
             log.info("成功修改文件: {}", path.toAbsolutePath());
             return "文件修改成功: " + relativeFilePath;
         } catch (IOException e) {
@@ -73,7 +79,7 @@ public class FileModifyTool extends BaseTool {
 
     @Override
     public String generateToolExecutedResult(JSONObject arguments) {
-        String relativeFilePath = arguments.getStr("relativeFilePath");
+        String relativeFilePath = arguments.getStr(FILE_PATH_ARGUMENT);
         String oldContent = arguments.getStr("oldContent");
         String newContent = arguments.getStr("newContent");
         // 显示对比内容
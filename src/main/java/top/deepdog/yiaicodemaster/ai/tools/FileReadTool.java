@@ -56,9 +56,14 @@ public class FileReadTool extends BaseTool {
         return "读取文件";
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     public String generateToolExecutedResult(JSONObject arguments) {
-        String relativeFilePath = arguments.getStr("relativeFilePath");
+        String relativeFilePath = arguments.getStr(FILE_PATH_ARGUMENT);
         return String.format("[工具调用] %s %s", getDisplayName(), relativeFilePath);
     }
 
@@ -5,9 +5,11 @@ import cn.hutool.json.JSONObject;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import top.deepdog.yiaicodemaster.constant.AppConstant;
+import top.deepdog.yiaicodemaster.core.builder.ProjectChangeTracker;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -22,6 +24,9 @@ import java.nio.file.StandardOpenOption;
 @Component
 public class FileWriteTool extends BaseTool {
 
+    @Resource
+    private ProjectChangeTracker projectChangeTracker;
+
     @Tool("写入文件到指定路径")
     public String writeFile(
             @P("文件的相对路径")
@@ -44,6 +49,7 @@ public class FileWriteTool extends BaseTool {
             }
             // 写入文件
             Files.write(path, content.getBytes(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            projectChangeTracker.recordChange(appId, path);
             log.info("文件写入成功：{}", path.toAbsolutePath());
             return "文件写入成功：" + relativeFilePath;
         } catch (IOException e) {
@@ -66,7 +72,7 @@ public class FileWriteTool extends BaseTool {
 
     @Override
     public String generateToolExecutedResult(JSONObject arguments) {
-        String relativeFilePath = arguments.getStr("relativeFilePath");
+        String relativeFilePath = arguments.getStr(FILE_PATH_ARGUMENT);
         String suffix = FileUtil.getSuffix(relativeFilePath);
         String content = arguments.getStr("content");
         return String.format("""
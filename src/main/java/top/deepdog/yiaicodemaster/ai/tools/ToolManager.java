@@ -1,11 +1,20 @@
 package top.deepdog.yiaicodemaster.ai.tools;
 
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.agent.tool.ToolSpecifications;
+import dev.langchain4j.internal.Utils;
+import dev.langchain4j.service.tool.DefaultToolExecutor;
+import dev.langchain4j.service.tool.ReadOnlyToolExecutor;
+import dev.langchain4j.service.tool.ToolExecutor;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -21,6 +30,11 @@ public class ToolManager {
      */
     private final Map<String, BaseTool> toolMap = new HashMap<>();
 
+    /**
+     * 工具方法的规格到执行器的映射，只读工具的执行器标记为 {@link ReadOnlyToolExecutor}
+     */
+    private final Map<ToolSpecification, ToolExecutor> toolExecutors = new LinkedHashMap<>();
+
     /**
      * 自动注入所有工具
      */
@@ -34,11 +48,25 @@ public class ToolManager {
     public void initTools() {
         for (BaseTool tool : tools) {
             toolMap.put(tool.getToolName(), tool);
+            registerToolExecutors(tool);
             log.info("注册工具: {} -> {}", tool.getToolName(), tool.getDisplayName());
         }
         log.info("工具管理器初始化完成，共注册 {} 个工具", toolMap.size());
     }
 
+    /**
+     * 与 AiServices.tools(Object...) 一样为工具类中的每个 @Tool 方法创建执行器
+     */
+    private void registerToolExecutors(BaseTool tool) {
+        for (Method method : tool.getClass().getDeclaredMethods()) {
+            Utils.getAnnotatedMethod(method, Tool.class).ifPresent(toolMethod -> {
+                ToolExecutor toolExecutor = new DefaultToolExecutor(tool, toolMethod);
+                toolExecutors.put(ToolSpecifications.toolSpecificationFrom(toolMethod),
+                        tool.isReadOnly() ? new ReadOnlyToolExecutor(toolExecutor) : toolExecutor);
+            });
+        }
+    }
+
     /**
      * 根据工具名称获取工具实例
      *
@@ -57,4 +85,13 @@ public class ToolManager {
     public BaseTool[] getAllTools() {
         return tools;
     }
+
+    /**
+     * 获取所有工具方法的规格和执行器，用于构建 AI 服务
+     *
+     * @return 工具规格到执行器的映射
+     */
+    public Map<ToolSpecification, ToolExecutor> getToolExecutors() {
+        return toolExecutors;
+    }
 }
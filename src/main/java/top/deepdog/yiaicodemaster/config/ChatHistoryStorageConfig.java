@@ -0,0 +1,30 @@
+package top.deepdog.yiaicodemaster.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 对话历史存储配置
+ * 大消息压缩后存储，超大消息压缩后存到按内容寻址的外部文件，列表查询只返回预览
+ */
+@Configuration
+@ConfigurationProperties(prefix = "chat-history.storage")
+@Data
+public class ChatHistoryStorageConfig {
+
+    /**
+     * 消息超过该大小（UTF-8 字节）时压缩存储
+     */
+    private int compressThresholdBytes = 8 * 1024;
+
+    /**
+     * 压缩后仍超过该大小（字节）时存到外部文件，数据库只保存引用
+     */
+    private int blobThresholdBytes = 64 * 1024;
+
+    /**
+     * 压缩存储的消息保留的预览长度（字符）
+     */
+    private int previewLength = 500;
+}
@@ -0,0 +1,40 @@
+package top.deepdog.yiaicodemaster.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 对话历史异步批量写入配置
+ * 消息先写入本地日志并入队，每 flushIntervalMillis 毫秒或累计 batchSize 条批量插入数据库（先到为准）
+ */
+@Configuration
+@ConfigurationProperties(prefix = "chat-history.write-behind")
+@Data
+public class ChatHistoryWriteConfig {
+
+    /**
+     * 是否异步批量写入，关闭后每条消息同步插入
+     */
+    private boolean enabled = true;
+
+    /**
+     * 单次批量插入的最大条数
+     */
+    private int batchSize = 100;
+
+    /**
+     * 最大合并延迟（毫秒）
+     */
+    private long flushIntervalMillis = 200;
+
+    /**
+     * 待写入队列容量，队列满时（数据库变慢）退化为同步插入
+     */
+    private int queueCapacity = 5000;
+
+    /**
+     * 单个日志文件的大小上限（字节），超出后切换到新文件
+     */
+    private long journalSegmentBytes = 16L * 1024 * 1024;
+}
@@ -0,0 +1,35 @@
+package top.deepdog.yiaicodemaster.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 会话记忆配置
+ * 记忆按估算的 token 数限制大小，旧轮次中的工具调用内容折叠为引用，超出预算的最早轮次合并为摘要
+ */
+@Configuration
+@ConfigurationProperties(prefix = "chat-memory")
+@Data
+public class ChatMemoryConfig {
+
+    /**
+     * 记忆的 token 预算（估算值，含系统提示词和摘要）
+     */
+    private int maxTokens = 24000;
+
+    /**
+     * 最近的若干轮对话保持原样，不折叠工具调用内容
+     */
+    private int keepRecentTurns = 2;
+
+    /**
+     * 旧轮次中超过该长度（字符）的工具参数、工具结果和代码块折叠为引用
+     */
+    private int compactThresholdChars = 1000;
+
+    /**
+     * 早期对话摘要的 token 上限，超出时丢弃最早的摘要
+     */
+    private int summaryMaxTokens = 2000;
+}
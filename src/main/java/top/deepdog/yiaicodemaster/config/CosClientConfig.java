@@ -1,9 +1,12 @@
 package top.deepdog.yiaicodemaster.config;
 
+import cn.hutool.core.util.StrUtil;
 import com.qcloud.cos.COSClient;
 import com.qcloud.cos.ClientConfig;
 import com.qcloud.cos.auth.BasicCOSCredentials;
 import com.qcloud.cos.auth.COSCredentials;
+import com.qcloud.cos.endpoint.UserSpecifiedEndpointBuilder;
+import com.qcloud.cos.http.HttpProtocol;
 import com.qcloud.cos.region.Region;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -45,12 +48,65 @@ public class CosClientConfig {
      */
     private String bucket;
 
+    /**
+     * 自定义服务地址（如 127.0.0.1:9000），用于本地的 COS 兼容服务，为空时按区域访问腾讯云
+     */
+    private String endpoint;
+
+    /**
+     * 访问协议：https / http
+     */
+    private String protocol = "https";
+
+    /**
+     * 连接超时（毫秒）
+     */
+    private int connectionTimeoutMillis = 5000;
+
+    /**
+     * 读写超时（毫秒）
+     */
+    private int socketTimeoutMillis = 30000;
+
+    /**
+     * 上传线程数（分块上传和并行上传共用）
+     */
+    private int uploadThreadCount = 4;
+
+    /**
+     * 超过该大小的文件使用分块上传（字节）
+     */
+    private long multipartThresholdBytes = 16L * 1024 * 1024;
+
+    /**
+     * 分块大小（字节）
+     */
+    private long multipartPartSizeBytes = 8L * 1024 * 1024;
+
+    /**
+     * 单次上传失败后的最大重试次数
+     */
+    private int maxUploadRetries = 3;
+
+    /**
+     * 重试的初始退避时间（毫秒），之后每次翻倍
+     */
+    private long retryBaseDelayMillis = 200;
+
     @Bean
     public COSClient cosClient() {
         // 初始化用户身份信息(secretId, secretKey)
         COSCredentials cred = new BasicCOSCredentials(secretId, secretKey);
         // 设置bucket的区域, COS地域的简称请参照 https://www.qcloud.com/document/product/436/6224
         ClientConfig clientConfig = new ClientConfig(new Region(region));
+        if (StrUtil.isNotBlank(endpoint)) {
+            clientConfig.setEndpointBuilder(new UserSpecifiedEndpointBuilder(endpoint, endpoint));
+        }
+        clientConfig.setHttpProtocol("http".equalsIgnoreCase(protocol) ? HttpProtocol.http : HttpProtocol.https);
+        clientConfig.setConnectionTimeout(connectionTimeoutMillis);
+        clientConfig.setSocketTimeout(socketTimeoutMillis);
+        // 重试由 CosManager 统一处理（指数退避 + 重试预算），避免与 SDK 内置重试叠加
+        clientConfig.setMaxErrorRetry(0);
         // 生成cos客户端
         return new COSClient(cred, clientConfig);
     }
@@ -0,0 +1,64 @@
+package top.deepdog.yiaicodemaster.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 网页截图配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "screenshot")
+@Data
+public class ScreenshotConfig {
+
+    /**
+     * 浏览器池大小（同时截图的上限）
+     */
+    private int poolSize = 2;
+
+    /**
+     * 单个浏览器最多截图次数，超出后关闭重建，避免内存泄漏累积
+     */
+    private int maxPagesPerBrowser = 50;
+
+    /**
+     * 等待空闲浏览器的超时时间（秒）
+     */
+    private int leaseTimeoutSeconds = 60;
+
+    /**
+     * 浏览器窗口宽度
+     */
+    private int windowWidth = 1600;
+
+    /**
+     * 浏览器窗口高度
+     */
+    private int windowHeight = 900;
+
+    /**
+     * 页面就绪策略：none / network_idle / dom_quiet
+     */
+    private String readinessStrategy = "network_idle";
+
+    /**
+     * 没有新的网络请求或 DOM 变化持续多久视为就绪（毫秒）
+     */
+    private long readinessQuietMillis = 300;
+
+    /**
+     * 等待页面就绪的最长时间（毫秒），超时后直接截图
+     */
+    private long readinessTimeoutMillis = 5000;
+
+    /**
+     * 封面缩略图宽度，高度按截图比例缩放
+     */
+    private int thumbnailWidth = 800;
+
+    /**
+     * 封面缩略图 JPEG 质量（0-1）
+     */
+    private float thumbnailQuality = 0.8f;
+}
@@ -0,0 +1,35 @@
+package top.deepdog.yiaicodemaster.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SSE 输出合并配置
+ * 生成过程中的 token 先合并再输出，每 maxDelayMillis 毫秒或累计 maxBytes 字节输出一帧（先到为准）
+ */
+@Configuration
+@ConfigurationProperties(prefix = "sse.batch")
+@Data
+public class SseBatchConfig {
+
+    /**
+     * 默认最大合并延迟（毫秒），0 表示不合并
+     */
+    private long maxDelayMillis = 50;
+
+    /**
+     * 默认单帧最大字节数
+     */
+    private int maxBytes = 4096;
+
+    /**
+     * 单次请求允许指定的最大合并延迟（毫秒）
+     */
+    private long maxDelayMillisLimit = 500;
+
+    /**
+     * 单次请求允许指定的单帧最大字节数
+     */
+    private int maxBytesLimit = 64 * 1024;
+}
@@ -0,0 +1,29 @@
+package top.deepdog.yiaicodemaster.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 静态文件内容缓存配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "static-file.cache")
+@Data
+public class StaticFileCacheConfig {
+
+    /**
+     * 是否缓存热点小文件的内容
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存总大小上限（字节），缓存使用堆外内存
+     */
+    private long maxBytes = 64L * 1024 * 1024;
+
+    /**
+     * 单个文件超过该大小时不缓存，直接由容器零拷贝发送（字节）
+     */
+    private long maxFileBytes = 256L * 1024;
+}
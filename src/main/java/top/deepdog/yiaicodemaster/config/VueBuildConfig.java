@@ -0,0 +1,49 @@
+package top.deepdog.yiaicodemaster.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Vue 项目构建队列配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "vue.build")
+@Data
+public class VueBuildConfig {
+
+    /**
+     * 同时执行构建的工作线程数
+     */
+    private int workerCount = 2;
+
+    /**
+     * 等待执行的构建任务上限
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * 是否启用 node_modules 缓存
+     */
+    private boolean nodeModulesCacheEnabled = true;
+
+    /**
+     * node_modules 缓存占用磁盘上限（字节），超出后按最近最少使用淘汰
+     */
+    private long nodeModulesCacheMaxBytes = 5L * 1024 * 1024 * 1024;
+
+    /**
+     * 是否启用常驻的 vite build --watch 进程做增量构建
+     */
+    private boolean watchBuildEnabled = true;
+
+    /**
+     * 同时常驻的 watch 构建进程上限，超出后关闭最久未使用的进程
+     */
+    private int maxWatchProcesses = 4;
+
+    /**
+     * watch 构建进程空闲多久后关闭（分钟）
+     */
+    private int watchIdleMinutes = 10;
+}
@@ -17,11 +17,36 @@ public interface AppConstant {
      */
     String CODE_OUTPUT_ROOT_DIR = System.getProperty("user.dir") + "/tmp/code_output";
 
+    /**
+     * 实时预览快照目录名（位于应用生成目录下，生成过程中存在）
+     */
+    String CODE_PREVIEW_DIR_NAME = ".preview";
+
     /**
      * 应用部署目录
      */
     String CODE_DEPLOY_ROOT_DIR = System.getProperty("user.dir") + "/tmp/code_deploy";
 
+    /**
+     * Vue 项目依赖（node_modules）缓存目录
+     */
+    String NODE_MODULES_CACHE_ROOT_DIR = System.getProperty("user.dir") + "/tmp/node_modules_cache";
+
+    /**
+     * 项目代码下载压缩包缓存目录
+     */
+    String CODE_DOWNLOAD_CACHE_ROOT_DIR = System.getProperty("user.dir") + "/tmp/code_download";
+
+    /**
+     * 对话历史待写入日志目录
+     */
+    String CHAT_HISTORY_JOURNAL_DIR = System.getProperty("user.dir") + "/tmp/chat_history_journal";
+
+    /**
+     * 对话历史大消息存储目录
+     */
+    String CHAT_MESSAGE_BLOB_DIR = System.getProperty("user.dir") + "/tmp/chat_message_blob";
+
     /**
      * 应用部署域名
      */
@@ -2,24 +2,30 @@ package top.deepdog.yiaicodemaster.controller;
 
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.json.JSONUtil;
 import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 import top.deepdog.yiaicodemaster.annotation.AuthCheck;
 import top.deepdog.yiaicodemaster.common.BaseResponse;
 import top.deepdog.yiaicodemaster.common.DeleteRequest;
 import top.deepdog.yiaicodemaster.common.ResultUtils;
+import top.deepdog.yiaicodemaster.config.SseBatchConfig;
 import top.deepdog.yiaicodemaster.constant.AppConstant;
 import top.deepdog.yiaicodemaster.constant.UserConstant;
+import top.deepdog.yiaicodemaster.core.builder.VueBuildQueue;
+import top.deepdog.yiaicodemaster.core.sse.SseFrameEncoder;
+import top.deepdog.yiaicodemaster.core.sse.SseOutputMetrics;
+import top.deepdog.yiaicodemaster.core.sse.SseTokenBatcher;
 import top.deepdog.yiaicodemaster.exception.BusinessException;
 import top.deepdog.yiaicodemaster.exception.ErrorCode;
 import top.deepdog.yiaicodemaster.exception.ThrowUtils;
@@ -28,6 +34,7 @@ import top.deepdog.yiaicodemaster.model.entity.App;
 import top.deepdog.yiaicodemaster.model.entity.User;
 import top.deepdog.yiaicodemaster.model.enums.CodeGenTypeEnum;
 import top.deepdog.yiaicodemaster.model.vo.AppVO;
+import top.deepdog.yiaicodemaster.model.vo.VueBuildStatusVO;
 import top.deepdog.yiaicodemaster.ratelimiter.annotation.RateLimit;
 import top.deepdog.yiaicodemaster.ratelimiter.enums.RateLimitType;
 import top.deepdog.yiaicodemaster.service.AppService;
@@ -35,9 +42,11 @@ import top.deepdog.yiaicodemaster.service.ProjectDownloadService;
 import top.deepdog.yiaicodemaster.service.UserService;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 
 /**
  * 应用 控制层。
@@ -54,19 +63,32 @@ public class AppController {
     @Resource
     private UserService userService;
 
+    @Resource
+    private SseBatchConfig sseBatchConfig;
+
+    @Resource
+    private SseOutputMetrics sseOutputMetrics;
+
+    @Resource
+    private VueBuildQueue vueBuildQueue;
+
     /**
      * 聊天生成代码
      *
-     * @param appId     应用 id
-     * @param message   用户消息
-     * @param request   请求
+     * @param appId        应用 id
+     * @param message      用户消息
+     * @param batchMillis  输出合并延迟（毫秒，可选，0 表示不合并）
+     * @param batchBytes   单帧最大字节数（可选）
+     * @param request      请求
      * @return 生成的代码
      */
     @GetMapping(value = "/chat/gen/code", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @RateLimit(limitType = RateLimitType.USER, rate = 5, rateInterval = 60, message = "AI请求频繁，请稍后重试")
-    public Flux<ServerSentEvent<String>> chatToGenCode(@RequestParam Long appId,
-                                                       @RequestParam String message,
-                                                       HttpServletRequest request) {
+    public ResponseEntity<ResponseBodyEmitter> chatToGenCode(@RequestParam Long appId,
+                                                             @RequestParam String message,
+                                                             @RequestParam(required = false) Long batchMillis,
+                                                             @RequestParam(required = false) Integer batchBytes,
+                                                             HttpServletRequest request) {
         // 参数校验
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
         ThrowUtils.throwIf(StrUtil.isBlank(message), ErrorCode.PARAMS_ERROR, "用户消息不能为空");
@@ -74,24 +96,86 @@ public class AppController {
         User loginUser = userService.getLoginUser(request);
         // 调用服务生成代码（流式）
         Flux<String> contentFlux = appService.chatToGenCode(appId, message, loginUser);
-        return contentFlux
-                .map(chunk -> {
-                    // 封装成 JSON 对象
-                    Map<String, String> wrapper = Map.of("d", chunk);
-                    String jsonData = JSONUtil.toJsonStr(wrapper);
-                    return ServerSentEvent.<String>builder()
-                            .data(jsonData)
-                            .build();
-                })
-                .concatWith(
-                        Mono.just(
-                                // 结束事件
-                                ServerSentEvent.<String>builder()
-                                        .event("done")
-                                        .data("")
-                                        .build()
-                        )
-                );
+        // 合并 token 后再输出，减少帧数和 flush 次数
+        long maxDelayMillis = batchMillis != null
+                ? Math.clamp(batchMillis, 0, sseBatchConfig.getMaxDelayMillisLimit())
+                : sseBatchConfig.getMaxDelayMillis();
+        int maxBytes = batchBytes != null
+                ? Math.clamp(batchBytes, 1, sseBatchConfig.getMaxBytesLimit())
+                : sseBatchConfig.getMaxBytes();
+        contentFlux = SseTokenBatcher.batch(contentFlux, Duration.ofMillis(maxDelayMillis), maxBytes);
+        // 与 Spring 直接返回 Flux 时一致，不设置异步超时（-1），生成时间由模型调用自身的超时控制
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(-1L);
+        // 每个分块直接编码为 SSE 帧字节写出，不再经过 Map 和 JSON 序列化
+        Disposable subscription = contentFlux.subscribe(
+                chunk -> sendSseFrame(emitter, SseFrameEncoder.encodeData(chunk)),
+                emitter::completeWithError,
+                () -> {
+                    // 结束事件
+                    sendSseFrame(emitter, SseFrameEncoder.DONE_FRAME);
+                    emitter.complete();
+                });
+        // 客户端断开或超时时取消生成
+        emitter.onCompletion(subscription::dispose);
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(error -> subscription.dispose());
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .cacheControl(CacheControl.noCache())
+                .body(emitter);
+    }
+
+    /**
+     * 发送已编码的 SSE 帧
+     */
+    private void sendSseFrame(ResponseBodyEmitter emitter, byte[] frame) {
+        try {
+            emitter.send(frame, MediaType.TEXT_EVENT_STREAM);
+            sseOutputMetrics.recordFrame(frame.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 获取 Vue 项目构建状态
+     *
+     * @param appId   应用 id
+     * @param request 请求
+     * @return 构建状态
+     */
+    @GetMapping("/build/status")
+    public BaseResponse<VueBuildStatusVO> getBuildStatus(@RequestParam Long appId, HttpServletRequest request) {
+        checkBuildStatusAuth(appId, request);
+        return ResultUtils.success(vueBuildQueue.getStatus(appId));
+    }
+
+    /**
+     * 订阅 Vue 项目构建进度（SSE），构建结束后断开
+     *
+     * @param appId   应用 id
+     * @param request 请求
+     * @return 构建状态变化事件
+     */
+    @GetMapping(value = "/build/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<VueBuildStatusVO>> watchBuildStatus(@RequestParam Long appId, HttpServletRequest request) {
+        checkBuildStatusAuth(appId, request);
+        return vueBuildQueue.watchStatus(appId)
+                .map(statusVO -> ServerSentEvent.<VueBuildStatusVO>builder()
+                        .event("build-status")
+                        .data(statusVO)
+                        .build());
+    }
+
+    /**
+     * 校验构建状态查询权限（仅本人）
+     */
+    private void checkBuildStatusAuth(Long appId, HttpServletRequest request) {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
+        User loginUser = userService.getLoginUser(request);
+        App app = appService.getById(appId);
+        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR, "应用不存在");
+        ThrowUtils.throwIf(!app.getUserId().equals(loginUser.getId()), ErrorCode.NO_AUTH_ERROR);
     }
 
     /**
@@ -348,13 +432,12 @@ public class AppController {
      * 下载应用代码
      *
      * @param appId    应用ID
-     * @param request  请求
-     * @param response 响应
+     * @param request 请求
+     * @return 代码压缩包
      */
     @GetMapping("/download/{appId}")
-    public void downloadAppCode(@PathVariable Long appId,
-                                HttpServletRequest request,
-                                HttpServletResponse response) {
+    public ResponseEntity<org.springframework.core.io.Resource> downloadAppCode(@PathVariable Long appId,
+                                                                                HttpServletRequest request) {
         // 1. 基础校验
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
         // 2. 查询应用信息
@@ -376,7 +459,7 @@ public class AppController {
         // 6. 生成下载文件名（不建议添加中文内容）
         String downloadFileName = String.valueOf(appId);
         // 7. 调用通用下载服务
-        projectDownloadService.downloadProjectAsZip(sourceDirPath, downloadFileName, response);
+        return projectDownloadService.downloadProjectAsZip(sourceDirPath, downloadFileName);
     }
 
 
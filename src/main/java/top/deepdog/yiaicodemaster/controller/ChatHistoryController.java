@@ -14,11 +14,10 @@ import top.deepdog.yiaicodemaster.exception.ThrowUtils;
 import top.deepdog.yiaicodemaster.model.dto.chathistory.ChatHistoryQueryRequest;
 import top.deepdog.yiaicodemaster.model.entity.ChatHistory;
 import top.deepdog.yiaicodemaster.model.entity.User;
+import top.deepdog.yiaicodemaster.model.vo.ChatHistoryCursorPageVO;
 import top.deepdog.yiaicodemaster.service.ChatHistoryService;
 import top.deepdog.yiaicodemaster.service.UserService;
 
-import java.time.LocalDateTime;
-
 /**
  * 对话历史 控制层。
  *
@@ -36,20 +35,33 @@ public class ChatHistoryController {
     /**
      * 分页获取指定应用的对话历史（游标查询）
      *
-     * @param appId          应用ID
-     * @param pageSize       每页大小
-     * @param lastCreateTime 最后一条记录的创建时间
-     * @param request        HttpServletRequest
-     * @return 对话历史分页
+     * @param appId    应用ID
+     * @param pageSize 每页大小
+     * @param cursor   上一页返回的游标
+     * @param request  HttpServletRequest
+     * @return 对话历史和下一页游标
      */
     @GetMapping("app/{appId}")
-    public BaseResponse<Page<ChatHistory>> listAppChatHistoryBy(@PathVariable Long appId,
-                                                                @RequestParam(defaultValue = "10") Integer pageSize,
-                                                                @RequestParam(required = false) LocalDateTime lastCreateTime,
-                                                                HttpServletRequest request) {
+    public BaseResponse<ChatHistoryCursorPageVO> listAppChatHistory(@PathVariable Long appId,
+                                                                    @RequestParam(defaultValue = "10") Integer pageSize,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    HttpServletRequest request) {
         User loginUser = userService.getLoginUser(request);
-        Page<ChatHistory> chatHistoryPage = chatHistoryService.listAppChatHistoryByPage(appId, pageSize, lastCreateTime, loginUser);
-        return ResultUtils.success(chatHistoryPage);
+        ChatHistoryCursorPageVO pageVO = chatHistoryService.listAppChatHistoryByCursor(appId, pageSize, cursor, loginUser);
+        return ResultUtils.success(pageVO);
+    }
+
+    /**
+     * 获取完整的对话消息（列表中 messageFormat 不是 plain 的消息只返回了预览）
+     *
+     * @param id      消息ID
+     * @param request HttpServletRequest
+     * @return 消息原文
+     */
+    @GetMapping("message/{id}")
+    public BaseResponse<String> getChatMessage(@PathVariable Long id, HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(chatHistoryService.getChatMessage(id, loginUser));
     }
 
     /**
@@ -1,19 +1,30 @@
 package top.deepdog.yiaicodemaster.controller;
 
+import cn.hutool.core.util.StrUtil;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.HandlerMapping;
 import top.deepdog.yiaicodemaster.constant.AppConstant;
+import top.deepdog.yiaicodemaster.core.staticfile.ByteBufferResource;
+import top.deepdog.yiaicodemaster.core.staticfile.StaticFileContentCache;
+import top.deepdog.yiaicodemaster.core.staticfile.StaticFileMetadata;
+import top.deepdog.yiaicodemaster.core.staticfile.StaticFileMetadataCache;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/static")
@@ -22,14 +33,43 @@ public class StaticResourceController {
     // 应用生成根目录（用于浏览）
     private static final String PREVIEW_ROOT_DIR = AppConstant.CODE_OUTPUT_ROOT_DIR;
 
+    // 实时预览路径（生成过程中的快照目录）
+    private static final String LIVE_PREVIEW_PATH = "/" + AppConstant.CODE_PREVIEW_DIR_NAME;
+
+    // vite 构建产物中带内容哈希的资源（dist/assets/{name}-{hash}.{ext}），文件名变化即内容变化，可以长期缓存；
+    // 其他文件（包括源码中的 assets 目录）会被原地改写，不能长期缓存
+    private static final Pattern HASHED_ASSET_PATTERN = Pattern.compile(".*/dist/assets/[^/]+-[A-Za-z0-9_-]{8}\\.[A-Za-z0-9]+");
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    // Tomcat sendfile 请求属性（NIO 连接器内部使用 FileChannel.transferTo）
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    @jakarta.annotation.Resource
+    private StaticFileMetadataCache staticFileMetadataCache;
+
+    @jakarta.annotation.Resource
+    private StaticFileContentCache staticFileContentCache;
+
     /**
      * 提供静态资源访问，支持目录重定向
+     * 1. 带 ETag 和 Last-Modified，条件请求未变化时返回 304
+     * 2. 客户端支持时返回预压缩的 .br / .gz 文件
+     * 3. 支持 Range 请求
+     * 4. 热点小文件从内存缓存返回，大文件由容器零拷贝发送
      * 访问格式：http://localhost:8123/api/static/{deployKey}[/{fileName}]
      */
     @GetMapping("/{deployKey}/**")
     public ResponseEntity<Resource> serveStaticResource(
             @PathVariable String deployKey,
-            HttpServletRequest request) {
+            HttpServletRequest request,
+            HttpServletResponse response) {
         try {
             // 获取资源路径
             String resourcePath = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
@@ -40,36 +80,128 @@ public class StaticResourceController {
                 headers.add("Location", request.getRequestURI() + "/");
                 return new ResponseEntity<>(headers, HttpStatus.MOVED_PERMANENTLY);
             }
+            // 实时预览目录同样需要带斜杠，保证页面中的相对路径正确
+            if (resourcePath.equals(LIVE_PREVIEW_PATH)) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.add("Location", request.getRequestURI() + "/");
+                return new ResponseEntity<>(headers, HttpStatus.MOVED_PERMANENTLY);
+            }
             // 默认返回 index.html
-            if (resourcePath.equals("/")) {
-                resourcePath = "/index.html";
+            if (resourcePath.endsWith("/")) {
+                resourcePath = resourcePath + "index.html";
             }
             // 构建文件路径
             String filePath = PREVIEW_ROOT_DIR + "/" + deployKey + resourcePath;
-            File file = new File(filePath);
+            boolean livePreview = resourcePath.startsWith(LIVE_PREVIEW_PATH + "/");
+            StaticFileMetadata metadata = staticFileMetadataCache.get(new File(filePath));
+            // 实时预览快照尚未生成（或生成已结束）时，回退到已保存的文件
+            if (livePreview && metadata == null) {
+                filePath = PREVIEW_ROOT_DIR + "/" + deployKey + resourcePath.substring(LIVE_PREVIEW_PATH.length());
+                metadata = staticFileMetadataCache.get(new File(filePath));
+            }
             // 检查文件是否存在
-            if (!file.exists()) {
+            if (metadata == null) {
                 return ResponseEntity.notFound().build();
             }
-            // 返回文件资源
-            Resource resource = new FileSystemResource(file);
-            return ResponseEntity.ok()
-                    .header("Content-Type", getContentTypeWithCharset(filePath))
-                    .body(resource);
+            // 选择返回的文件：Range 请求始终基于原文件
+            File body = metadata.getFile();
+            String contentEncoding = null;
+            if (metadata.hasPrecompressed() && request.getHeader(HttpHeaders.RANGE) == null) {
+                String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+                if (metadata.getBrotliFile() != null && acceptsEncoding(acceptEncoding, "br")) {
+                    body = metadata.getBrotliFile();
+                    contentEncoding = "br";
+                } else if (metadata.getGzipFile() != null && acceptsEncoding(acceptEncoding, "gzip")) {
+                    body = metadata.getGzipFile();
+                    contentEncoding = "gzip";
+                }
+            }
+            String etag = metadata.getEtag();
+            if (contentEncoding != null) {
+                // 不同编码是不同的表示，ETag 需要区分
+                etag = etag.substring(0, etag.length() - 1) + "-" + contentEncoding + "\"";
+            }
+            // 返回文件资源，If-None-Match / If-Modified-Since 由 Spring 根据 ETag 和 Last-Modified 处理
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_TYPE, metadata.getContentType())
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .header(HttpHeaders.CACHE_CONTROL, getCacheControl(resourcePath, livePreview))
+                    .eTag(etag)
+                    .lastModified(metadata.getLastModified());
+            if (metadata.hasPrecompressed()) {
+                builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            if (contentEncoding != null) {
+                builder.header(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+            }
+            // 热点小文件从内存缓存返回
+            ByteBuffer cachedContent = staticFileContentCache.get(body, etag);
+            if (cachedContent != null) {
+                return builder.body(new ByteBufferResource(cachedContent, body.getPath()));
+            }
+            // 大文件交给容器零拷贝发送
+            if (canSendfile(request)) {
+                if (new ServletWebRequest(request, response).checkNotModified(etag, metadata.getLastModified())) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+                }
+                request.setAttribute(SENDFILE_FILENAME_ATTR, body.getAbsolutePath());
+                request.setAttribute(SENDFILE_START_ATTR, 0L);
+                request.setAttribute(SENDFILE_END_ATTR, body.length());
+                return builder.contentLength(body.length()).build();
+            }
+            return builder.body(new FileSystemResource(body));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     /**
-     * 根据文件扩展名返回带字符编码的 Content-Type
+     * 普通 GET 请求且容器支持 sendfile 时才零拷贝发送（Range 和 HEAD 请求交给 Spring 处理）
      */
-    private String getContentTypeWithCharset(String filePath) {
-        if (filePath.endsWith(".html")) return "text/html; charset=UTF-8";
-        if (filePath.endsWith(".css")) return "text/css; charset=UTF-8";
-        if (filePath.endsWith(".js")) return "application/javascript; charset=UTF-8";
-        if (filePath.endsWith(".png")) return "image/png";
-        if (filePath.endsWith(".jpg")) return "image/jpeg";
-        return "application/octet-stream";
+    private boolean canSendfile(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod())
+                && request.getHeader(HttpHeaders.RANGE) == null
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR));
+    }
+
+    /**
+     * 快照随生成进度不断变化，禁止缓存；带哈希的构建产物长期缓存；其他文件每次使用前向服务器确认
+     */
+    private String getCacheControl(String resourcePath, boolean livePreview) {
+        if (livePreview) {
+            return "no-store";
+        }
+        if (HASHED_ASSET_PATTERN.matcher(resourcePath).matches()) {
+            return IMMUTABLE_CACHE_CONTROL;
+        }
+        return "no-cache";
+    }
+
+    /**
+     * 判断 Accept-Encoding 是否接受指定编码（q=0 表示明确拒绝）
+     */
+    private boolean acceptsEncoding(String acceptEncoding, String encoding) {
+        if (StrUtil.isBlank(acceptEncoding)) {
+            return false;
+        }
+        for (String part : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] tokens = part.trim().split(";");
+            String name = tokens[0].trim();
+            if (!name.equals(encoding) && !name.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
     }
 }
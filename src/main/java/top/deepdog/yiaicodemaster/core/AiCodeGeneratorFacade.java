@@ -1,6 +1,5 @@
 package top.deepdog.yiaicodemaster.core;
 
-import cn.hutool.json.JSONUtil;
 import dev.langchain4j.model.chat.response.ChatResponse;
 import dev.langchain4j.service.TokenStream;
 import dev.langchain4j.service.tool.ToolExecution;
@@ -13,17 +12,22 @@ import top.deepdog.yiaicodemaster.ai.AiCodeGeneratorServiceFactory;
 import top.deepdog.yiaicodemaster.ai.model.HtmlCodeResult;
 import top.deepdog.yiaicodemaster.ai.model.MultiFileCodeResult;
 import top.deepdog.yiaicodemaster.ai.model.message.AiResponseMessage;
+import top.deepdog.yiaicodemaster.ai.model.message.StreamMessage;
 import top.deepdog.yiaicodemaster.ai.model.message.ToolExecutedMessage;
 import top.deepdog.yiaicodemaster.ai.model.message.ToolRequestMessage;
 import top.deepdog.yiaicodemaster.constant.AppConstant;
-import top.deepdog.yiaicodemaster.core.builder.VueProjectBuilder;
+import top.deepdog.yiaicodemaster.core.builder.ProjectChangeTracker;
+import top.deepdog.yiaicodemaster.core.builder.VueBuildQueue;
 import top.deepdog.yiaicodemaster.core.parser.CodeParserExecutor;
+import top.deepdog.yiaicodemaster.core.parser.StreamingCodeParser;
 import top.deepdog.yiaicodemaster.core.saver.CodeFileSaverExecutor;
+import top.deepdog.yiaicodemaster.core.saver.StreamingCodeFileSaver;
 import top.deepdog.yiaicodemaster.exception.BusinessException;
 import top.deepdog.yiaicodemaster.exception.ErrorCode;
 import top.deepdog.yiaicodemaster.model.enums.CodeGenTypeEnum;
 
 import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * AI 代码生成外观类，组合生成和保存功能
@@ -36,7 +40,11 @@ public class AiCodeGeneratorFacade {
     private AiCodeGeneratorServiceFactory aiCodeGeneratorServiceFactory;
 
     @Resource
-    VueProjectBuilder vueProjectBuilder;
+    private VueBuildQueue vueBuildQueue;
+
+    @Resource
+    private ProjectChangeTracker projectChangeTracker;
+
     /**
      * 统一入口：根据类型生成并保存代码
      *
@@ -71,9 +79,9 @@ public class AiCodeGeneratorFacade {
      *
      * @param userMessage     用户提示词
      * @param codeGenTypeEnum 生成类型
-     * @return 保存的目录
+     * @return 流式消息
      */
-    public Flux<String> generateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
+    public Flux<StreamMessage> generateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成类型为空");
         }
@@ -81,11 +89,11 @@ public class AiCodeGeneratorFacade {
         return switch (codeGenTypeEnum) {
             case HTML -> {
                 Flux<String> result = aiCodeGeneratorService.generateHtmlCodeStream(userMessage);
-                yield processCodeStream(result, codeGenTypeEnum, appId);
+                yield processCodeStream(result, codeGenTypeEnum, appId).map(AiResponseMessage::new);
             }
             case MULTI_FILE -> {
                 Flux<String> result = aiCodeGeneratorService.generateMultiFileCodeStream(userMessage);
-                yield processCodeStream(result, codeGenTypeEnum, appId);
+                yield processCodeStream(result, codeGenTypeEnum, appId).map(AiResponseMessage::new);
             }
             case VUE_PROJECT -> {
                 TokenStream tokenStream = aiCodeGeneratorService.generateVueProjectCodeStream(appId, userMessage);
@@ -101,47 +109,69 @@ public class AiCodeGeneratorFacade {
 
     /**
      * 处理代码流
+     * 边接收边解析代码块并写入文件，无需等待完整响应
      *
      * @param codeStream      代码流
      * @param codeGenTypeEnum 生成类型
      * @return 处理后的代码流
      */
     private Flux<String> processCodeStream(Flux<String> codeStream, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
-        StringBuilder codeBuilder = new StringBuilder();
-        return codeStream.doOnNext(codeBuilder::append)
+        StreamingCodeFileSaver codeFileSaver = CodeFileSaverExecutor.createStreamingSaver(codeGenTypeEnum, appId);
+        StreamingCodeParser codeParser = CodeParserExecutor.createStreamingParser(codeGenTypeEnum, codeFileSaver);
+        // 保存失败后不再解析，但不影响向前端输出
+        AtomicBoolean saveFailed = new AtomicBoolean(false);
+        return codeStream
+                .doOnNext(chunk -> {
+                    if (saveFailed.get()) {
+                        return;
+                    }
+                    try {
+                        codeParser.feed(chunk);
+                    } catch (Exception e) {
+                        saveFailed.set(true);
+                        codeFileSaver.abort();
+                        log.error("代码保存失败：{}", e.getMessage());
+                    }
+                })
                 .doOnComplete(() -> {
+                    if (saveFailed.get()) {
+                        return;
+                    }
                     try {
-                        String completeCode = codeBuilder.toString();
-                        Object parsedResult = CodeParserExecutor.executeParser(completeCode, codeGenTypeEnum);
-                        File savedDir = CodeFileSaverExecutor.executeSaver(parsedResult, codeGenTypeEnum, appId);
+                        codeParser.finish();
+                        File savedDir = codeFileSaver.complete();
                         log.info("代码保存成功，保存目录：{}", savedDir.getAbsolutePath());
                     } catch (Exception e) {
+                        codeFileSaver.abort();
                         log.error("代码保存失败：{}", e.getMessage());
                     }
-                });
+                })
+                .doOnError(error -> codeFileSaver.abort())
+                .doOnCancel(codeFileSaver::abort);
     }
 
     /**
-     * 将 TokenStream 转换为 Flux<String>，并传递工具调用
+     * 将 TokenStream 转换为 Flux<StreamMessage>，并传递工具调用
      *
      * @param tokenStream token流
-     * @return Flux<String> 流
+     * @return Flux<StreamMessage> 流
      */
-    private Flux<String> processTokenStream(TokenStream tokenStream, Long appId) {
+    private Flux<StreamMessage> processTokenStream(TokenStream tokenStream, Long appId) {
         return Flux.create(sink -> {
             tokenStream.onPartialResponse((String partialResponse) -> {
-                AiResponseMessage aiResponseMessage = new AiResponseMessage(partialResponse);
-                sink.next(JSONUtil.toJsonStr(aiResponseMessage));
+                sink.next(new AiResponseMessage(partialResponse));
             }).onPartialToolExecutionRequest((index, toolExecutionRequest) -> {
-                ToolRequestMessage toolRequestMessage = new ToolRequestMessage(toolExecutionRequest);
-                sink.next(JSONUtil.toJsonStr(toolRequestMessage));
+                sink.next(new ToolRequestMessage(toolExecutionRequest));
             }).onToolExecuted((ToolExecution toolExecution) -> {
-                ToolExecutedMessage toolExecutionMessage = new ToolExecutedMessage(toolExecution);
-                sink.next(JSONUtil.toJsonStr(toolExecutionMessage));
+                sink.next(new ToolExecutedMessage(toolExecution));
             }).onCompleteResponse((ChatResponse chatResponse) -> {
-                // 执行 Vue 项目构建（同步执行，确保浏览时项目已就绪）
+                // 提交 Vue 项目构建（只处理本轮工具改动的文件）后立即结束对话流，构建进度通过构建状态接口查询
                 String projectPath = AppConstant.CODE_OUTPUT_ROOT_DIR + File.separator + "vue_project_" + appId;
-                vueProjectBuilder.buildProject(projectPath);
+                try {
+                    vueBuildQueue.submit(appId, projectPath, projectChangeTracker.drainChanges(appId));
+                } catch (BusinessException e) {
+                    log.error("提交 Vue 项目构建失败：{}", e.getMessage());
+                }
                 sink.complete();
             }).onError((Throwable error) -> {
                 error.printStackTrace();
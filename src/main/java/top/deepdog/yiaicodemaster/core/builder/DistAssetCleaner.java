@@ -0,0 +1,100 @@
+package top.deepdog.yiaicodemaster.core.builder;
+
+import lombok.extern.slf4j.Slf4j;
+import top.deepdog.yiaicodemaster.utils.PrecompressUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 清理 watch 构建留下的旧资源
+ * watch 构建不清空输出目录，每次构建生成新哈希的文件，旧文件会一直留在 dist/assets 中。
+ * 从 dist 根目录的文件（如 index.html）出发，沿文本文件中出现的文件名找出仍被引用的资源，删除其余的旧文件
+ */
+@Slf4j
+class DistAssetCleaner {
+
+    private static final String ASSETS_DIR_NAME = "assets";
+
+    /**
+     * 可能引用其他资源的文本文件
+     */
+    private static final Set<String> TEXT_EXTENSIONS = Set.of("html", "js", "mjs", "css", "json", "svg");
+
+    private DistAssetCleaner() {
+    }
+
+    /**
+     * 删除未被引用的资源
+     *
+     * @param distDir      构建输出目录
+     * @param beforeMillis 只删除修改时间早于该时间的文件，避免删除正在进行的构建刚写入、还未被引用的文件
+     * @return 删除的文件数
+     */
+    static int removeUnreferencedAssets(Path distDir, long beforeMillis) {
+        Path assetsDir = distDir.resolve(ASSETS_DIR_NAME);
+        if (!Files.isDirectory(assetsDir)) {
+            return 0;
+        }
+        try {
+            Set<String> assetNames = new HashSet<>();
+            try (Stream<Path> stream = Files.list(assetsDir)) {
+                stream.filter(Files::isRegularFile)
+                        .map(path -> path.getFileName().toString())
+                        .filter(name -> !name.endsWith(PrecompressUtils.GZIP_SUFFIX))
+                        .forEach(assetNames::add);
+            }
+            Deque<Path> pending = new ArrayDeque<>();
+            try (Stream<Path> stream = Files.walk(distDir)) {
+                stream.filter(Files::isRegularFile)
+                        .filter(path -> !path.startsWith(assetsDir) && isText(path))
+                        .forEach(pending::add);
+            }
+            Set<String> referenced = new HashSet<>();
+            while (!pending.isEmpty()) {
+                String content = Files.readString(pending.poll(), StandardCharsets.UTF_8);
+                for (String name : assetNames) {
+                    if (!referenced.contains(name) && content.contains(name)) {
+                        referenced.add(name);
+                        Path asset = assetsDir.resolve(name);
+                        if (isText(asset)) {
+                            pending.add(asset);
+                        }
+                    }
+                }
+            }
+            // index.html 还不存在时无法判断引用关系
+            if (referenced.isEmpty()) {
+                return 0;
+            }
+            int deleted = 0;
+            for (String name : assetNames) {
+                Path asset = assetsDir.resolve(name);
+                if (referenced.contains(name) || Files.getLastModifiedTime(asset).toMillis() >= beforeMillis) {
+                    continue;
+                }
+                Files.deleteIfExists(asset);
+                Files.deleteIfExists(asset.resolveSibling(name + PrecompressUtils.GZIP_SUFFIX));
+                deleted++;
+            }
+            return deleted;
+        } catch (IOException e) {
+            log.warn("清理构建旧资源失败：{}，{}", distDir, e.getMessage());
+            return 0;
+        }
+    }
+
+    private static boolean isText(Path path) {
+        String name = path.getFileName().toString();
+        int dotIndex = name.lastIndexOf('.');
+        return dotIndex >= 0 && TEXT_EXTENSIONS.contains(name.substring(dotIndex + 1));
+    }
+}
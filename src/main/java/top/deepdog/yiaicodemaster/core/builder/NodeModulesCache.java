@@ -0,0 +1,384 @@
+package top.deepdog.yiaicodemaster.core.builder;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import top.deepdog.yiaicodemaster.config.VueBuildConfig;
+import top.deepdog.yiaicodemaster.constant.AppConstant;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * node_modules 缓存
+ * 以规范化后的依赖声明和锁文件的哈希为键，缓存安装好的 node_modules：
+ * 命中时把缓存硬链接（跨文件系统时退化为复制）到项目中，跳过 npm install，完全不依赖网络；
+ * 项目中的目录总是独立创建的，构建时新写入的文件（如 .vite）不会进入缓存，淘汰条目也不影响已恢复的项目；
+ * 未命中时由调用方执行 npm install 后写回缓存。缓存按最近最少使用淘汰，总大小不超过配置的磁盘上限。
+ * <p>
+ * 新生成的项目没有锁文件，安装后 npm 会生成锁文件，因此写回时以安装后的键保存，
+ * 并记录安装前的键到安装后的键的别名，之后相同依赖的新项目也能命中。
+ */
+@Slf4j
+@Component
+public class NodeModulesCache {
+
+    private static final String NODE_MODULES = "node_modules";
+
+    private static final String PACKAGE_JSON = "package.json";
+
+    private static final String PACKAGE_LOCK_JSON = "package-lock.json";
+
+    /**
+     * 依赖相关的 package.json 字段
+     */
+    private static final List<String> DEPENDENCY_FIELDS = List.of(
+            "dependencies", "devDependencies", "optionalDependencies", "peerDependencies", "overrides");
+
+    /**
+     * 写入 node_modules 中的缓存键标记，用于判断项目依赖来自哪个缓存条目
+     */
+    private static final String CACHE_KEY_MARKER = ".node-modules-cache-key";
+
+    private static final String LAST_USED_FILE = ".last-used";
+
+    private static final String SIZE_FILE = ".size";
+
+    private final Path entriesDir;
+
+    private final Path aliasesDir;
+
+    private final Path tempDir;
+
+    /**
+     * 链接与写回持有读锁，淘汰持有写锁，避免删除正在被链接的条目
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Resource
+    private VueBuildConfig vueBuildConfig;
+
+    public NodeModulesCache() {
+        this(Paths.get(AppConstant.NODE_MODULES_CACHE_ROOT_DIR));
+    }
+
+    NodeModulesCache(Path rootDir) {
+        this.entriesDir = rootDir.resolve("entries");
+        this.aliasesDir = rootDir.resolve("aliases");
+        this.tempDir = rootDir.resolve("tmp");
+    }
+
+    /**
+     * 计算项目依赖的缓存键（需在 npm install 之前计算）
+     *
+     * @param projectDir 项目根目录
+     * @return 缓存键，未启用缓存或计算失败时返回 null
+     */
+    public String getCacheKey(File projectDir) {
+        if (!vueBuildConfig.isNodeModulesCacheEnabled()) {
+            return null;
+        }
+        try {
+            return computeCacheKey(projectDir);
+        } catch (Exception e) {
+            log.warn("计算 node_modules 缓存键失败：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 从缓存恢复项目的 node_modules
+     *
+     * @param projectDir 项目根目录
+     * @param cacheKey   缓存键
+     * @return 是否命中（命中时无需 npm install）
+     */
+    public boolean restore(File projectDir, String cacheKey) {
+        if (cacheKey == null) {
+            return false;
+        }
+        Path target = projectDir.toPath().resolve(NODE_MODULES);
+        lock.readLock().lock();
+        try {
+            String entryKey = resolveEntryKey(cacheKey);
+            if (entryKey == null) {
+                // 未命中：项目中链接自其他缓存条目的依赖不能被 npm install 原地修改
+                if (readMarker(target) != null) {
+                    deleteNodeModules(target);
+                }
+                return false;
+            }
+            Path entryDir = entriesDir.resolve(entryKey);
+            if (!entryKey.equals(readMarker(target))) {
+                deleteNodeModules(target);
+                linkOrCopyTree(entryDir.resolve(NODE_MODULES), target);
+                // 标记单独写入项目，不与缓存条目共享
+                Files.writeString(target.resolve(CACHE_KEY_MARKER), entryKey, StandardCharsets.UTF_8);
+            }
+            touch(entryDir);
+            log.info("node_modules 缓存命中：{} -> {}", projectDir.getName(), entryKey);
+            return true;
+        } catch (IOException e) {
+            log.warn("从缓存恢复 node_modules 失败，改为执行 npm install：{}", e.getMessage());
+            try {
+                deleteNodeModules(target);
+            } catch (IOException ex) {
+                log.warn("清理不完整的 node_modules 失败：{}", ex.getMessage());
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * npm install 成功后写回缓存
+     *
+     * @param projectDir 项目根目录
+     * @param cacheKey   安装前计算的缓存键
+     */
+    public void store(File projectDir, String cacheKey) {
+        if (cacheKey == null) {
+            return;
+        }
+        Path source = projectDir.toPath().resolve(NODE_MODULES);
+        if (!Files.isDirectory(source)) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            // 安装后 npm 会生成锁文件，以安装后的键保存，安装前的键作为别名
+            String entryKey = computeCacheKey(projectDir);
+            Path entryDir = entriesDir.resolve(entryKey);
+            if (!Files.isDirectory(entryDir)) {
+                createEntry(source, entryKey);
+            }
+            if (!entryKey.equals(cacheKey)) {
+                Files.createDirectories(aliasesDir);
+                Files.writeString(aliasesDir.resolve(cacheKey), entryKey, StandardCharsets.UTF_8);
+            }
+            Files.writeString(source.resolve(CACHE_KEY_MARKER), entryKey, StandardCharsets.UTF_8);
+            touch(entryDir);
+        } catch (Exception e) {
+            log.warn("写回 node_modules 缓存失败：{}", e.getMessage());
+            return;
+        } finally {
+            lock.readLock().unlock();
+        }
+        evict();
+    }
+
+    /**
+     * 淘汰最近最少使用的条目，直到缓存总大小不超过上限
+     */
+    private void evict() {
+        lock.writeLock().lock();
+        try (Stream<Path> stream = Files.isDirectory(entriesDir) ? Files.list(entriesDir) : Stream.empty()) {
+            List<Path> entries = new ArrayList<>(stream.toList());
+            long totalSize = 0;
+            for (Path entry : entries) {
+                totalSize += readSize(entry);
+            }
+            long maxBytes = vueBuildConfig.getNodeModulesCacheMaxBytes();
+            if (totalSize <= maxBytes) {
+                return;
+            }
+            entries.sort(Comparator.comparing(NodeModulesCache::readLastUsed));
+            for (Path entry : entries) {
+                if (totalSize <= maxBytes) {
+                    break;
+                }
+                totalSize -= readSize(entry);
+                FileUtil.del(entry.toFile());
+                log.info("淘汰 node_modules 缓存条目：{}", entry.getFileName());
+            }
+        } catch (IOException e) {
+            log.warn("淘汰 node_modules 缓存失败：{}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void createEntry(Path source, String entryKey) throws IOException {
+        Path tempEntryDir = tempDir.resolve(IdUtil.fastSimpleUUID());
+        try {
+            long size = linkOrCopyTree(source, tempEntryDir.resolve(NODE_MODULES));
+            Files.writeString(tempEntryDir.resolve(NODE_MODULES).resolve(CACHE_KEY_MARKER), entryKey, StandardCharsets.UTF_8);
+            Files.writeString(tempEntryDir.resolve(SIZE_FILE), String.valueOf(size), StandardCharsets.UTF_8);
+            Files.createDirectories(entriesDir);
+            Files.move(tempEntryDir, entriesDir.resolve(entryKey), StandardCopyOption.ATOMIC_MOVE);
+            log.info("写入 node_modules 缓存条目：{}，大小：{} MB", entryKey, size / 1024 / 1024);
+        } catch (IOException e) {
+            // 并发写入同一条目时以先完成的为准
+            if (!Files.isDirectory(entriesDir.resolve(entryKey))) {
+                throw e;
+            }
+        } finally {
+            FileUtil.del(tempEntryDir.toFile());
+        }
+    }
+
+    /**
+     * 复制目录树，优先硬链接文件，失败（如跨文件系统）时改为复制文件内容
+     * 不使用指向缓存的符号链接：项目会直接写入缓存条目，条目被淘汰后项目的依赖也随之失效
+     *
+     * @return 文件总大小
+     */
+    private static long linkOrCopyTree(Path source, Path target) throws IOException {
+        try {
+            return copyTree(source, target, true);
+        } catch (IOException e) {
+            log.info("硬链接 node_modules 失败，改为复制：{}", e.getMessage());
+            deleteNodeModules(target);
+            return copyTree(source, target, false);
+        }
+    }
+
+    /**
+     * 复制目录树（目录独立创建，符号链接原样复制，不复制缓存键标记）
+     *
+     * @param hardLink 是否以硬链接代替复制文件内容
+     * @return 文件总大小
+     */
+    private static long copyTree(Path source, Path target, boolean hardLink) throws IOException {
+        AtomicLong size = new AtomicLong();
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path destination = target.resolve(source.relativize(file));
+                if (attrs.isSymbolicLink()) {
+                    Files.createSymbolicLink(destination, Files.readSymbolicLink(file));
+                } else if (!file.getFileName().toString().equals(CACHE_KEY_MARKER)) {
+                    if (hardLink) {
+                        Files.createLink(destination, file);
+                    } else {
+                        Files.copy(file, destination, StandardCopyOption.COPY_ATTRIBUTES);
+                    }
+                    size.addAndGet(attrs.size());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return size.get();
+    }
+
+    private String resolveEntryKey(String cacheKey) throws IOException {
+        if (Files.isDirectory(entriesDir.resolve(cacheKey))) {
+            return cacheKey;
+        }
+        Path aliasFile = aliasesDir.resolve(cacheKey);
+        if (Files.isRegularFile(aliasFile)) {
+            String entryKey = Files.readString(aliasFile, StandardCharsets.UTF_8).trim();
+            if (Files.isDirectory(entriesDir.resolve(entryKey))) {
+                return entryKey;
+            }
+        }
+        return null;
+    }
+
+    private static String readMarker(Path nodeModules) {
+        Path marker = nodeModules.resolve(CACHE_KEY_MARKER);
+        try {
+            return Files.isRegularFile(marker) ? Files.readString(marker, StandardCharsets.UTF_8).trim() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 删除项目的 node_modules（符号链接只删除链接本身）
+     */
+    private static void deleteNodeModules(Path nodeModules) throws IOException {
+        if (Files.isSymbolicLink(nodeModules)) {
+            Files.delete(nodeModules);
+        } else if (Files.exists(nodeModules)) {
+            FileUtil.del(nodeModules.toFile());
+        }
+    }
+
+    private static void touch(Path entryDir) throws IOException {
+        Path lastUsedFile = entryDir.resolve(LAST_USED_FILE);
+        if (!Files.exists(lastUsedFile)) {
+            Files.createFile(lastUsedFile);
+        }
+        Files.setLastModifiedTime(lastUsedFile, FileTime.fromMillis(System.currentTimeMillis()));
+    }
+
+    private static FileTime readLastUsed(Path entryDir) {
+        try {
+            return Files.getLastModifiedTime(entryDir.resolve(LAST_USED_FILE));
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long readSize(Path entryDir) {
+        try {
+            return Long.parseLong(Files.readString(entryDir.resolve(SIZE_FILE), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 缓存键 = SHA-256(规范化的依赖声明 + 规范化的锁文件 + 平台)
+     * 项目名称和版本号不影响安装结果，计算前去除
+     */
+    private static String computeCacheKey(File projectDir) {
+        JSONObject packageJson = JSONUtil.parseObj(FileUtil.readUtf8String(new File(projectDir, PACKAGE_JSON)));
+        Map<String, Object> dependencies = new TreeMap<>();
+        for (String field : DEPENDENCY_FIELDS) {
+            JSONObject value = packageJson.getJSONObject(field);
+            if (value != null) {
+                dependencies.put(field, new TreeMap<>(value));
+            }
+        }
+        StringBuilder keySource = new StringBuilder(JSONUtil.toJsonStr(dependencies));
+        File lockFile = new File(projectDir, PACKAGE_LOCK_JSON);
+        if (lockFile.isFile()) {
+            // JSONObject 保持锁文件中的键顺序，序列化结果稳定
+            JSONObject lockJson = JSONUtil.parseObj(FileUtil.readUtf8String(lockFile));
+            lockJson.remove("name");
+            lockJson.remove("version");
+            JSONObject packages = lockJson.getJSONObject("packages");
+            JSONObject rootPackage = packages == null ? null : packages.getJSONObject("");
+            if (rootPackage != null) {
+                rootPackage.remove("name");
+                rootPackage.remove("version");
+            }
+            keySource.append('\n').append(lockJson);
+        }
+        // 部分依赖包含平台相关的二进制文件
+        keySource.append('\n').append(System.getProperty("os.name")).append('/').append(System.getProperty("os.arch"));
+        return DigestUtil.sha256Hex(keySource.toString());
+    }
+}
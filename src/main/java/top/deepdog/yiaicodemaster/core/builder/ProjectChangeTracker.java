@@ -0,0 +1,61 @@
+package top.deepdog.yiaicodemaster.core.builder;
+
+import org.springframework.stereotype.Component;
+import top.deepdog.yiaicodemaster.constant.AppConstant;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Vue 项目文件变更记录
+ * 文件写入、修改、删除工具执行成功后记录变更，对话结束提交构建时取出，用于增量构建
+ */
+@Component
+public class ProjectChangeTracker {
+
+    private final Map<Long, PendingChanges> pendingChanges = new ConcurrentHashMap<>();
+
+    /**
+     * 记录文件变更
+     *
+     * @param appId 应用 id
+     * @param path  变更的文件（绝对路径或相对项目根目录的路径）
+     */
+    public void recordChange(Long appId, Path path) {
+        Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, "vue_project_" + appId).toAbsolutePath().normalize();
+        Path absolutePath = projectRoot.resolve(path).toAbsolutePath().normalize();
+        String relativePath = projectRoot.relativize(absolutePath).toString().replace('\\', '/');
+        pendingChanges.computeIfAbsent(appId, key -> new PendingChanges()).add(relativePath);
+    }
+
+    /**
+     * 取出并清空应用的变更
+     *
+     * @param appId 应用 id
+     * @return 变更，没有变更时为空变更
+     */
+    public ProjectChanges drainChanges(Long appId) {
+        PendingChanges changes = pendingChanges.remove(appId);
+        return changes == null ? ProjectChanges.empty() : changes.toProjectChanges();
+    }
+
+    private static class PendingChanges {
+
+        private final Set<String> paths = new HashSet<>();
+
+        private long lastChangeTime;
+
+        synchronized void add(String relativePath) {
+            paths.add(relativePath);
+            lastChangeTime = System.currentTimeMillis();
+        }
+
+        synchronized ProjectChanges toProjectChanges() {
+            return new ProjectChanges(new HashSet<>(paths), lastChangeTime);
+        }
+    }
+}
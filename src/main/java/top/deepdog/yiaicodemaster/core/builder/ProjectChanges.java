@@ -0,0 +1,60 @@
+package top.deepdog.yiaicodemaster.core.builder;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 一次构建需要处理的项目文件变更
+ * 为 null 表示变更未知（如部署时），需要完整构建
+ */
+@Getter
+public class ProjectChanges {
+
+    /**
+     * 变更的文件（相对项目根目录，使用 / 分隔）
+     */
+    private final Set<String> paths;
+
+    /**
+     * 最后一次变更的时间（毫秒时间戳）
+     */
+    private final long lastChangeTime;
+
+    public ProjectChanges(Set<String> paths, long lastChangeTime) {
+        this.paths = Collections.unmodifiableSet(paths);
+        this.lastChangeTime = lastChangeTime;
+    }
+
+    /**
+     * 没有任何变更
+     */
+    public static ProjectChanges empty() {
+        return new ProjectChanges(Set.of(), 0);
+    }
+
+    /**
+     * 合并两次变更，任意一方未知时结果未知
+     */
+    public static ProjectChanges merge(ProjectChanges first, ProjectChanges second) {
+        if (first == null || second == null) {
+            return null;
+        }
+        Set<String> paths = new HashSet<>(first.paths);
+        paths.addAll(second.paths);
+        return new ProjectChanges(paths, Math.max(first.lastChangeTime, second.lastChangeTime));
+    }
+
+    public boolean isEmpty() {
+        return paths.isEmpty();
+    }
+
+    /**
+     * 是否变更了指定文件之一
+     */
+    public boolean containsAny(Set<String> fileNames) {
+        return paths.stream().anyMatch(fileNames::contains);
+    }
+}
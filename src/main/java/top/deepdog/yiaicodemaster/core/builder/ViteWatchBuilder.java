@@ -0,0 +1,137 @@
+package top.deepdog.yiaicodemaster.core.builder;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.deepdog.yiaicodemaster.config.VueBuildConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 增量构建器
+ * 为最近构建过的项目保持常驻的 vite build --watch 进程，源文件变化后只需等待 vite 的增量构建完成；
+ * 进程数量有上限，空闲一段时间后自动关闭
+ */
+@Slf4j
+@Component
+public class ViteWatchBuilder {
+
+    /**
+     * 新启动的进程等待首次构建开始的时间（包括 npm 和 vite 启动）
+     */
+    private static final long START_QUIET_MILLIS = 30_000;
+
+    /**
+     * 已运行的进程等待变更触发构建的时间
+     */
+    private static final long RUNNING_QUIET_MILLIS = 3_000;
+
+    /**
+     * 单次构建最长等待时间
+     */
+    private static final long BUILD_TIMEOUT_MILLIS = 180_000;
+
+    private static final long IDLE_CHECK_INTERVAL_MILLIS = 60_000;
+
+    @Resource
+    private VueBuildConfig vueBuildConfig;
+
+    private final Map<String, ViteWatchProcess> processes = new ConcurrentHashMap<>();
+
+    /**
+     * 增量构建项目
+     *
+     * @param projectDir     项目根目录
+     * @param npmCommand     npm 命令
+     * @param lastChangeTime 最后一次源文件变更的时间
+     * @return 是否构建成功，返回 false 时调用方应回退为完整构建
+     */
+    public boolean rebuild(File projectDir, String npmCommand, long lastChangeTime) {
+        String key = projectDir.getAbsolutePath();
+        ViteWatchProcess watchProcess = processes.get(key);
+        long quietMillis = RUNNING_QUIET_MILLIS;
+        if (watchProcess == null || !watchProcess.isAlive()) {
+            stop(projectDir);
+            try {
+                watchProcess = ViteWatchProcess.start(projectDir, npmCommand);
+            } catch (IOException e) {
+                log.warn("启动 vite watch 构建进程失败：{}", e.getMessage());
+                return false;
+            }
+            processes.put(key, watchProcess);
+            quietMillis = START_QUIET_MILLIS;
+            stopExcessProcesses();
+        }
+        try {
+            boolean success = watchProcess.awaitBuild(lastChangeTime, quietMillis, BUILD_TIMEOUT_MILLIS);
+            if (!success && !watchProcess.isAlive()) {
+                stop(projectDir);
+            }
+            if (success) {
+                // watch 构建不清空输出目录，删除本次构建开始前生成、已不再被引用的旧资源
+                int deleted = DistAssetCleaner.removeUnreferencedAssets(new File(projectDir, "dist").toPath(),
+                        watchProcess.getLastCompletedBuildStartTime());
+                if (deleted > 0) {
+                    log.info("清理构建旧资源 {} 个：{}", deleted, projectDir.getAbsolutePath());
+                }
+            }
+            return success;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 关闭项目的 watch 进程（如依赖或构建配置变化时）
+     *
+     * @param projectDir 项目根目录
+     */
+    public void stop(File projectDir) {
+        ViteWatchProcess watchProcess = processes.remove(projectDir.getAbsolutePath());
+        if (watchProcess != null) {
+            watchProcess.stop();
+        }
+    }
+
+    /**
+     * 关闭空闲的 watch 进程
+     */
+    @Scheduled(fixedRate = IDLE_CHECK_INTERVAL_MILLIS, initialDelay = IDLE_CHECK_INTERVAL_MILLIS)
+    public void stopIdleProcesses() {
+        long idleMillis = TimeUnit.MINUTES.toMillis(vueBuildConfig.getWatchIdleMinutes());
+        long now = System.currentTimeMillis();
+        processes.forEach((key, watchProcess) -> {
+            if (now - watchProcess.getLastUsedTime() > idleMillis && processes.remove(key, watchProcess)) {
+                log.info("关闭空闲的 vite watch 构建进程：{}", key);
+                watchProcess.stop();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        processes.values().forEach(ViteWatchProcess::stop);
+        processes.clear();
+    }
+
+    private synchronized void stopExcessProcesses() {
+        while (processes.size() > vueBuildConfig.getMaxWatchProcesses()) {
+            processes.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().getLastUsedTime()))
+                    .ifPresent(entry -> {
+                        log.info("watch 构建进程数超出上限，关闭：{}", entry.getKey());
+                        if (processes.remove(entry.getKey(), entry.getValue())) {
+                            entry.getValue().stop();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package top.deepdog.yiaicodemaster.core.builder;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * 常驻的 vite build --watch 进程
+ * 源文件变化后 vite 自动增量构建，通过解析输出判断构建开始、完成和失败
+ */
+@Slf4j
+class ViteWatchProcess {
+
+    /**
+     * 构建完成后再等待的时间，确认构建期间的变更没有触发下一次构建
+     */
+    private static final long SETTLE_MILLIS = 500;
+
+    private static final Pattern ANSI_ESCAPE_PATTERN = Pattern.compile("\u001B\\[[;\\d]*m");
+
+    /**
+     * vite watch 构建失败时输出的错误行：
+     * "error during build:"、插件错误 "[vite:vue] ..."（警告是 "[plugin xxx] ..."，不算失败）、
+     * 错误位置 "file: ..."，以及行首的 "SyntaxError: ..." 等异常
+     */
+    private static final Pattern ERROR_LINE_PATTERN = Pattern.compile(
+            "^(error during build|\\[(?!plugin )[\\w:@/.\\-]+]:? |file: |[A-Z]\\w*Error: )");
+
+    private final Process process;
+
+    @Getter
+    private volatile long lastUsedTime = System.currentTimeMillis();
+
+    private boolean alive = true;
+
+    private boolean building;
+
+    private boolean lastBuildFailed;
+
+    private long lastBuildStartTime;
+
+    private long lastCompletedBuildStartTime;
+
+    private ViteWatchProcess(Process process) {
+        this.process = process;
+    }
+
+    /**
+     * 启动 watch 进程，启动后立即执行一次完整构建
+     * 不清空输出目录，避免重新构建期间预览访问不到文件
+     *
+     * @param projectDir 项目根目录
+     * @param npmCommand npm 命令
+     */
+    static ViteWatchProcess start(File projectDir, String npmCommand) throws IOException {
+        Process process = new ProcessBuilder(npmCommand, "run", "build", "--", "--watch", "--emptyOutDir", "false")
+                .directory(projectDir)
+                .redirectErrorStream(true)
+                .start();
+        ViteWatchProcess watchProcess = new ViteWatchProcess(process);
+        Thread.ofVirtual().name("vite-watch-" + projectDir.getName()).start(watchProcess::readOutput);
+        log.info("启动 vite watch 构建进程：{}，pid：{}", projectDir.getAbsolutePath(), process.pid());
+        return watchProcess;
+    }
+
+    /**
+     * 等待包含指定时间之前所有变更的构建完成
+     *
+     * @param changeTime    最后一次变更的时间
+     * @param quietMillis   没有构建开始时最多等待的时间
+     * @param timeoutMillis 最长等待时间
+     * @return 构建是否成功，未触发构建、超时或进程退出时返回 false
+     */
+    synchronized boolean awaitBuild(long changeTime, long quietMillis, long timeoutMillis) throws InterruptedException {
+        lastUsedTime = System.currentTimeMillis();
+        long deadline = lastUsedTime + timeoutMillis;
+        long quietDeadline = lastUsedTime + quietMillis;
+        long settleDeadline = 0;
+        while (true) {
+            long now = System.currentTimeMillis();
+            if (!alive || now >= deadline) {
+                return false;
+            }
+            if (building) {
+                settleDeadline = 0;
+                wait(deadline - now);
+            } else if (lastCompletedBuildStartTime > changeTime) {
+                if (settleDeadline == 0) {
+                    settleDeadline = now + SETTLE_MILLIS;
+                }
+                if (now >= settleDeadline) {
+                    lastUsedTime = now;
+                    return !lastBuildFailed;
+                }
+                wait(settleDeadline - now);
+            } else if (now >= quietDeadline) {
+                // 变更的文件不在构建依赖图中，vite 没有触发构建
+                return false;
+            } else {
+                wait(Math.min(quietDeadline, deadline) - now);
+            }
+        }
+    }
+
+    synchronized boolean isAlive() {
+        return alive;
+    }
+
+    /**
+     * 最近一次完成的构建的开始时间
+     */
+    synchronized long getLastCompletedBuildStartTime() {
+        return lastCompletedBuildStartTime;
+    }
+
+    /**
+     * 结束进程（包括 npm 启动的子进程）
+     */
+    void stop() {
+        process.descendants().forEach(ProcessHandle::destroy);
+        process.destroy();
+    }
+
+    private void readOutput() {
+        try (BufferedReader reader = process.inputReader(StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                onOutput(line);
+            }
+        } catch (IOException e) {
+            log.debug("读取 vite watch 输出结束：{}", e.getMessage());
+        } finally {
+            synchronized (this) {
+                alive = false;
+                notifyAll();
+            }
+        }
+    }
+
+    private synchronized void onOutput(String output) {
+        String line = ANSI_ESCAPE_PATTERN.matcher(output).replaceAll("").strip();
+        if (line.startsWith("build started")) {
+            building = true;
+            lastBuildFailed = false;
+            lastBuildStartTime = System.currentTimeMillis();
+        } else if (building && line.startsWith("built in ")) {
+            building = false;
+            lastCompletedBuildStartTime = lastBuildStartTime;
+        } else if (building && isErrorLine(line)) {
+            // 构建失败时 vite 输出错误后继续监听，不会输出 built in
+            building = false;
+            lastBuildFailed = true;
+            lastCompletedBuildStartTime = lastBuildStartTime;
+        } else {
+            return;
+        }
+        notifyAll();
+    }
+
+    /**
+     * 是否为构建错误行（已去除颜色控制符）
+     */
+    static boolean isErrorLine(String line) {
+        return ERROR_LINE_PATTERN.matcher(line).find();
+    }
+}
@@ -0,0 +1,210 @@
+package top.deepdog.yiaicodemaster.core.builder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import top.deepdog.yiaicodemaster.config.VueBuildConfig;
+import top.deepdog.yiaicodemaster.exception.BusinessException;
+import top.deepdog.yiaicodemaster.exception.ErrorCode;
+import top.deepdog.yiaicodemaster.model.enums.VueBuildStatusEnum;
+import top.deepdog.yiaicodemaster.model.vo.VueBuildStatusVO;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Vue 项目构建队列
+ * 构建在固定数量的工作线程中异步执行，队列有上限：
+ * 1. 同一应用同时最多一个排队中的构建，新的构建请求直接合并到排队中的任务（构建时读取的总是最新代码）
+ * 2. 同一应用的构建串行执行，正在构建时的新请求等当前构建结束后再入队
+ */
+@Slf4j
+@Component
+public class VueBuildQueue {
+
+    /**
+     * 状态推送的轮询间隔
+     */
+    private static final Duration STATUS_POLL_INTERVAL = Duration.ofSeconds(1);
+
+    /**
+     * 状态推送的最长时间（覆盖排队和 npm install + npm run build 的超时）
+     */
+    private static final Duration STATUS_WATCH_TIMEOUT = Duration.ofMinutes(30);
+
+    /**
+     * 已结束的构建任务保留时间，供之后查询构建结果
+     */
+    private static final Duration FINISHED_TASK_TTL = Duration.ofHours(1);
+
+    @Resource
+    private VueProjectBuilder vueProjectBuilder;
+
+    @Resource
+    private VueBuildConfig vueBuildConfig;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 每个应用最近一次的构建任务，排队和构建中的任务不会过期，结束后保留 FINISHED_TASK_TTL
+     */
+    private final Cache<Long, VueBuildTask> latestTasks = Caffeine.newBuilder()
+            .expireAfter(Expiry.writing((Long appId, VueBuildTask task) ->
+                    task.getStatus().isFinished() ? FINISHED_TASK_TTL : Duration.ofNanos(Long.MAX_VALUE)))
+            .build();
+
+    /**
+     * 等待同一应用当前构建结束后再入队的任务
+     */
+    private final Map<Long, VueBuildTask> waitingTasks = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                vueBuildConfig.getWorkerCount(),
+                vueBuildConfig.getWorkerCount(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(vueBuildConfig.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "vue-builder-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        log.info("Vue 构建队列初始化完成，工作线程数：{}，队列容量：{}",
+                vueBuildConfig.getWorkerCount(), vueBuildConfig.getQueueCapacity());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交完整构建
+     *
+     * @param appId       应用 id
+     * @param projectPath 项目根目录路径
+     * @return 构建任务（可能是合并后的已有任务）
+     */
+    public VueBuildTask submit(Long appId, String projectPath) {
+        return submit(appId, projectPath, null);
+    }
+
+    /**
+     * 提交构建
+     *
+     * @param appId       应用 id
+     * @param projectPath 项目根目录路径
+     * @param changes     本次需要处理的文件变更，为 null 时完整构建
+     * @return 构建任务（可能是合并后的已有任务）
+     */
+    public synchronized VueBuildTask submit(Long appId, String projectPath, ProjectChanges changes) {
+        VueBuildTask latestTask = latestTasks.getIfPresent(appId);
+        if (latestTask != null && latestTask.getStatus() == VueBuildStatusEnum.QUEUED) {
+            log.info("应用 {} 已有排队中的构建，合并本次构建请求", appId);
+            latestTask.mergeChanges(changes);
+            return latestTask;
+        }
+        VueBuildTask task = new VueBuildTask(appId, projectPath, changes);
+        if (latestTask != null && latestTask.getStatus() == VueBuildStatusEnum.BUILDING) {
+            // 同一应用的构建不能并发执行，当前构建结束后再入队
+            latestTasks.put(appId, task);
+            waitingTasks.put(appId, task);
+            return task;
+        }
+        enqueue(task);
+        latestTasks.put(appId, task);
+        return task;
+    }
+
+    /**
+     * 获取应用最近一次的构建状态
+     *
+     * @param appId 应用 id
+     * @return 构建状态，从未构建时 status 为空
+     */
+    public synchronized VueBuildStatusVO getStatus(Long appId) {
+        VueBuildTask task = latestTasks.getIfPresent(appId);
+        if (task == null) {
+            VueBuildStatusVO statusVO = new VueBuildStatusVO();
+            statusVO.setAppId(appId);
+            return statusVO;
+        }
+        return task.toStatusVO();
+    }
+
+    /**
+     * 订阅构建状态变化，构建结束（或从未构建）后结束
+     *
+     * @param appId 应用 id
+     * @return 状态变化流
+     */
+    public Flux<VueBuildStatusVO> watchStatus(Long appId) {
+        return Flux.interval(Duration.ZERO, STATUS_POLL_INTERVAL)
+                .map(tick -> getStatus(appId))
+                .distinctUntilChanged(statusVO -> statusVO.getStatus() + "|" + statusVO.getMessage())
+                .takeUntil(statusVO -> {
+                    VueBuildStatusEnum statusEnum = VueBuildStatusEnum.getEnumByValue(statusVO.getStatus());
+                    return statusEnum == null || statusEnum.isFinished();
+                })
+                .take(STATUS_WATCH_TIMEOUT);
+    }
+
+    private void enqueue(VueBuildTask task) {
+        try {
+            executor.execute(() -> runTask(task));
+        } catch (RejectedExecutionException e) {
+            task.finish(false, "构建队列已满");
+            refreshExpiry(task);
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUEST, "构建队列已满，请稍后重试");
+        }
+    }
+
+    /**
+     * 任务结束后重新写入，按结束状态开始计算过期时间；已被更新的任务替换时不做处理
+     */
+    private void refreshExpiry(VueBuildTask task) {
+        latestTasks.asMap().replace(task.getAppId(), task, task);
+    }
+
+    private void runTask(VueBuildTask task) {
+        synchronized (this) {
+            // 与 submit 互斥，开始构建后的新请求不会再合并到本任务
+            task.start();
+        }
+        boolean success;
+        try {
+            success = vueProjectBuilder.buildProject(task.getProjectPath(), task.getChanges(), task::updateMessage);
+        } catch (Exception e) {
+            log.error("构建 Vue 项目时发生异常: {}", e.getMessage(), e);
+            success = false;
+        }
+        synchronized (this) {
+            task.finish(success, success ? "构建成功" : "构建失败，请检查代码和依赖");
+            refreshExpiry(task);
+            VueBuildTask waitingTask = waitingTasks.remove(task.getAppId());
+            if (waitingTask != null) {
+                try {
+                    enqueue(waitingTask);
+                } catch (BusinessException e) {
+                    log.error("应用 {} 的后续构建入队失败：{}", task.getAppId(), e.getMessage());
+                }
+            }
+        }
+        log.info("应用 {} 构建结束，结果：{}，耗时：{} 秒", task.getAppId(), success ? "成功" : "失败",
+                Duration.between(task.getStartTime(), task.getFinishTime()).toSeconds());
+    }
+}
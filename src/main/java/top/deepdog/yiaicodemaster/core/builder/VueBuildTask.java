@@ -0,0 +1,84 @@
+package top.deepdog.yiaicodemaster.core.builder;
+
+import lombok.Getter;
+import top.deepdog.yiaicodemaster.model.enums.VueBuildStatusEnum;
+import top.deepdog.yiaicodemaster.model.vo.VueBuildStatusVO;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Vue 项目构建任务
+ * 状态由构建队列更新，可在任意线程读取
+ */
+@Getter
+public class VueBuildTask {
+
+    private final Long appId;
+
+    private final String projectPath;
+
+    private final LocalDateTime queuedTime = LocalDateTime.now();
+
+    /**
+     * 构建结果（是否成功）
+     */
+    private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+    private volatile VueBuildStatusEnum status = VueBuildStatusEnum.QUEUED;
+
+    private volatile String message = "等待构建";
+
+    private volatile LocalDateTime startTime;
+
+    private volatile LocalDateTime finishTime;
+
+    /**
+     * 需要处理的文件变更，为 null 时完整构建
+     */
+    private volatile ProjectChanges changes;
+
+    VueBuildTask(Long appId, String projectPath, ProjectChanges changes) {
+        this.appId = appId;
+        this.projectPath = projectPath;
+        this.changes = changes;
+    }
+
+    /**
+     * 合并后续构建请求的文件变更
+     */
+    void mergeChanges(ProjectChanges changes) {
+        this.changes = ProjectChanges.merge(this.changes, changes);
+    }
+
+    void start() {
+        startTime = LocalDateTime.now();
+        message = "开始构建";
+        status = VueBuildStatusEnum.BUILDING;
+    }
+
+    void updateMessage(String message) {
+        this.message = message;
+    }
+
+    void finish(boolean success, String message) {
+        finishTime = LocalDateTime.now();
+        this.message = message;
+        status = success ? VueBuildStatusEnum.SUCCESS : VueBuildStatusEnum.FAILED;
+        result.complete(success);
+    }
+
+    /**
+     * 转换为状态视图
+     */
+    public VueBuildStatusVO toStatusVO() {
+        VueBuildStatusVO statusVO = new VueBuildStatusVO();
+        statusVO.setAppId(appId);
+        statusVO.setStatus(status.getValue());
+        statusVO.setMessage(message);
+        statusVO.setQueuedTime(queuedTime);
+        statusVO.setStartTime(startTime);
+        statusVO.setFinishTime(finishTime);
+        return statusVO;
+    }
+}
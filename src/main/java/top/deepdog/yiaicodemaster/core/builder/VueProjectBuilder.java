@@ -1,16 +1,41 @@
 package top.deepdog.yiaicodemaster.core.builder;
 
 import cn.hutool.core.util.RuntimeUtil;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import top.deepdog.yiaicodemaster.config.VueBuildConfig;
+import top.deepdog.yiaicodemaster.utils.PrecompressUtils;
 
 import java.io.File;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Component
 @Slf4j
 public class VueProjectBuilder {
 
+    /**
+     * 变更后需要重新安装依赖的文件
+     */
+    private static final Set<String> DEPENDENCY_FILES = Set.of("package.json", "package-lock.json");
+
+    /**
+     * 变更后需要重启 watch 构建进程的文件
+     */
+    private static final Set<String> BUILD_CONFIG_FILES = Set.of(
+            "package.json", "package-lock.json", "vite.config.js", "vite.config.ts",
+            "tsconfig.json", "tsconfig.app.json", "tsconfig.node.json");
+
+    @Resource
+    private NodeModulesCache nodeModulesCache;
+
+    @Resource
+    private ViteWatchBuilder viteWatchBuilder;
+
+    @Resource
+    private VueBuildConfig vueBuildConfig;
 
     /**
      * 异步构建项目（不阻塞主流程）
@@ -36,6 +61,32 @@ public class VueProjectBuilder {
      * @return 是否构建成功
      */
     public boolean buildProject(String projectPath) {
+        return buildProject(projectPath, progress -> {
+        });
+    }
+
+    /**
+     * 构建 Vue 项目，并回调当前构建进度
+     *
+     * @param projectPath      项目根目录路径
+     * @param progressListener 进度回调
+     * @return 是否构建成功
+     */
+    public boolean buildProject(String projectPath, Consumer<String> progressListener) {
+        return buildProject(projectPath, null, progressListener);
+    }
+
+    /**
+     * 根据文件变更构建 Vue 项目：
+     * 1. 依赖文件未变化且已安装依赖时跳过 npm install
+     * 2. 只有源文件变化时交给常驻的 vite watch 进程增量构建，失败时回退为完整构建
+     *
+     * @param projectPath      项目根目录路径
+     * @param changes          本次构建需要处理的文件变更，为 null 时完整构建
+     * @param progressListener 进度回调
+     * @return 是否构建成功
+     */
+    public boolean buildProject(String projectPath, ProjectChanges changes, Consumer<String> progressListener) {
         File projectDir = new File(projectPath);
         if (!projectDir.exists() || !projectDir.isDirectory()) {
             log.error("项目目录不存在: {}", projectPath);
@@ -47,27 +98,79 @@ public class VueProjectBuilder {
             log.error("package.json 文件不存在: {}", packageJson.getAbsolutePath());
             return false;
         }
+        File distDir = new File(projectDir, "dist");
+        if (canSkipBuild(projectDir, changes)) {
+            log.info("Vue 项目没有文件变更，跳过构建: {}", projectPath);
+            return true;
+        }
         log.info("开始构建 Vue 项目: {}", projectPath);
-        // 执行 npm install
-        if (!executeNpmInstall(projectDir)) {
-            log.error("npm install 执行失败");
+        boolean installRequired = isInstallRequired(projectDir, changes);
+        if (changes == null || changes.containsAny(BUILD_CONFIG_FILES)) {
+            viteWatchBuilder.stop(projectDir);
+        }
+        if (installRequired && !installDependencies(projectDir, progressListener)) {
             return false;
         }
+        if (changes != null && !installRequired && vueBuildConfig.isWatchBuildEnabled()) {
+            progressListener.accept("正在增量构建");
+            if (viteWatchBuilder.rebuild(projectDir, buildCommand("npm"), changes.getLastChangeTime())
+                    && distDir.isDirectory()) {
+                PrecompressUtils.precompressDirectory(distDir.toPath());
+                log.info("Vue 项目增量构建成功，dist 目录: {}", distDir.getAbsolutePath());
+                return true;
+            }
+            log.warn("Vue 项目增量构建失败，改为完整构建: {}", projectPath);
+        }
         // 执行 npm run build
+        progressListener.accept("正在打包（npm run build）");
         if (!executeNpmBuild(projectDir)) {
             log.error("npm run build 执行失败");
             return false;
         }
         // 验证 dist 目录是否生成
-        File distDir = new File(projectDir, "dist");
         if (!distDir.exists()) {
             log.error("构建完成但 dist 目录未生成: {}", distDir.getAbsolutePath());
             return false;
         }
+        // 生成预压缩文件，预览时静态服务直接返回
+        PrecompressUtils.precompressDirectory(distDir.toPath());
         log.info("Vue 项目构建成功，dist 目录: {}", distDir.getAbsolutePath());
         return true;
     }
 
+    /**
+     * 没有文件变更且已有构建产物时跳过构建
+     */
+    static boolean canSkipBuild(File projectDir, ProjectChanges changes) {
+        return changes != null && changes.isEmpty() && new File(projectDir, "dist").isDirectory();
+    }
+
+    /**
+     * 变更未知、依赖文件变化或尚未安装依赖时需要安装依赖
+     */
+    static boolean isInstallRequired(File projectDir, ProjectChanges changes) {
+        return changes == null || changes.containsAny(DEPENDENCY_FILES)
+                || !new File(projectDir, "node_modules").isDirectory();
+    }
+
+    /**
+     * 安装依赖：依赖未变化时直接复用缓存的 node_modules，否则执行 npm install 并写回缓存
+     */
+    private boolean installDependencies(File projectDir, Consumer<String> progressListener) {
+        String cacheKey = nodeModulesCache.getCacheKey(projectDir);
+        if (nodeModulesCache.restore(projectDir, cacheKey)) {
+            progressListener.accept("已复用缓存的依赖");
+            return true;
+        }
+        progressListener.accept("正在安装依赖（npm install）");
+        if (!executeNpmInstall(projectDir)) {
+            log.error("npm install 执行失败");
+            return false;
+        }
+        nodeModulesCache.store(projectDir, cacheKey);
+        return true;
+    }
+
 
     private String buildCommand(String baseCommand) {
         if (isWindows()) {
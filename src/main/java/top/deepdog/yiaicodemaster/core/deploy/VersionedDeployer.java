@@ -0,0 +1,254 @@
+package top.deepdog.yiaicodemaster.core.deploy;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.deepdog.yiaicodemaster.constant.AppConstant;
+import top.deepdog.yiaicodemaster.exception.BusinessException;
+import top.deepdog.yiaicodemaster.exception.ErrorCode;
+import top.deepdog.yiaicodemaster.utils.PrecompressUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 版本化部署
+ * 每次部署写入新的不可变版本目录 {deployKey}@{version}，内容未变化的文件从当前版本硬链接，
+ * 写完后把 {deployKey} 符号链接原子替换为新版本，访问者不会看到复制到一半的站点；
+ * 文本类文件同时生成 .gz 预压缩文件；旧版本定期清理
+ */
+@Slf4j
+@Component
+public class VersionedDeployer {
+
+    /**
+     * 版本目录名中部署标识与版本号的分隔符
+     */
+    private static final String VERSION_SEPARATOR = "@";
+
+    /**
+     * 每个部署保留的历史版本数（不含当前版本）
+     */
+    private static final int KEEP_OLD_VERSIONS = 2;
+
+    /**
+     * 旧版本至少保留的时间，避免删除仍在被读取的版本
+     */
+    private static final long MIN_VERSION_AGE_MILLIS = 10 * 60 * 1000;
+
+    private static final long GC_INTERVAL_MILLIS = 60 * 60 * 1000;
+
+    private final Path deployRoot;
+
+    public VersionedDeployer() {
+        this(Paths.get(AppConstant.CODE_DEPLOY_ROOT_DIR));
+    }
+
+    VersionedDeployer(Path deployRoot) {
+        this.deployRoot = deployRoot;
+    }
+
+    /**
+     * 部署目录
+     *
+     * @param deployKey 部署标识
+     * @param sourceDir 要部署的目录
+     * @return 新版本目录
+     */
+    public File deploy(String deployKey, File sourceDir) {
+        Path currentLink = deployRoot.resolve(deployKey);
+        try {
+            Files.createDirectories(deployRoot);
+            Path previousVersion = resolvePreviousVersion(deployKey, currentLink);
+            Path versionDir = deployRoot.resolve(deployKey + VERSION_SEPARATOR + System.currentTimeMillis());
+            long startTime = System.currentTimeMillis();
+            int[] stats = populateVersion(sourceDir.toPath(), versionDir, previousVersion);
+            publish(currentLink, versionDir);
+            log.info("部署 {} 完成：{}，复制 {} 个文件，硬链接 {} 个未变化文件，耗时 {} ms", deployKey,
+                    versionDir.getFileName(), stats[0], stats[1], System.currentTimeMillis() - startTime);
+            return versionDir.toFile();
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "代码部署失败" + e.getMessage());
+        }
+    }
+
+    /**
+     * 定期清理旧版本：保留当前版本和最近的若干个版本
+     */
+    @Scheduled(fixedRate = GC_INTERVAL_MILLIS, initialDelay = GC_INTERVAL_MILLIS)
+    public void collectGarbage() {
+        if (!Files.isDirectory(deployRoot)) {
+            return;
+        }
+        Map<String, List<Path>> versionsByKey = new HashMap<>();
+        try (Stream<Path> stream = Files.list(deployRoot)) {
+            stream.filter(path -> path.getFileName().toString().contains(VERSION_SEPARATOR))
+                    .forEach(path -> {
+                        String name = path.getFileName().toString();
+                        String deployKey = name.substring(0, name.lastIndexOf(VERSION_SEPARATOR));
+                        versionsByKey.computeIfAbsent(deployKey, key -> new ArrayList<>()).add(path);
+                    });
+        } catch (IOException e) {
+            log.warn("清理部署旧版本失败：{}", e.getMessage());
+            return;
+        }
+        long now = System.currentTimeMillis();
+        versionsByKey.forEach((deployKey, versions) -> {
+            Path currentLink = deployRoot.resolve(deployKey);
+            if (!Files.isSymbolicLink(currentLink)) {
+                return;
+            }
+            Path currentVersion;
+            try {
+                currentVersion = currentLink.resolveSibling(Files.readSymbolicLink(currentLink)).normalize();
+            } catch (IOException e) {
+                return;
+            }
+            versions.sort(Comparator.comparingLong(VersionedDeployer::parseVersion).reversed());
+            int kept = 0;
+            for (Path version : versions) {
+                if (version.normalize().equals(currentVersion)) {
+                    continue;
+                }
+                if (kept < KEEP_OLD_VERSIONS || now - parseVersion(version) < MIN_VERSION_AGE_MILLIS) {
+                    kept++;
+                    continue;
+                }
+                FileUtil.del(version.toFile());
+                log.info("清理部署旧版本：{}", version.getFileName());
+            }
+        });
+    }
+
+    /**
+     * 获取当前版本目录；早期部署的 {deployKey} 是普通目录，先重命名为版本目录
+     */
+    private Path resolvePreviousVersion(String deployKey, Path currentLink) throws IOException {
+        if (Files.isSymbolicLink(currentLink)) {
+            Path target = currentLink.resolveSibling(Files.readSymbolicLink(currentLink));
+            return Files.isDirectory(target) ? target : null;
+        }
+        if (Files.isDirectory(currentLink, LinkOption.NOFOLLOW_LINKS)) {
+            Path legacyVersion = deployRoot.resolve(deployKey + VERSION_SEPARATOR + "0");
+            Files.move(currentLink, legacyVersion, StandardCopyOption.ATOMIC_MOVE);
+            // 只在首次迁移时有极短的不可访问窗口
+            publish(currentLink, legacyVersion);
+            return legacyVersion;
+        }
+        return null;
+    }
+
+    /**
+     * 写入新版本目录，与上一版本内容相同的文件使用硬链接
+     *
+     * @return [复制的文件数, 硬链接的文件数]
+     */
+    private static int[] populateVersion(Path sourceDir, Path versionDir, Path previousVersion) throws IOException {
+        int[] stats = new int[2];
+        Files.walkFileTree(sourceDir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(versionDir.resolve(sourceDir.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String relativePath = sourceDir.relativize(file).toString();
+                Path target = versionDir.resolve(relativePath);
+                Path previousFile = previousVersion == null ? null : previousVersion.resolve(relativePath);
+                // 源目录自带压缩文件时不再生成
+                boolean precompressed = Files.exists(file.resolveSibling(file.getFileName() + PrecompressUtils.GZIP_SUFFIX));
+                if (previousFile != null && isSameContent(file, attrs, previousFile)) {
+                    try {
+                        Files.createLink(target, previousFile);
+                        stats[1]++;
+                        if (!precompressed) {
+                            linkOrCreateGzip(target, previousFile);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    } catch (IOException | UnsupportedOperationException e) {
+                        // 不支持硬链接时退化为复制
+                    }
+                }
+                Files.copy(file, target, StandardCopyOption.COPY_ATTRIBUTES, StandardCopyOption.REPLACE_EXISTING);
+                stats[0]++;
+                if (!precompressed) {
+                    PrecompressUtils.precompress(target);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return stats;
+    }
+
+    /**
+     * 未变化文件的 .gz 同样从上一版本硬链接，上一版本没有时重新生成
+     */
+    private static void linkOrCreateGzip(Path target, Path previousFile) {
+        Path previousGzip = previousFile.resolveSibling(previousFile.getFileName() + PrecompressUtils.GZIP_SUFFIX);
+        if (Files.isRegularFile(previousGzip)) {
+            try {
+                Files.createLink(target.resolveSibling(target.getFileName() + PrecompressUtils.GZIP_SUFFIX), previousGzip);
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                // 退化为重新压缩
+            }
+        }
+        PrecompressUtils.precompress(target);
+    }
+
+    /**
+     * 大小相同，且修改时间相同（复制时保留了修改时间）或内容逐字节相同
+     */
+    private static boolean isSameContent(Path file, BasicFileAttributes attrs, Path previousFile) throws IOException {
+        if (!Files.isRegularFile(previousFile)) {
+            return false;
+        }
+        BasicFileAttributes previousAttrs = Files.readAttributes(previousFile, BasicFileAttributes.class);
+        if (previousAttrs.size() != attrs.size()) {
+            return false;
+        }
+        return previousAttrs.lastModifiedTime().equals(attrs.lastModifiedTime())
+                || Files.mismatch(file, previousFile) == -1;
+    }
+
+    /**
+     * 原子发布：先创建指向新版本的临时符号链接，再重命名覆盖 {deployKey}
+     */
+    private void publish(Path currentLink, Path versionDir) throws IOException {
+        Path tempLink = deployRoot.resolve(currentLink.getFileName() + ".link-" + IdUtil.fastSimpleUUID());
+        Files.createSymbolicLink(tempLink, versionDir.getFileName());
+        try {
+            Files.move(tempLink, currentLink, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempLink);
+            throw e;
+        }
+    }
+
+    private static long parseVersion(Path versionDir) {
+        String name = versionDir.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(name.lastIndexOf(VERSION_SEPARATOR) + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package top.deepdog.yiaicodemaster.core.handler;
 
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
+import top.deepdog.yiaicodemaster.ai.model.message.AiResponseMessage;
+import top.deepdog.yiaicodemaster.ai.model.message.StreamMessage;
 import top.deepdog.yiaicodemaster.model.entity.User;
 import top.deepdog.yiaicodemaster.model.enums.ChatHistoryMessageTypeEnum;
 import top.deepdog.yiaicodemaster.service.ChatHistoryService;
@@ -23,12 +25,14 @@ public class SimpleTextStreamHandler {
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux,
+    public Flux<String> handle(Flux<StreamMessage> originFlux,
                                ChatHistoryService chatHistoryService,
                                long appId, User loginUser) {
         StringBuilder aiResponseBuilder = new StringBuilder();
         return originFlux
-                .map(chunk -> {
+                .map(message -> {
+                    // 简单流中只有 AI 响应消息
+                    String chunk = ((AiResponseMessage) message).getData();
                     // 收集AI响应内容
                     aiResponseBuilder.append(chunk);
                     return chunk;
@@ -36,7 +40,7 @@ public class SimpleTextStreamHandler {
                 .doOnComplete(() -> {
                     // 流式响应完成后，添加AI消息到对话历史
                     String aiResponse = aiResponseBuilder.toString();
-                    chatHistoryService.addChatMessage(appId, aiResponse, ChatHistoryMessageTypeEnum.AI.getValue(), loginUser.getId());
+                    chatHistoryService.addAiResponse(appId, aiResponse, loginUser.getId());
                 })
                 .doOnError(error -> {
                     // 如果AI回复失败，也要记录错误消息
@@ -0,0 +1,252 @@
+package top.deepdog.yiaicodemaster.core.history;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import lombok.extern.slf4j.Slf4j;
+import top.deepdog.yiaicodemaster.model.entity.ChatHistory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 对话历史待写入日志（追加写）
+ * 入队前先追加到日志，写入数据库后删除对应的日志文件；进程异常退出后，启动时重放未删除的日志。
+ * 每行一条 JSON 消息，按序号递增；非线程安全，由调用方加锁
+ */
+@Slf4j
+class ChatHistoryJournal {
+
+    private static final String SEGMENT_PREFIX = "chat-history-";
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    /**
+     * 无法写入数据库的消息，不参与重放
+     */
+    private static final String DEAD_LETTER_FILE_NAME = "dead-letter.jsonl";
+
+    private static final ZoneId ZONE_ID = ZoneId.systemDefault();
+
+    private final Path journalDir;
+
+    private final long segmentBytes;
+
+    /**
+     * 已写满的日志文件，按写入顺序
+     */
+    private final Deque<Segment> sealedSegments = new ArrayDeque<>();
+
+    private Segment currentSegment;
+
+    ChatHistoryJournal(Path journalDir, long segmentBytes) {
+        this.journalDir = journalDir;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * 读取上次运行遗留的日志
+     *
+     * @return 日志文件和其中的消息
+     */
+    List<RecoveredSegment> recover() throws IOException {
+        List<RecoveredSegment> recovered = new ArrayList<>();
+        if (!Files.isDirectory(journalDir)) {
+            return recovered;
+        }
+        List<Path> paths;
+        try (Stream<Path> stream = Files.list(journalDir)) {
+            paths = stream.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (Path path : paths) {
+            List<ChatHistory> messages = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    ChatHistory chatHistory = decode(line);
+                    if (chatHistory != null) {
+                        messages.add(chatHistory);
+                    }
+                }
+            }
+            recovered.add(new RecoveredSegment(path, messages));
+        }
+        return recovered;
+    }
+
+    /**
+     * 追加一条消息（不强制刷盘）
+     *
+     * @param seq         序号
+     * @param chatHistory 消息
+     */
+    void append(long seq, ChatHistory chatHistory) throws IOException {
+        if (currentSegment == null || currentSegment.channel.size() >= segmentBytes) {
+            roll(seq);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap((encode(chatHistory) + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            currentSegment.channel.write(buffer);
+        }
+        currentSegment.lastSeq = seq;
+    }
+
+    /**
+     * 将已追加的内容刷到磁盘
+     */
+    void force() throws IOException {
+        if (currentSegment != null) {
+            currentSegment.channel.force(false);
+        }
+    }
+
+    /**
+     * 序号不大于 committedSeq 的消息已写入数据库，删除不再需要的日志
+     *
+     * @param committedSeq 已写入数据库的最大序号
+     */
+    void markCommitted(long committedSeq) throws IOException {
+        while (!sealedSegments.isEmpty() && sealedSegments.peekFirst().lastSeq <= committedSeq) {
+            Segment segment = sealedSegments.pollFirst();
+            Files.deleteIfExists(segment.path);
+        }
+        // 当前文件的消息已全部写入时清空，空闲时日志不会增长
+        if (currentSegment != null && currentSegment.lastSeq <= committedSeq && currentSegment.channel.size() > 0) {
+            currentSegment.channel.truncate(0);
+        }
+    }
+
+    /**
+     * 记录无法写入数据库的消息（如数据不合法），单独保存供人工处理，避免阻塞后续消息
+     *
+     * @param chatHistory 消息
+     * @param reason      失败原因
+     */
+    void deadLetter(ChatHistory chatHistory, String reason) throws IOException {
+        Files.createDirectories(journalDir);
+        JSONObject json = toJson(chatHistory);
+        json.set("error", reason);
+        Files.writeString(deadLetterPath(), json + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    Path deadLetterPath() {
+        return journalDir.resolve(DEAD_LETTER_FILE_NAME);
+    }
+
+    void close() {
+        if (currentSegment != null) {
+            closeQuietly(currentSegment);
+        }
+        sealedSegments.forEach(ChatHistoryJournal::closeQuietly);
+    }
+
+    private void roll(long firstSeq) throws IOException {
+        Files.createDirectories(journalDir);
+        if (currentSegment != null) {
+            currentSegment.channel.close();
+            sealedSegments.addLast(currentSegment);
+        }
+        // 文件名包含启动时间，与上次运行遗留的日志区分
+        Path path = journalDir.resolve(String.format("%s%d-%019d%s", SEGMENT_PREFIX,
+                System.currentTimeMillis(), firstSeq, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        currentSegment = new Segment(path, channel);
+    }
+
+    private static String encode(ChatHistory chatHistory) {
+        return toJson(chatHistory).toString();
+    }
+
+    private static JSONObject toJson(ChatHistory chatHistory) {
+        JSONObject json = new JSONObject();
+        json.set("id", chatHistory.getId());
+        json.set("appId", chatHistory.getAppId());
+        json.set("userId", chatHistory.getUserId());
+        json.set("messageType", chatHistory.getMessageType());
+        json.set("message", chatHistory.getMessage());
+        json.set("messageFormat", chatHistory.getMessageFormat());
+        json.set("messagePreview", chatHistory.getMessagePreview());
+        if (chatHistory.getMessageData() != null) {
+            json.set("messageData", Base64.getEncoder().encodeToString(chatHistory.getMessageData()));
+        }
+        json.set("createTime", chatHistory.getCreateTime().atZone(ZONE_ID).toInstant().toEpochMilli());
+        return json;
+    }
+
+    /**
+     * 解析一行日志，写入中断的不完整行返回 null
+     */
+    private static ChatHistory decode(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            JSONObject json = JSONUtil.parseObj(line);
+            LocalDateTime createTime = LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(json.getLong("createTime")), ZONE_ID);
+            String messageData = json.getStr("messageData");
+            return ChatHistory.builder()
+                    .id(json.getLong("id"))
+                    .appId(json.getLong("appId"))
+                    .userId(json.getLong("userId"))
+                    .messageType(json.getStr("messageType"))
+                    .message(json.getStr("message"))
+                    .messageFormat(json.getStr("messageFormat"))
+                    .messagePreview(json.getStr("messagePreview"))
+                    .messageData(messageData == null ? null : Base64.getDecoder().decode(messageData))
+                    .createTime(createTime)
+                    .updateTime(createTime)
+                    .isDelete(0)
+                    .build();
+        } catch (Exception e) {
+            log.warn("跳过无法解析的对话历史日志：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void closeQuietly(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            log.warn("关闭对话历史日志失败：{}", e.getMessage());
+        }
+    }
+
+    private static class Segment {
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private long lastSeq = -1;
+
+        Segment(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * 上次运行遗留的日志文件
+     */
+    record RecoveredSegment(Path path, List<ChatHistory> messages) {
+    }
+}
@@ -0,0 +1,347 @@
+package top.deepdog.yiaicodemaster.core.history;
+
+import com.mybatisflex.core.logicdelete.LogicDeleteManager;
+import com.mybatisflex.core.query.QueryWrapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import top.deepdog.yiaicodemaster.config.ChatHistoryWriteConfig;
+import top.deepdog.yiaicodemaster.constant.AppConstant;
+import top.deepdog.yiaicodemaster.mapper.ChatHistoryMapper;
+import top.deepdog.yiaicodemaster.model.entity.ChatHistory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对话历史异步批量写入（write-behind）
+ * 1. 消息先追加到本地日志再入队，由单个写入线程合并为多行 INSERT，每 flushIntervalMillis 毫秒或累计 batchSize 条写入一次
+ * 2. 数据库变慢时队列积压，队列满后新消息退化为同步插入，调用方随数据库一起变慢（背压）
+ * 3. 连接失败、超时等临时错误按退避重试同一批消息，不会丢失也不会乱序；进程退出时未写入的消息留在日志中，下次启动时重放
+ * 4. 数据不合法等重试也不会成功的错误，拆分批次找出出错的消息写入死信文件，其余消息照常写入
+ */
+@Slf4j
+@Component
+public class ChatHistoryWriter {
+
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 100;
+
+    private static final long MAX_RETRY_DELAY_MILLIS = 5000;
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+
+    @Resource
+    private ChatHistoryMapper chatHistoryMapper;
+
+    @Resource
+    private ChatHistoryWriteConfig chatHistoryWriteConfig;
+
+    private BlockingQueue<PendingMessage> queue;
+
+    private ChatHistoryJournal journal;
+
+    /**
+     * 日志和入队的锁，保证队列顺序与日志序号一致
+     */
+    private final Object appendLock = new Object();
+
+    private long appendedSeq;
+
+    private volatile long committedSeq;
+
+    /**
+     * 每个应用最后一条待写入消息的序号
+     */
+    private final Map<Long, Long> pendingSeqByApp = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+
+    private Thread writerThread;
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(chatHistoryWriteConfig.getQueueCapacity());
+        journal = new ChatHistoryJournal(Paths.get(AppConstant.CHAT_HISTORY_JOURNAL_DIR),
+                chatHistoryWriteConfig.getJournalSegmentBytes());
+        replayJournal();
+        running = true;
+        writerThread = new Thread(this::runWriter, "chat-history-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        running = false;
+        writerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        synchronized (appendLock) {
+            if (!queue.isEmpty()) {
+                log.warn("还有 {} 条对话历史未写入，将在下次启动时从日志重放", queue.size());
+            }
+            journal.close();
+        }
+    }
+
+    /**
+     * 提交消息等待异步写入
+     *
+     * @param chatHistory 消息（需已设置 id 和创建时间）
+     * @return 是否已入队，未启用、队列已满或日志写入失败时返回 false，由调用方同步插入
+     */
+    public boolean submit(ChatHistory chatHistory) {
+        if (!chatHistoryWriteConfig.isEnabled() || !running) {
+            return false;
+        }
+        synchronized (appendLock) {
+            if (queue.remainingCapacity() == 0) {
+                log.warn("对话历史写入队列已满，改为同步写入");
+                return false;
+            }
+            long seq = appendedSeq + 1;
+            try {
+                journal.append(seq, chatHistory);
+            } catch (IOException e) {
+                log.error("写入对话历史日志失败，改为同步写入：{}", e.getMessage());
+                return false;
+            }
+            appendedSeq = seq;
+            // 只有持有锁的提交方会入队，容量已检查，不会失败
+            queue.add(new PendingMessage(seq, chatHistory));
+            pendingSeqByApp.put(chatHistory.getAppId(), seq);
+        }
+        return true;
+    }
+
+    /**
+     * 等待应用已提交的消息全部写入数据库，保证随后的查询能读到
+     *
+     * @param appId 应用 id
+     */
+    public void awaitWritten(Long appId) {
+        Long seq = pendingSeqByApp.get(appId);
+        if (seq == null) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + chatHistoryWriteConfig.getFlushIntervalMillis() + MAX_RETRY_DELAY_MILLIS;
+        synchronized (this) {
+            while (committedSeq < seq) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    log.warn("等待应用 {} 的对话历史写入超时", appId);
+                    return;
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void runWriter() {
+        int batchSize = chatHistoryWriteConfig.getBatchSize();
+        long flushIntervalMillis = chatHistoryWriteConfig.getFlushIntervalMillis();
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 从第一条消息起最多等待 flushIntervalMillis，凑满一批提前写入
+                long deadline = System.currentTimeMillis() + flushIntervalMillis;
+                while (batch.size() < batchSize && running) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PendingMessage next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                forceJournal();
+                write(batch.stream().map(PendingMessage::chatHistory).toList());
+                onCommitted(batch.getLast().seq());
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 日志按批刷盘，断电时最多丢失一个合并周期内的消息
+     */
+    private void forceJournal() {
+        synchronized (appendLock) {
+            try {
+                journal.force();
+            } catch (IOException e) {
+                log.error("对话历史日志刷盘失败：{}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 写入一批消息
+     * 临时错误退避重试直到成功或服务关闭；其他错误对半拆分批次重新写入，最终定位到的出错消息写入死信文件后跳过
+     */
+    private void write(List<ChatHistory> chatHistories) throws InterruptedException {
+        long delay = INITIAL_RETRY_DELAY_MILLIS;
+        while (true) {
+            try {
+                insertBatch(chatHistories);
+                return;
+            } catch (Exception e) {
+                if (!isTransient(e)) {
+                    isolate(chatHistories, e);
+                    return;
+                }
+                if (!running) {
+                    // 未运行（关闭中或启动重放时）不再重试，消息仍在日志中
+                    throw new InterruptedException("服务未运行，" + chatHistories.size() + " 条对话历史留待重放");
+                }
+                log.error("批量写入 {} 条对话历史失败，{} ms 后重试：{}", chatHistories.size(), delay, e.getMessage());
+                Thread.sleep(delay);
+                delay = Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private void isolate(List<ChatHistory> chatHistories, Exception e) throws InterruptedException {
+        if (chatHistories.size() == 1) {
+            deadLetter(chatHistories.getFirst(), e);
+            return;
+        }
+        log.warn("批量写入 {} 条对话历史失败，拆分后重新写入：{}", chatHistories.size(), e.getMessage());
+        int middle = chatHistories.size() / 2;
+        write(chatHistories.subList(0, middle));
+        write(chatHistories.subList(middle, chatHistories.size()));
+    }
+
+    private void deadLetter(ChatHistory chatHistory, Exception e) {
+        log.error("对话历史 {} 无法写入数据库，已转入死信文件：{}", chatHistory.getId(), e.getMessage());
+        synchronized (appendLock) {
+            try {
+                journal.deadLetter(chatHistory, String.valueOf(e.getMessage()));
+            } catch (IOException ioException) {
+                log.error("写入对话历史死信文件失败，消息 {} 丢弃：{}", chatHistory.getId(), ioException.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 是否为重试可能成功的临时错误（连接失败、超时、锁冲突等）
+     */
+    static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 多行 INSERT 写入；上次写入已成功但未收到响应时会主键冲突，跳过已存在的消息后重新写入
+     */
+    private void insertBatch(List<ChatHistory> chatHistories) {
+        try {
+            chatHistoryMapper.insertBatch(chatHistories);
+        } catch (DuplicateKeyException e) {
+            List<ChatHistory> missing = filterMissing(chatHistories);
+            if (!missing.isEmpty()) {
+                chatHistoryMapper.insertBatch(missing);
+            }
+        }
+    }
+
+    private List<ChatHistory> filterMissing(List<ChatHistory> chatHistories) {
+        List<Long> ids = chatHistories.stream().map(ChatHistory::getId).toList();
+        // 已逻辑删除的消息同样算已写入
+        List<ChatHistory> existing = LogicDeleteManager.execWithoutLogicDelete(() -> chatHistoryMapper
+                .selectListByQuery(QueryWrapper.create().select("id").in("id", ids)));
+        Set<Long> existingIds = new HashSet<>();
+        existing.forEach(chatHistory -> existingIds.add(chatHistory.getId()));
+        return chatHistories.stream().filter(chatHistory -> !existingIds.contains(chatHistory.getId())).toList();
+    }
+
+    private void onCommitted(long seq) {
+        synchronized (this) {
+            committedSeq = seq;
+            notifyAll();
+        }
+        pendingSeqByApp.values().removeIf(pendingSeq -> pendingSeq <= seq);
+        synchronized (appendLock) {
+            try {
+                journal.markCommitted(seq);
+            } catch (IOException e) {
+                log.warn("清理对话历史日志失败：{}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 重放上次运行未写入数据库的消息
+     */
+    private void replayJournal() {
+        List<ChatHistoryJournal.RecoveredSegment> segments;
+        try {
+            segments = journal.recover();
+        } catch (IOException e) {
+            log.error("读取对话历史日志失败：{}", e.getMessage());
+            return;
+        }
+        for (ChatHistoryJournal.RecoveredSegment segment : segments) {
+            try {
+                List<ChatHistory> messages = segment.messages();
+                int batchSize = chatHistoryWriteConfig.getBatchSize();
+                int restored = 0;
+                for (int from = 0; from < messages.size(); from += batchSize) {
+                    List<ChatHistory> missing = filterMissing(messages.subList(from, Math.min(from + batchSize, messages.size())));
+                    if (!missing.isEmpty()) {
+                        write(missing);
+                        restored += missing.size();
+                    }
+                }
+                Files.deleteIfExists(segment.path());
+                log.info("重放对话历史日志 {}：共 {} 条，补写 {} 条", segment.path().getFileName(), messages.size(), restored);
+            } catch (Exception e) {
+                // 保留日志文件，下次启动时再重放
+                log.error("重放对话历史日志 {} 失败：{}", segment.path().getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    private record PendingMessage(long seq, ChatHistory chatHistory) {
+    }
+}
@@ -0,0 +1,94 @@
+package top.deepdog.yiaicodemaster.core.history;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+import top.deepdog.yiaicodemaster.config.RedisChatMemoryStoreConfig;
+
+import java.time.Duration;
+
+/**
+ * 会话记忆水位线
+ * 记录 Redis 中的会话记忆已经包含到哪一条对话历史（id），与记忆使用相同的过期时间。
+ * 水位线带快照版本号，记忆的组织方式变化时递增版本，旧记忆全部从数据库重新加载
+ */
+@Slf4j
+@Component
+public class ChatMemoryWatermark {
+
+    private static final String KEY_PREFIX = "chat:memory:watermark:";
+
+    private static final String SNAPSHOT_VERSION = "v2";
+
+    private static final String SEPARATOR = ":";
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private RedisChatMemoryStoreConfig redisChatMemoryStoreConfig;
+
+    /**
+     * 获取水位线
+     *
+     * @param appId 应用 id
+     * @return 记忆已包含的最新对话历史 id，不存在、版本不符或 Redis 不可用时返回 null
+     */
+    public Long get(long appId) {
+        String value;
+        try {
+            value = getBucket(appId).get();
+        } catch (Exception e) {
+            log.warn("读取会话记忆水位线失败，appId: {}, {}", appId, e.getMessage());
+            return null;
+        }
+        if (value == null || !value.startsWith(SNAPSHOT_VERSION + SEPARATOR)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.substring(SNAPSHOT_VERSION.length() + SEPARATOR.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 更新水位线
+     *
+     * @param appId         应用 id
+     * @param lastHistoryId 记忆已包含的最新对话历史 id
+     */
+    public void set(long appId, long lastHistoryId) {
+        String value = SNAPSHOT_VERSION + SEPARATOR + lastHistoryId;
+        try {
+            long ttl = redisChatMemoryStoreConfig.getTtl();
+            if (ttl > 0) {
+                getBucket(appId).set(value, Duration.ofSeconds(ttl));
+            } else {
+                getBucket(appId).set(value);
+            }
+        } catch (Exception e) {
+            log.warn("更新会话记忆水位线失败，appId: {}, {}", appId, e.getMessage());
+        }
+    }
+
+    /**
+     * 删除水位线，下次使用时从数据库重新加载记忆
+     *
+     * @param appId 应用 id
+     */
+    public void clear(long appId) {
+        try {
+            getBucket(appId).delete();
+        } catch (Exception e) {
+            log.warn("删除会话记忆水位线失败，appId: {}, {}", appId, e.getMessage());
+        }
+    }
+
+    private RBucket<String> getBucket(long appId) {
+        return redissonClient.getBucket(KEY_PREFIX + appId, StringCodec.INSTANCE);
+    }
+}
@@ -0,0 +1,79 @@
+package top.deepdog.yiaicodemaster.core.history;
+
+import com.mybatisflex.core.query.QueryMethods;
+import com.mybatisflex.core.query.QueryWrapper;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.deepdog.yiaicodemaster.mapper.ChatHistoryMapper;
+import top.deepdog.yiaicodemaster.model.entity.ChatHistory;
+import top.deepdog.yiaicodemaster.model.enums.ChatMessageFormatEnum;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 对话消息外部存储清理
+ * 定期查出未删除的对话历史引用的全部键，删除其余的文件（应用删除或对话历史逻辑删除后留下的文件）
+ */
+@Slf4j
+@Component
+public class ChatMessageBlobCollector {
+
+    private static final long GC_INTERVAL_MILLIS = 6 * 60 * 60 * 1000;
+
+    private static final long GC_INITIAL_DELAY_MILLIS = 10 * 60 * 1000;
+
+    /**
+     * 文件至少保留的时间，覆盖写入队列和日志回放中尚未落库的消息
+     */
+    private static final Duration MIN_BLOB_AGE = Duration.ofDays(1);
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Resource
+    private ChatHistoryMapper chatHistoryMapper;
+
+    @Resource
+    private ChatMessageBlobStore chatMessageBlobStore;
+
+    @Scheduled(fixedRate = GC_INTERVAL_MILLIS, initialDelay = GC_INITIAL_DELAY_MILLIS)
+    public void collectGarbage() {
+        long startTime = System.currentTimeMillis();
+        Set<String> referencedKeys;
+        try {
+            referencedKeys = listReferencedKeys();
+        } catch (Exception e) {
+            // 查不到引用时不能删除任何文件
+            log.warn("查询消息外部存储引用失败，跳过清理：{}", e.getMessage());
+            return;
+        }
+        int deleted = chatMessageBlobStore.deleteUnreferenced(referencedKeys, MIN_BLOB_AGE);
+        log.info("清理消息外部存储完成，引用 {} 个，删除 {} 个，耗时 {} ms", referencedKeys.size(), deleted,
+                System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 按 id 分批查询外部存储格式的消息的键（逻辑删除的对话历史不算引用）
+     */
+    private Set<String> listReferencedKeys() {
+        Set<String> referencedKeys = new HashSet<>();
+        long lastId = 0;
+        while (true) {
+            List<ChatHistory> chatHistories = chatHistoryMapper.selectListByQuery(QueryWrapper.create()
+                    .select(QueryMethods.column("id"), QueryMethods.column("message"))
+                    .eq(ChatHistory::getMessageFormat, ChatMessageFormatEnum.BLOB.getValue())
+                    .gt(ChatHistory::getId, lastId)
+                    .orderBy(ChatHistory::getId, true)
+                    .limit(BATCH_SIZE));
+            chatHistories.forEach(chatHistory -> referencedKeys.add(chatHistory.getMessage()));
+            if (chatHistories.size() < BATCH_SIZE) {
+                return referencedKeys;
+            }
+            lastId = chatHistories.getLast().getId();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package top.deepdog.yiaicodemaster.core.history;
+
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.IdUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import top.deepdog.yiaicodemaster.constant.AppConstant;
+import top.deepdog.yiaicodemaster.exception.BusinessException;
+import top.deepdog.yiaicodemaster.exception.ErrorCode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 对话消息外部存储（本地文件，按内容寻址）
+ * 键为内容的 SHA-256，相同内容只存一份；文件写入后不再修改，不再被引用的文件由 {@link ChatMessageBlobCollector} 定期清理。
+ * 文件保存在本机，只适用于单实例部署，多实例部署时需要换成共享存储
+ */
+@Slf4j
+@Component
+public class ChatMessageBlobStore {
+
+    private final Path rootDir;
+
+    public ChatMessageBlobStore() {
+        this(Paths.get(AppConstant.CHAT_MESSAGE_BLOB_DIR));
+    }
+
+    ChatMessageBlobStore(Path rootDir) {
+        this.rootDir = rootDir;
+    }
+
+    /**
+     * 保存内容
+     *
+     * @param data 内容
+     * @return 键
+     */
+    public String put(byte[] data) {
+        String key = sha256(data);
+        Path path = resolve(key);
+        if (Files.exists(path)) {
+            // 刷新修改时间，清理时按修改时间保护新引用的文件
+            try {
+                Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+                return key;
+            } catch (IOException e) {
+                // 文件可能刚被清理，重新写入
+            }
+        }
+        try {
+            Files.createDirectories(path.getParent());
+            Path tempPath = path.resolveSibling(key + "." + IdUtil.fastSimpleUUID() + ".tmp");
+            Files.write(tempPath, data);
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存消息失败：" + e.getMessage());
+        }
+        return key;
+    }
+
+    /**
+     * 读取内容
+     *
+     * @param key 键
+     * @return 内容
+     */
+    public byte[] get(String key) {
+        if (key == null || !key.matches("[0-9a-f]{64}")) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "消息存储键无效");
+        }
+        try {
+            return Files.readAllBytes(resolve(key));
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "读取消息失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 删除不再被引用的内容
+     *
+     * @param referencedKeys 仍被引用的键
+     * @param minAge         只删除修改时间早于该时长的文件，避免删除刚写入、还未落库的内容
+     * @return 删除的文件数
+     */
+    public int deleteUnreferenced(Set<String> referencedKeys, Duration minAge) {
+        if (!Files.isDirectory(rootDir)) {
+            return 0;
+        }
+        long deadline = System.currentTimeMillis() - minAge.toMillis();
+        int deleted = 0;
+        try (Stream<Path> stream = Files.walk(rootDir, 2)) {
+            List<Path> files = stream.filter(Files::isRegularFile).toList();
+            for (Path file : files) {
+                // 未完成的临时文件同样按修改时间清理
+                String name = file.getFileName().toString();
+                if (referencedKeys.contains(name)) {
+                    continue;
+                }
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() < deadline && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("删除消息外部存储文件失败：{}，{}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("清理消息外部存储失败：{}", e.getMessage());
+        }
+        return deleted;
+    }
+
+    /**
+     * 按键的前两位分目录，避免单个目录文件过多
+     */
+    private Path resolve(String key) {
+        return rootDir.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexUtil.encodeHexStr(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持 SHA-256");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package top.deepdog.yiaicodemaster.core.history;
+
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+import top.deepdog.yiaicodemaster.config.ChatHistoryStorageConfig;
+import top.deepdog.yiaicodemaster.exception.BusinessException;
+import top.deepdog.yiaicodemaster.exception.ErrorCode;
+import top.deepdog.yiaicodemaster.model.entity.ChatHistory;
+import top.deepdog.yiaicodemaster.model.enums.ChatMessageFormatEnum;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 对话消息存储编解码
+ * 1. 小消息原文存储（plain）
+ * 2. 大消息 deflate 压缩后存在 messageData（deflate），并保留预览
+ * 3. 压缩后仍很大的消息存到外部文件，message 保存键（blob）
+ */
+@Component
+public class ChatMessageCodec {
+
+    @Resource
+    private ChatHistoryStorageConfig chatHistoryStorageConfig;
+
+    @Resource
+    private ChatMessageBlobStore chatMessageBlobStore;
+
+    /**
+     * 按消息大小选择存储格式，填充 message、messageFormat、messageData、messagePreview
+     *
+     * @param chatHistory 消息（message 为原文）
+     */
+    public void encode(ChatHistory chatHistory) {
+        String message = chatHistory.getMessage();
+        byte[] raw = message.getBytes(StandardCharsets.UTF_8);
+        chatHistory.setMessageFormat(ChatMessageFormatEnum.PLAIN.getValue());
+        chatHistory.setMessageData(null);
+        chatHistory.setMessagePreview(null);
+        if (raw.length <= chatHistoryStorageConfig.getCompressThresholdBytes()) {
+            return;
+        }
+        byte[] compressed = deflate(raw);
+        if (compressed.length >= raw.length) {
+            return;
+        }
+        chatHistory.setMessagePreview(preview(message));
+        if (compressed.length > chatHistoryStorageConfig.getBlobThresholdBytes()) {
+            chatHistory.setMessageFormat(ChatMessageFormatEnum.BLOB.getValue());
+            chatHistory.setMessage(chatMessageBlobStore.put(compressed));
+        } else {
+            chatHistory.setMessageFormat(ChatMessageFormatEnum.DEFLATE.getValue());
+            chatHistory.setMessage("");
+            chatHistory.setMessageData(compressed);
+        }
+    }
+
+    /**
+     * 还原消息原文
+     *
+     * @param chatHistory 查询出的消息（需包含 message、messageFormat、messageData）
+     * @return 原文
+     */
+    public String decode(ChatHistory chatHistory) {
+        ChatMessageFormatEnum format = ChatMessageFormatEnum.getEnumByValue(chatHistory.getMessageFormat());
+        if (format == null || format == ChatMessageFormatEnum.PLAIN) {
+            // 旧数据没有格式标记
+            return chatHistory.getMessage();
+        }
+        byte[] compressed = format == ChatMessageFormatEnum.BLOB
+                ? chatMessageBlobStore.get(chatHistory.getMessage())
+                : chatHistory.getMessageData();
+        return new String(inflate(compressed), StandardCharsets.UTF_8);
+    }
+
+    private String preview(String message) {
+        int previewLength = chatHistoryStorageConfig.getPreviewLength();
+        if (message.length() <= previewLength) {
+            return message;
+        }
+        // 避免截断在代理对中间
+        int end = Character.isHighSurrogate(message.charAt(previewLength - 1)) ? previewLength - 1 : previewLength;
+        return message.substring(0, end) + "…";
+    }
+
+    static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                outputStream.write(buffer, 0, count);
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] inflate(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, "消息数据不完整");
+                }
+                outputStream.write(buffer, 0, count);
+            }
+            return outputStream.toByteArray();
+        } catch (DataFormatException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "消息解压失败：" + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package top.deepdog.yiaicodemaster.core.parser;
+
+/**
+ * 代码块监听器
+ * 接收流式解析器推送的代码块事件，同一代码块的事件按 start -> content* -> end 顺序到达
+ */
+public interface CodeBlockListener {
+
+    /**
+     * 代码块开始（已去除首部空白，至少会有一段内容紧随其后）
+     *
+     * @param blockType 代码块类型
+     */
+    void onBlockStart(CodeBlockTypeEnum blockType);
+
+    /**
+     * 代码块内容片段（content 会被解析器复用，只在回调期间有效）
+     *
+     * @param blockType 代码块类型
+     * @param content   内容片段
+     */
+    void onBlockContent(CodeBlockTypeEnum blockType, CharSequence content);
+
+    /**
+     * 代码块结束（尾部空白已被丢弃）
+     *
+     * @param blockType 代码块类型
+     */
+    void onBlockEnd(CodeBlockTypeEnum blockType);
+}
@@ -0,0 +1,49 @@
+package top.deepdog.yiaicodemaster.core.parser;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 代码块类型枚举（对应 Markdown 代码围栏的语言标识）
+ */
+@Getter
+public enum CodeBlockTypeEnum {
+
+    HTML("html", "HTML代码", List.of("html")),
+    CSS("css", "CSS代码", List.of("css")),
+    JS("js", "JS代码", List.of("js", "javascript"));
+
+    private final String value;
+    private final String text;
+    /**
+     * 围栏中可识别的语言标识
+     */
+    private final List<String> languages;
+
+    CodeBlockTypeEnum(String value, String text, List<String> languages) {
+        this.value = value;
+        this.text = text;
+        this.languages = languages;
+    }
+
+    /**
+     * 根据围栏语言标识获取枚举（忽略大小写）
+     *
+     * @param language 语言标识
+     * @return 枚举值，无法识别时返回 null
+     */
+    public static CodeBlockTypeEnum getEnumByLanguage(String language) {
+        if (language == null || language.isEmpty()) {
+            return null;
+        }
+        for (CodeBlockTypeEnum typeEnum : values()) {
+            for (String candidate : typeEnum.languages) {
+                if (candidate.equalsIgnoreCase(language)) {
+                    return typeEnum;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -4,6 +4,8 @@ import top.deepdog.yiaicodemaster.exception.BusinessException;
 import top.deepdog.yiaicodemaster.exception.ErrorCode;
 import top.deepdog.yiaicodemaster.model.enums.CodeGenTypeEnum;
 
+import java.util.EnumSet;
+
 public class CodeParserExecutor {
 
     private static final HtmlCodeParser HTML_CODE_PARSER = new HtmlCodeParser();
@@ -16,4 +18,19 @@ public class CodeParserExecutor {
             default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型");
         };
     }
+
+    /**
+     * 创建流式解析器，边接收输出边解析代码块
+     *
+     * @param codeGenTypeEnum 生成类型
+     * @param listener        代码块监听器
+     * @return 流式解析器
+     */
+    public static StreamingCodeParser createStreamingParser(CodeGenTypeEnum codeGenTypeEnum, CodeBlockListener listener) {
+        return switch (codeGenTypeEnum) {
+            case HTML -> new StreamingCodeParser(EnumSet.of(CodeBlockTypeEnum.HTML), true, listener);
+            case MULTI_FILE -> new StreamingCodeParser(EnumSet.allOf(CodeBlockTypeEnum.class), false, listener);
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型");
+        };
+    }
 }
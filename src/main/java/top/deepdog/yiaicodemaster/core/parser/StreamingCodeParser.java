@@ -0,0 +1,307 @@
+package top.deepdog.yiaicodemaster.core.parser;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 流式代码解析器（状态机）
+ * 逐个分块消费 AI 输出，跨分块识别 ```html / ```css / ```js 代码围栏，
+ * 并把代码块内容实时推送给 {@link CodeBlockListener}，无需缓存完整响应后再做正则匹配。
+ * <p>
+ * 解析语义与 {@link HtmlCodeParser}、{@link MultiFileCodeParser} 保持一致：
+ * 每种类型只取第一个代码块，遇到第一个 ``` 即结束，内容首尾空白会被去除。
+ * 非线程安全，每个流使用独立实例。
+ */
+public class StreamingCodeParser {
+
+    private static final char FENCE_CHAR = '`';
+
+    private static final int FENCE_LENGTH = 3;
+
+    /**
+     * 围栏信息串（语言标识）的最大长度，超过则认为不是目标代码块
+     */
+    private static final int MAX_INFO_LENGTH = 32;
+
+    private enum State {
+        /**
+         * 代码块之外的普通文本
+         */
+        TEXT,
+        /**
+         * 已读到 ```，正在读取语言标识
+         */
+        FENCE_INFO,
+        /**
+         * 目标代码块内部
+         */
+        BLOCK
+    }
+
+    private final CodeBlockListener listener;
+
+    private final Set<CodeBlockTypeEnum> acceptedTypes;
+
+    /**
+     * 已经出现过围栏的类型（只取第一个代码块）
+     */
+    private final Set<CodeBlockTypeEnum> seenTypes = EnumSet.noneOf(CodeBlockTypeEnum.class);
+
+    /**
+     * 已经向监听器输出过内容的类型
+     */
+    private final Set<CodeBlockTypeEnum> startedTypes = EnumSet.noneOf(CodeBlockTypeEnum.class);
+
+    private final StringBuilder infoBuilder = new StringBuilder();
+
+    /**
+     * 本次 feed 中待推送的代码块内容，批量推送以减少回调次数
+     */
+    private final StringBuilder contentBuilder = new StringBuilder();
+
+    /**
+     * 代码块内暂存的尾部空白，后面出现非空白字符时才写出
+     */
+    private final StringBuilder pendingWhitespace = new StringBuilder();
+
+    /**
+     * 没有找到 HTML 代码块时的兜底内容，第一个 HTML 代码块开始输出后即释放
+     */
+    private StringBuilder rawBuilder;
+
+    private State state = State.TEXT;
+
+    private int backtickCount;
+
+    private CodeBlockTypeEnum currentType;
+
+    private boolean finished;
+
+    /**
+     * @param acceptedTypes  需要识别的代码块类型
+     * @param fallbackToHtml 未找到 HTML 代码块时是否将完整内容作为 HTML（与 {@link HtmlCodeParser} 一致）
+     * @param listener       代码块监听器
+     */
+    public StreamingCodeParser(Set<CodeBlockTypeEnum> acceptedTypes, boolean fallbackToHtml, CodeBlockListener listener) {
+        this.acceptedTypes = EnumSet.copyOf(acceptedTypes);
+        this.listener = listener;
+        this.rawBuilder = fallbackToHtml ? new StringBuilder() : null;
+    }
+
+    /**
+     * 消费一个输出分块
+     *
+     * @param chunk 分块内容
+     */
+    public void feed(String chunk) {
+        if (finished) {
+            throw new IllegalStateException("解析器已结束");
+        }
+        if (chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        if (rawBuilder != null) {
+            rawBuilder.append(chunk);
+        }
+        int length = chunk.length();
+        int i = 0;
+        while (i < length) {
+            i = switch (state) {
+                case TEXT -> consumeText(chunk, i);
+                case FENCE_INFO -> consumeFenceInfo(chunk, i);
+                case BLOCK -> consumeBlock(chunk, i);
+            };
+        }
+        flushContent();
+    }
+
+    /**
+     * 输出结束，收尾未闭合的代码块并处理 HTML 兜底
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (state == State.BLOCK) {
+            // 输出被截断时保留已生成的代码，末尾不完整的反引号视为被截断的结束围栏
+            endBlock();
+        }
+        state = State.TEXT;
+        if (rawBuilder != null && !startedTypes.contains(CodeBlockTypeEnum.HTML)) {
+            String rawContent = rawBuilder.toString().trim();
+            rawBuilder = null;
+            if (!rawContent.isEmpty()) {
+                listener.onBlockStart(CodeBlockTypeEnum.HTML);
+                listener.onBlockContent(CodeBlockTypeEnum.HTML, rawContent);
+                listener.onBlockEnd(CodeBlockTypeEnum.HTML);
+                startedTypes.add(CodeBlockTypeEnum.HTML);
+            }
+        }
+    }
+
+    /**
+     * 获取已输出内容的代码块类型
+     */
+    public Set<CodeBlockTypeEnum> getStartedTypes() {
+        return EnumSet.copyOf(startedTypes);
+    }
+
+    private int consumeText(String chunk, int from) {
+        int length = chunk.length();
+        for (int i = from; i < length; i++) {
+            if (chunk.charAt(i) != FENCE_CHAR) {
+                if (backtickCount > 0) {
+                    backtickCount = 0;
+                }
+                int next = chunk.indexOf(FENCE_CHAR, i);
+                if (next < 0) {
+                    return length;
+                }
+                i = next;
+            }
+            backtickCount++;
+            if (backtickCount == FENCE_LENGTH) {
+                backtickCount = 0;
+                infoBuilder.setLength(0);
+                state = State.FENCE_INFO;
+                return i + 1;
+            }
+        }
+        return length;
+    }
+
+    private int consumeFenceInfo(String chunk, int from) {
+        int length = chunk.length();
+        for (int i = from; i < length; i++) {
+            char c = chunk.charAt(i);
+            if (c == '\n') {
+                openBlock(infoBuilder.toString());
+                infoBuilder.setLength(0);
+                return i + 1;
+            }
+            if (c == FENCE_CHAR) {
+                if (infoBuilder.isEmpty()) {
+                    // 超过三个反引号时继续等待语言标识
+                    continue;
+                }
+                // 语言标识中出现反引号，重新开始识别围栏
+                infoBuilder.setLength(0);
+                state = State.TEXT;
+                backtickCount = 1;
+                return i + 1;
+            }
+            infoBuilder.append(c);
+            if (infoBuilder.length() > MAX_INFO_LENGTH) {
+                infoBuilder.setLength(0);
+                state = State.TEXT;
+                return i + 1;
+            }
+        }
+        return length;
+    }
+
+    private void openBlock(String info) {
+        state = State.TEXT;
+        CodeBlockTypeEnum blockType = CodeBlockTypeEnum.getEnumByLanguage(stripTrailingWhitespace(info));
+        if (blockType == null || !acceptedTypes.contains(blockType) || !seenTypes.add(blockType)) {
+            return;
+        }
+        currentType = blockType;
+        pendingWhitespace.setLength(0);
+        state = State.BLOCK;
+    }
+
+    private int consumeBlock(String chunk, int from) {
+        int length = chunk.length();
+        int i = from;
+        while (i < length) {
+            if (chunk.charAt(i) == FENCE_CHAR) {
+                backtickCount++;
+                i++;
+                if (backtickCount == FENCE_LENGTH) {
+                    backtickCount = 0;
+                    endBlock();
+                    state = State.TEXT;
+                    return i;
+                }
+                continue;
+            }
+            if (backtickCount > 0) {
+                // 不足三个的反引号属于代码内容
+                appendBlockText("``", 0, backtickCount);
+                backtickCount = 0;
+            }
+            int next = chunk.indexOf(FENCE_CHAR, i);
+            int end = next < 0 ? length : next;
+            appendBlockText(chunk, i, end);
+            i = end;
+        }
+        return length;
+    }
+
+    /**
+     * 追加代码块文本，去除首部空白并暂存尾部空白（与 String.trim 的空白定义一致）
+     */
+    private void appendBlockText(CharSequence text, int from, int to) {
+        int lastNonWhitespace = -1;
+        for (int i = to - 1; i >= from; i--) {
+            if (text.charAt(i) > ' ') {
+                lastNonWhitespace = i;
+                break;
+            }
+        }
+        boolean started = startedTypes.contains(currentType);
+        if (lastNonWhitespace < 0) {
+            if (started) {
+                pendingWhitespace.append(text, from, to);
+            }
+            return;
+        }
+        int start = from;
+        if (!started) {
+            while (text.charAt(start) <= ' ') {
+                start++;
+            }
+            startBlock();
+        } else if (!pendingWhitespace.isEmpty()) {
+            contentBuilder.append(pendingWhitespace);
+            pendingWhitespace.setLength(0);
+        }
+        contentBuilder.append(text, start, lastNonWhitespace + 1);
+        pendingWhitespace.append(text, lastNonWhitespace + 1, to);
+    }
+
+    private void startBlock() {
+        startedTypes.add(currentType);
+        if (currentType == CodeBlockTypeEnum.HTML) {
+            rawBuilder = null;
+        }
+        listener.onBlockStart(currentType);
+    }
+
+    private void endBlock() {
+        flushContent();
+        if (startedTypes.contains(currentType)) {
+            listener.onBlockEnd(currentType);
+        }
+        pendingWhitespace.setLength(0);
+        backtickCount = 0;
+        currentType = null;
+    }
+
+    private void flushContent() {
+        if (!contentBuilder.isEmpty()) {
+            listener.onBlockContent(currentType, contentBuilder);
+            contentBuilder.setLength(0);
+        }
+    }
+
+    private static String stripTrailingWhitespace(String info) {
+        int end = info.length();
+        while (end > 0 && info.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return info.substring(0, end);
+    }
+}
@@ -20,4 +20,12 @@ public class CodeFileSaverExecutor {
             default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型");
         };
     }
+
+    public static StreamingCodeFileSaver createStreamingSaver(CodeGenTypeEnum codeGenTypeEnum, Long appId) {
+        return switch (codeGenTypeEnum) {
+            case HTML -> htmlCodeFileSaver.createStreamingSaver(appId);
+            case MULTI_FILE -> multiFileCodeFileSaver.createStreamingSaver(appId);
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型");
+        };
+    }
 }
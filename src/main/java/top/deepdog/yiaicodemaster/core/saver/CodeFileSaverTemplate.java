@@ -4,13 +4,17 @@ import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.StrUtil;
 import top.deepdog.yiaicodemaster.constant.AppConstant;
+import top.deepdog.yiaicodemaster.core.parser.CodeBlockTypeEnum;
 import top.deepdog.yiaicodemaster.exception.ErrorCode;
 import top.deepdog.yiaicodemaster.exception.ThrowUtils;
 import top.deepdog.yiaicodemaster.model.enums.CodeGenTypeEnum;
+import top.deepdog.yiaicodemaster.utils.PrecompressUtils;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.security.KeyStore;
+import java.util.Set;
 
 public abstract class CodeFileSaverTemplate<T> {
     // File save root directory
@@ -30,8 +34,72 @@ public abstract class CodeFileSaverTemplate<T> {
         return new File(uniqueDir);
     }
 
+    /**
+     * 创建流式保存器，代码块边生成边写入文件
+     */
+    public final StreamingCodeFileSaver createStreamingSaver(Long appId) {
+        return new StreamingCodeFileSaver(this, buildUniqueDir(appId));
+    }
+
     protected abstract void saveFile(T result, String uniqueDir);
 
+    /**
+     * 获取代码块对应的文件名
+     *
+     * @param blockType 代码块类型
+     * @return 文件名，返回 null 表示不保存该类型的代码块
+     */
+    protected abstract String getFileName(CodeBlockTypeEnum blockType);
+
+    /**
+     * 代码块是否支持生成过程中的实时预览，不支持的代码块在结束后才输出到预览目录
+     *
+     * @param blockType 代码块类型
+     * @return 是否支持
+     */
+    protected boolean isPreviewable(CodeBlockTypeEnum blockType) {
+        return blockType != CodeBlockTypeEnum.JS;
+    }
+
+    /**
+     * 获取代码块可用于实时预览的前缀长度，保证快照在浏览器中能正常展示
+     * 已输出的部分总是停在完整的标签或规则边界上，因此只需判断其后新生成的内容
+     *
+     * @param blockType 代码块类型
+     * @param content   上次输出到预览之后新生成的内容
+     * @return 前缀长度，0 表示暂不输出快照
+     */
+    protected int getPreviewPrefixLength(CodeBlockTypeEnum blockType, String content) {
+        return switch (blockType) {
+            case HTML -> {
+                // 去掉末尾未写完的标签和未闭合的脚本，其余未闭合的元素由浏览器自动补全
+                int length = content.length();
+                int lastTagStart = content.lastIndexOf('<');
+                if (lastTagStart > content.lastIndexOf('>')) {
+                    length = lastTagStart;
+                }
+                String lowerContent = content.substring(0, length).toLowerCase();
+                int lastScriptStart = lowerContent.lastIndexOf("<script");
+                if (lastScriptStart > lowerContent.lastIndexOf("</script>")) {
+                    length = lastScriptStart;
+                }
+                yield length;
+            }
+            // 只保留到最后一条完整的规则
+            case CSS -> content.lastIndexOf('}') + 1;
+            // 不完整的脚本无法执行，等代码块结束后再输出
+            case JS -> 0;
+        };
+    }
+
+    /**
+     * 校验流式保存的结果
+     *
+     * @param savedBlockTypes 已保存的代码块类型
+     */
+    protected void validateSavedBlocks(Set<CodeBlockTypeEnum> savedBlockTypes) {
+    }
+
     protected void validateInput(T result) {
         ThrowUtils.throwIf(result == null, ErrorCode.PARAMS_ERROR, "输入参数为空");
     }
@@ -53,6 +121,7 @@ public abstract class CodeFileSaverTemplate<T> {
         if (StrUtil.isNotBlank(content)) {
             String filePath = dirPath + File.separator + fileName;
             FileUtil.writeString(content, filePath, StandardCharsets.UTF_8);
+            PrecompressUtils.precompress(Paths.get(filePath));
         }
     }
 
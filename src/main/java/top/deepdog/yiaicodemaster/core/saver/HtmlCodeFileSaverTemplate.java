@@ -1,13 +1,19 @@
 package top.deepdog.yiaicodemaster.core.saver;
 
 import top.deepdog.yiaicodemaster.ai.model.HtmlCodeResult;
+import top.deepdog.yiaicodemaster.core.parser.CodeBlockTypeEnum;
 import top.deepdog.yiaicodemaster.model.enums.CodeGenTypeEnum;
 
 public class HtmlCodeFileSaverTemplate extends CodeFileSaverTemplate<HtmlCodeResult>
 {
     @Override
     protected void saveFile(HtmlCodeResult result, String uniqueDir) {
-        writeToFile(uniqueDir, "index.html", result.getHtmlCode());
+        writeToFile(uniqueDir, getFileName(CodeBlockTypeEnum.HTML), result.getHtmlCode());
+    }
+
+    @Override
+    protected String getFileName(CodeBlockTypeEnum blockType) {
+        return blockType == CodeBlockTypeEnum.HTML ? "index.html" : null;
     }
 
     @Override
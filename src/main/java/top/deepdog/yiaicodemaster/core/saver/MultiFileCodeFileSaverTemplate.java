@@ -1,16 +1,28 @@
 package top.deepdog.yiaicodemaster.core.saver;
 
 import top.deepdog.yiaicodemaster.ai.model.MultiFileCodeResult;
+import top.deepdog.yiaicodemaster.core.parser.CodeBlockTypeEnum;
 import top.deepdog.yiaicodemaster.exception.ErrorCode;
 import top.deepdog.yiaicodemaster.exception.ThrowUtils;
 import top.deepdog.yiaicodemaster.model.enums.CodeGenTypeEnum;
 
+import java.util.Set;
+
 public class MultiFileCodeFileSaverTemplate extends CodeFileSaverTemplate<MultiFileCodeResult>{
     @Override
     protected void saveFile(MultiFileCodeResult result, String uniqueDir) {
-        writeToFile(uniqueDir, "index.html", result.getHtmlCode());
-        writeToFile(uniqueDir, "style.css", result.getCssCode());
-        writeToFile(uniqueDir, "script.js", result.getJsCode());
+        writeToFile(uniqueDir, getFileName(CodeBlockTypeEnum.HTML), result.getHtmlCode());
+        writeToFile(uniqueDir, getFileName(CodeBlockTypeEnum.CSS), result.getCssCode());
+        writeToFile(uniqueDir, getFileName(CodeBlockTypeEnum.JS), result.getJsCode());
+    }
+
+    @Override
+    protected String getFileName(CodeBlockTypeEnum blockType) {
+        return switch (blockType) {
+            case HTML -> "index.html";
+            case CSS -> "style.css";
+            case JS -> "script.js";
+        };
     }
 
     @Override
@@ -24,4 +36,10 @@ public class MultiFileCodeFileSaverTemplate extends CodeFileSaverTemplate<MultiF
         ThrowUtils.throwIf(result.getHtmlCode() == null || result.getHtmlCode().isEmpty(),
                 ErrorCode.SYSTEM_ERROR, "HTML代码不能为空");
     }
+
+    @Override
+    protected void validateSavedBlocks(Set<CodeBlockTypeEnum> savedBlockTypes) {
+        ThrowUtils.throwIf(!savedBlockTypes.contains(CodeBlockTypeEnum.HTML),
+                ErrorCode.SYSTEM_ERROR, "HTML代码不能为空");
+    }
 }
@@ -0,0 +1,272 @@
+package top.deepdog.yiaicodemaster.core.saver;
+
+import cn.hutool.core.io.FileUtil;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+import top.deepdog.yiaicodemaster.constant.AppConstant;
+import top.deepdog.yiaicodemaster.core.parser.CodeBlockListener;
+import top.deepdog.yiaicodemaster.core.parser.CodeBlockTypeEnum;
+import top.deepdog.yiaicodemaster.exception.BusinessException;
+import top.deepdog.yiaicodemaster.exception.ErrorCode;
+import top.deepdog.yiaicodemaster.utils.PrecompressUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式代码文件保存器
+ * 接收流式解析器推送的代码块并直接写入磁盘，不在内存中保留完整代码。
+ * 内容先写入同目录下的 .part 临时文件，代码块结束时原子替换目标文件，生成中断时不会破坏上一版代码。
+ * <p>
+ * 生成过程中每个代码块按固定最小间隔把格式完整的前缀写入预览目录（{@link AppConstant#CODE_PREVIEW_DIR_NAME}）：
+ * 内存中只保留上次输出之后新生成、还未校验的内容，每次刷新只校验这部分；快照由上一版预览文件加上新校验通过的内容
+ * 写入带版本号的临时文件后原子重命名，预览接口不会读到写了一半的文件。
+ * 间隔内到达的内容由延迟刷新兜底，模型停顿时预览也会跟上。生成结束后预览目录被清理。
+ * <p>
+ * 延迟刷新在其他线程执行，因此各回调方法都持有本对象的锁。
+ */
+@Slf4j
+public class StreamingCodeFileSaver implements CodeBlockListener {
+
+    private static final String PART_FILE_SUFFIX = ".part";
+
+    /**
+     * 预览快照的最小刷新间隔，限制写放大
+     */
+    private static final long PREVIEW_FLUSH_INTERVAL_MILLIS = 800;
+
+    private final CodeFileSaverTemplate<?> saverTemplate;
+
+    private final String uniqueDir;
+
+    private final Map<CodeBlockTypeEnum, Writer> writers = new EnumMap<>(CodeBlockTypeEnum.class);
+
+    private final Set<CodeBlockTypeEnum> savedBlockTypes = EnumSet.noneOf(CodeBlockTypeEnum.class);
+
+    /**
+     * 正在生成的代码块的预览状态
+     */
+    private final Map<CodeBlockTypeEnum, PreviewState> previewStates = new EnumMap<>(CodeBlockTypeEnum.class);
+
+    private final Path previewDir;
+
+    private long previewVersion;
+
+    StreamingCodeFileSaver(CodeFileSaverTemplate<?> saverTemplate, String uniqueDir) {
+        this.saverTemplate = saverTemplate;
+        this.uniqueDir = uniqueDir;
+        this.previewDir = Paths.get(uniqueDir, AppConstant.CODE_PREVIEW_DIR_NAME);
+    }
+
+    @Override
+    public synchronized void onBlockStart(CodeBlockTypeEnum blockType) {
+        String fileName = saverTemplate.getFileName(blockType);
+        if (fileName == null) {
+            return;
+        }
+        try {
+            Writer writer = Files.newBufferedWriter(getPartFilePath(fileName), StandardCharsets.UTF_8);
+            writers.put(blockType, writer);
+            if (saverTemplate.isPreviewable(blockType)) {
+                previewStates.put(blockType, new PreviewState());
+            }
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "创建代码文件失败：" + fileName);
+        }
+    }
+
+    @Override
+    public synchronized void onBlockContent(CodeBlockTypeEnum blockType, CharSequence content) {
+        Writer writer = writers.get(blockType);
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.append(content);
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "写入代码文件失败：" + e.getMessage());
+        }
+        PreviewState previewState = previewStates.get(blockType);
+        if (previewState == null) {
+            return;
+        }
+        previewState.pending.append(content);
+        long delay = previewState.lastFlushTime + PREVIEW_FLUSH_INTERVAL_MILLIS - System.currentTimeMillis();
+        if (delay <= 0) {
+            flushPreview(blockType, previewState);
+        } else if (previewState.trailingFlush == null) {
+            // 间隔内的内容到期后补一次刷新，避免模型停顿时预览停在旧内容
+            previewState.trailingFlush = Schedulers.boundedElastic()
+                    .schedule(() -> trailingFlush(blockType, previewState), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void onBlockEnd(CodeBlockTypeEnum blockType) {
+        Writer writer = writers.remove(blockType);
+        cancelTrailingFlush(previewStates.remove(blockType));
+        if (writer == null) {
+            return;
+        }
+        String fileName = saverTemplate.getFileName(blockType);
+        try {
+            writer.close();
+            Files.move(getPartFilePath(fileName), Paths.get(uniqueDir, fileName),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            PrecompressUtils.precompress(Paths.get(uniqueDir, fileName));
+            savedBlockTypes.add(blockType);
+            log.info("代码文件保存成功：{}", fileName);
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存代码文件失败：" + fileName);
+        }
+        // 代码块已完整，预览中直接使用完整内容
+        copyPreviewSnapshot(fileName, Paths.get(uniqueDir, fileName));
+    }
+
+    /**
+     * 完成保存并校验结果
+     *
+     * @return 保存的目录
+     */
+    public synchronized File complete() {
+        // 正常情况下解析器已关闭所有代码块，这里兜底丢弃未完成的临时文件
+        abort();
+        saverTemplate.validateSavedBlocks(EnumSet.copyOf(savedBlockTypes));
+        return new File(uniqueDir);
+    }
+
+    /**
+     * 放弃未完成的代码块，清理临时文件（已替换完成的文件保持不变）
+     */
+    public synchronized void abort() {
+        for (Map.Entry<CodeBlockTypeEnum, Writer> entry : writers.entrySet()) {
+            String fileName = saverTemplate.getFileName(entry.getKey());
+            try {
+                entry.getValue().close();
+                Files.deleteIfExists(getPartFilePath(fileName));
+            } catch (IOException e) {
+                log.warn("清理临时代码文件失败：{}", fileName, e);
+            }
+        }
+        writers.clear();
+        previewStates.values().forEach(this::cancelTrailingFlush);
+        previewStates.clear();
+        FileUtil.del(previewDir.toFile());
+    }
+
+    /**
+     * 延迟刷新：代码块仍在生成时才输出，已结束或已放弃的代码块直接忽略
+     */
+    private synchronized void trailingFlush(CodeBlockTypeEnum blockType, PreviewState previewState) {
+        if (previewStates.get(blockType) != previewState) {
+            return;
+        }
+        previewState.trailingFlush = null;
+        flushPreview(blockType, previewState);
+    }
+
+    private void cancelTrailingFlush(PreviewState previewState) {
+        if (previewState != null && previewState.trailingFlush != null) {
+            previewState.trailingFlush.dispose();
+            previewState.trailingFlush = null;
+        }
+    }
+
+    /**
+     * 将正在生成的代码块新增的完整内容刷新到预览目录
+     */
+    private void flushPreview(CodeBlockTypeEnum blockType, PreviewState previewState) {
+        cancelTrailingFlush(previewState);
+        previewState.lastFlushTime = System.currentTimeMillis();
+        String fileName = saverTemplate.getFileName(blockType);
+        String pendingContent = previewState.pending.toString();
+        int prefixLength = saverTemplate.getPreviewPrefixLength(blockType, pendingContent);
+        if (prefixLength <= 0) {
+            return;
+        }
+        try {
+            writePreviewSnapshot(fileName, pendingContent.substring(0, prefixLength), previewState.published);
+            previewState.published = true;
+            previewState.pending.delete(0, prefixLength);
+        } catch (IOException e) {
+            log.warn("刷新预览快照失败：{}", fileName, e);
+        }
+    }
+
+    /**
+     * 写入预览快照：先写带版本号的临时文件，再原子替换
+     *
+     * @param content 新校验通过的内容
+     * @param append  是否接在当前预览文件之后；第一次快照整体替换，覆盖上一次生成遗留的预览文件
+     */
+    private void writePreviewSnapshot(String fileName, String content, boolean append) throws IOException {
+        Path snapshotPath = prepareSnapshotPath(fileName);
+        if (append) {
+            Files.copy(previewDir.resolve(fileName), snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+            Files.writeString(snapshotPath, content, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        } else {
+            Files.writeString(snapshotPath, content, StandardCharsets.UTF_8);
+        }
+        publishSnapshot(snapshotPath, fileName);
+    }
+
+    /**
+     * 将已完成的代码文件复制为预览快照
+     */
+    private void copyPreviewSnapshot(String fileName, Path sourcePath) {
+        try {
+            Path snapshotPath = prepareSnapshotPath(fileName);
+            Files.copy(sourcePath, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+            publishSnapshot(snapshotPath, fileName);
+        } catch (IOException e) {
+            log.warn("刷新预览快照失败：{}", fileName, e);
+        }
+    }
+
+    private Path prepareSnapshotPath(String fileName) throws IOException {
+        Files.createDirectories(previewDir);
+        return previewDir.resolve(fileName + "." + (++previewVersion) + PART_FILE_SUFFIX);
+    }
+
+    private void publishSnapshot(Path snapshotPath, String fileName) throws IOException {
+        Files.move(snapshotPath, previewDir.resolve(fileName),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path getPartFilePath(String fileName) {
+        return Paths.get(uniqueDir, fileName + PART_FILE_SUFFIX);
+    }
+
+    private static class PreviewState {
+
+        /**
+         * 上次输出到预览之后新生成的内容
+         */
+        private final StringBuilder pending = new StringBuilder();
+
+        /**
+         * 预览文件是否已有本代码块的快照，之后的快照在其基础上追加新内容
+         */
+        private boolean published;
+
+        private long lastFlushTime;
+
+        /**
+         * 等待执行的延迟刷新
+         */
+        private Disposable trailingFlush;
+    }
+}
@@ -0,0 +1,107 @@
+package top.deepdog.yiaicodemaster.core.screenshot;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.WebDriver;
+import org.springframework.stereotype.Component;
+import top.deepdog.yiaicodemaster.config.ScreenshotConfig;
+import top.deepdog.yiaicodemaster.exception.BusinessException;
+import top.deepdog.yiaicodemaster.exception.ErrorCode;
+import top.deepdog.yiaicodemaster.utils.WebScreenshotUtils;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 无头浏览器池
+ * 1. 浏览器在首次使用时才启动，应用启动时不再初始化 Chrome
+ * 2. 同时使用的浏览器数量不超过池大小，其余请求排队等待，超时失败
+ * 3. 借出前做健康检查，崩溃或访问页面数达到上限的浏览器关闭重建
+ */
+@Slf4j
+@Component
+public class BrowserPool {
+
+    @Resource
+    private ScreenshotConfig screenshotConfig;
+
+    /**
+     * 空闲的浏览器，后进先出，优先复用最近使用过的
+     */
+    private final ConcurrentLinkedDeque<BrowserSession> idleSessions = new ConcurrentLinkedDeque<>();
+
+    /**
+     * 池容量许可，限制同时使用的浏览器数量
+     */
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(screenshotConfig.getPoolSize(), true);
+    }
+
+    /**
+     * 借用一个浏览器执行操作，结束后归还
+     *
+     * @param action 使用浏览器的操作
+     * @return 操作结果
+     */
+    public <T> T execute(Function<WebDriver, T> action) {
+        try {
+            if (!permits.tryAcquire(screenshotConfig.getLeaseTimeoutSeconds(), TimeUnit.SECONDS)) {
+                throw new BusinessException(ErrorCode.TOO_MANY_REQUEST, "截图任务繁忙，请稍后重试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "等待浏览器时被中断");
+        }
+        BrowserSession session = null;
+        boolean healthy = false;
+        try {
+            session = lease();
+            T result = action.apply(session.getDriver());
+            session.incrementPageCount();
+            healthy = result != null || session.isHealthy();
+            return result;
+        } finally {
+            if (session != null) {
+                giveBack(session, healthy);
+            }
+            permits.release();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        BrowserSession session;
+        while ((session = idleSessions.pollFirst()) != null) {
+            session.quit();
+        }
+    }
+
+    private BrowserSession lease() {
+        BrowserSession session;
+        while ((session = idleSessions.pollFirst()) != null) {
+            if (session.isHealthy()) {
+                return session;
+            }
+            session.quit();
+        }
+        log.info("启动新的浏览器实例");
+        return new BrowserSession(WebScreenshotUtils.createChromeDriver(
+                screenshotConfig.getWindowWidth(), screenshotConfig.getWindowHeight()));
+    }
+
+    private void giveBack(BrowserSession session, boolean healthy) {
+        if (!healthy || session.getPageCount() >= screenshotConfig.getMaxPagesPerBrowser()) {
+            log.info("回收浏览器实例，已访问页面数：{}，健康：{}", session.getPageCount(), healthy);
+            session.quit();
+            return;
+        }
+        idleSessions.offerFirst(session);
+    }
+}
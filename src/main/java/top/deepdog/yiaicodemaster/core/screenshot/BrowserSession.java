@@ -0,0 +1,49 @@
+package top.deepdog.yiaicodemaster.core.screenshot;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * 浏览器池中的一个浏览器会话
+ */
+@Slf4j
+@Getter
+class BrowserSession {
+
+    private final WebDriver driver;
+
+    /**
+     * 已访问的页面数
+     */
+    private int pageCount;
+
+    BrowserSession(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    void incrementPageCount() {
+        pageCount++;
+    }
+
+    /**
+     * 健康检查：浏览器崩溃或驱动断开时返回 false
+     */
+    boolean isHealthy() {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            log.warn("浏览器健康检查失败：{}", e.getMessage());
+            return false;
+        }
+    }
+
+    void quit() {
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            log.warn("关闭浏览器失败：{}", e.getMessage());
+        }
+    }
+}
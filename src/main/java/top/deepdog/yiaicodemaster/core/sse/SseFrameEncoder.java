@@ -0,0 +1,131 @@
+package top.deepdog.yiaicodemaster.core.sse;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SSE 帧编码器
+ * 将每个输出分块直接转义编码为 {@code data: {"d":"..."}\n\n} 格式的 UTF-8 字节，
+ * 先计算编码后的长度，再写入大小正好的数组，每帧只分配一次，不再构造 Map、JSON 对象和中间字符串。
+ * 帧数组交给 ResponseBodyEmitter 后可能被异步写出，因此每帧使用新数组；编码器本身无状态，可在多个流之间共用。
+ */
+public final class SseFrameEncoder {
+
+    /**
+     * 结束事件帧
+     */
+    public static final byte[] DONE_FRAME = "event: done\ndata: \n\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] DATA_PREFIX = "data: {\"d\":\"".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] DATA_SUFFIX = "\"}\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private SseFrameEncoder() {
+    }
+
+    /**
+     * 编码数据帧
+     *
+     * @param chunk 输出分块
+     * @return 完整的 SSE 帧字节
+     */
+    public static byte[] encodeData(String chunk) {
+        byte[] frame = new byte[DATA_PREFIX.length + encodedLength(chunk) + DATA_SUFFIX.length];
+        System.arraycopy(DATA_PREFIX, 0, frame, 0, DATA_PREFIX.length);
+        int position = DATA_PREFIX.length;
+        int length = chunk.length();
+        for (int i = 0; i < length; i++) {
+            char c = chunk.charAt(i);
+            if (c < 0x80) {
+                position = writeAscii(frame, position, c);
+            } else if (c < 0x800) {
+                frame[position++] = (byte) (0xC0 | (c >> 6));
+                frame[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (isSurrogatePair(chunk, i)) {
+                int codePoint = Character.toCodePoint(c, chunk.charAt(++i));
+                frame[position++] = (byte) (0xF0 | (codePoint >> 18));
+                frame[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                frame[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                frame[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // 孤立的代理字符无法编码为 UTF-8，与 String.getBytes 一致替换为 '?'
+                frame[position++] = '?';
+            } else {
+                frame[position++] = (byte) (0xE0 | (c >> 12));
+                frame[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                frame[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        System.arraycopy(DATA_SUFFIX, 0, frame, position, DATA_SUFFIX.length);
+        return frame;
+    }
+
+    /**
+     * 计算分块转义并编码为 UTF-8 后的字节数，与 encodeData 的写入规则一致
+     */
+    private static int encodedLength(String chunk) {
+        int bytes = 0;
+        int length = chunk.length();
+        for (int i = 0; i < length; i++) {
+            char c = chunk.charAt(i);
+            if (c < 0x80) {
+                bytes += switch (c) {
+                    case '"', '\\', '\n', '\r', '\t', '\b', '\f' -> 2;
+                    default -> c < 0x20 ? 6 : 1;
+                };
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (isSurrogatePair(chunk, i)) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes += 1;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static boolean isSurrogatePair(String chunk, int index) {
+        return Character.isHighSurrogate(chunk.charAt(index)) && index + 1 < chunk.length()
+                && Character.isLowSurrogate(chunk.charAt(index + 1));
+    }
+
+    /**
+     * 写入 ASCII 字符，按 JSON 字符串规则转义
+     *
+     * @return 写入后的位置
+     */
+    private static int writeAscii(byte[] frame, int position, char c) {
+        return switch (c) {
+            case '"' -> writeEscaped(frame, position, '"');
+            case '\\' -> writeEscaped(frame, position, '\\');
+            case '\n' -> writeEscaped(frame, position, 'n');
+            case '\r' -> writeEscaped(frame, position, 'r');
+            case '\t' -> writeEscaped(frame, position, 't');
+            case '\b' -> writeEscaped(frame, position, 'b');
+            case '\f' -> writeEscaped(frame, position, 'f');
+            default -> {
+                if (c < 0x20) {
+                    frame[position++] = '\\';
+                    frame[position++] = 'u';
+                    frame[position++] = '0';
+                    frame[position++] = '0';
+                    frame[position++] = HEX_DIGITS[c >> 4];
+                    frame[position++] = HEX_DIGITS[c & 0xF];
+                } else {
+                    frame[position++] = (byte) c;
+                }
+                yield position;
+            }
+        };
+    }
+
+    private static int writeEscaped(byte[] frame, int position, char c) {
+        frame[position] = '\\';
+        frame[position + 1] = (byte) c;
+        return position + 2;
+    }
+}
@@ -0,0 +1,73 @@
+package top.deepdog.yiaicodemaster.core.sse;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SSE 输出指标
+ * 统计写出的帧数与字节数，定期输出每秒帧数和平均每帧字节数
+ */
+@Slf4j
+@Component
+public class SseOutputMetrics {
+
+    private static final long REPORT_INTERVAL_MILLIS = 60_000;
+
+    private final LongAdder frameCount = new LongAdder();
+
+    private final LongAdder byteCount = new LongAdder();
+
+    private final LongAdder totalFrameCount = new LongAdder();
+
+    private final LongAdder totalByteCount = new LongAdder();
+
+    private volatile long windowStartTime = System.currentTimeMillis();
+
+    /**
+     * 记录一帧输出
+     *
+     * @param frameBytes 帧字节数
+     */
+    public void recordFrame(int frameBytes) {
+        frameCount.increment();
+        byteCount.add(frameBytes);
+        totalFrameCount.increment();
+        totalByteCount.add(frameBytes);
+    }
+
+    /**
+     * 累计输出帧数
+     */
+    public long getTotalFrameCount() {
+        return totalFrameCount.sum();
+    }
+
+    /**
+     * 累计平均每帧字节数
+     */
+    public double getAverageBytesPerFrame() {
+        long frames = totalFrameCount.sum();
+        return frames == 0 ? 0 : (double) totalByteCount.sum() / frames;
+    }
+
+    /**
+     * 定期输出统计窗口内的指标
+     */
+    @Scheduled(fixedRate = REPORT_INTERVAL_MILLIS, initialDelay = REPORT_INTERVAL_MILLIS)
+    public void report() {
+        long now = System.currentTimeMillis();
+        long elapsedMillis = Math.max(1, now - windowStartTime);
+        windowStartTime = now;
+        long frames = frameCount.sumThenReset();
+        long bytes = byteCount.sumThenReset();
+        if (frames == 0) {
+            return;
+        }
+        log.info("SSE 输出指标：{} 帧/秒，平均 {} 字节/帧",
+                String.format("%.1f", frames * 1000.0 / elapsedMillis),
+                bytes / frames);
+    }
+}
@@ -0,0 +1,209 @@
+package top.deepdog.yiaicodemaster.core.sse;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SSE 输出合并器
+ * 将连续的输出分块合并为一帧：距离本批第一个分块超过 maxDelay，或累计超过 maxBytes（UTF-8 字节）时输出，先到为准。
+ * 减少高并发生成时的帧数和 flush 次数，代价是最多 maxDelay 的额外延迟。
+ * 定时输出运行在 boundedElastic 线程上，下游写出响应可能阻塞，不能占用 parallel 线程。
+ */
+public class SseTokenBatcher {
+
+    private SseTokenBatcher() {
+    }
+
+    /**
+     * 合并输出流
+     *
+     * @param source   原始输出流
+     * @param maxDelay 最大合并延迟，为 0 时不合并
+     * @param maxBytes 单帧最大字节数
+     * @return 合并后的输出流
+     */
+    public static Flux<String> batch(Flux<String> source, Duration maxDelay, int maxBytes) {
+        if (maxDelay.isZero() || maxDelay.isNegative()) {
+            return source;
+        }
+        return Flux.create(sink -> {
+            Batch batch = new Batch(sink, maxDelay.toMillis(), maxBytes, Schedulers.boundedElastic());
+            Disposable subscription = source.subscribe(batch::add, batch::error, batch::complete);
+            sink.onDispose(() -> {
+                subscription.dispose();
+                batch.cancelTimer();
+            });
+        });
+    }
+
+    /**
+     * 单个流的合并状态
+     * 上游线程与定时器线程通过对象锁互斥地修改合并内容，锁内只把帧按顺序放入队列，
+     * 释放锁后再由一个线程依次输出，下游变慢时不会阻塞另一方获取锁
+     */
+    private static class Batch {
+
+        private final FluxSink<String> sink;
+
+        private final long maxDelayMillis;
+
+        private final int maxBytes;
+
+        private final Scheduler scheduler;
+
+        private final StringBuilder pending = new StringBuilder();
+
+        private int pendingBytes;
+
+        private Disposable timer;
+
+        private boolean terminated;
+
+        /**
+         * 待输出的帧，顺序由锁内入队的顺序决定
+         */
+        private final Queue<String> frames = new ConcurrentLinkedQueue<>();
+
+        /**
+         * 正在输出的线程数加上错过的输出请求数，为 0 时才能由新的线程开始输出
+         */
+        private final AtomicInteger wip = new AtomicInteger();
+
+        /**
+         * 终止信号，在所有帧输出后发出
+         */
+        private volatile boolean done;
+
+        private volatile Throwable error;
+
+        Batch(FluxSink<String> sink, long maxDelayMillis, int maxBytes, Scheduler scheduler) {
+            this.sink = sink;
+            this.maxDelayMillis = maxDelayMillis;
+            this.maxBytes = maxBytes;
+            this.scheduler = scheduler;
+        }
+
+        void add(String chunk) {
+            synchronized (this) {
+                if (terminated || chunk.isEmpty()) {
+                    return;
+                }
+                pending.append(chunk);
+                pendingBytes += utf8Length(chunk);
+                if (pendingBytes >= maxBytes) {
+                    flush();
+                } else if (timer == null) {
+                    timer = scheduler.schedule(this::onTimer, maxDelayMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+            drain();
+        }
+
+        void complete() {
+            terminate(null);
+        }
+
+        void error(Throwable error) {
+            // 出错前已生成的内容仍然输出
+            terminate(error);
+        }
+
+        synchronized void cancelTimer() {
+            terminated = true;
+            if (timer != null) {
+                timer.dispose();
+                timer = null;
+            }
+        }
+
+        private void terminate(Throwable error) {
+            synchronized (this) {
+                if (terminated) {
+                    return;
+                }
+                flush();
+                terminated = true;
+                this.error = error;
+                done = true;
+            }
+            drain();
+        }
+
+        private void onTimer() {
+            synchronized (this) {
+                timer = null;
+                if (terminated) {
+                    return;
+                }
+                flush();
+            }
+            drain();
+        }
+
+        /**
+         * 将合并的内容作为一帧放入输出队列，调用方需持有锁
+         */
+        private void flush() {
+            if (timer != null) {
+                timer.dispose();
+                timer = null;
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            frames.offer(pending.toString());
+            pending.setLength(0);
+            pendingBytes = 0;
+        }
+
+        /**
+         * 在锁外输出队列中的帧，同一时刻只有一个线程输出，其他线程的输出请求由它代为完成
+         */
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                String frame;
+                while ((frame = frames.poll()) != null) {
+                    sink.next(frame);
+                }
+                // 先读 done 再确认队列为空，避免漏掉终止前最后放入的帧
+                if (done && frames.isEmpty()) {
+                    if (error != null) {
+                        sink.error(error);
+                    } else {
+                        sink.complete();
+                    }
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private static int utf8Length(String chunk) {
+            int length = chunk.length();
+            int bytes = length;
+            for (int i = 0; i < length; i++) {
+                char c = chunk.charAt(i);
+                if (c >= 0x800) {
+                    // 代理对按两个字符各计 2 字节，合计 4 字节
+                    bytes += Character.isSurrogate(c) ? 1 : 2;
+                } else if (c >= 0x80) {
+                    bytes += 1;
+                }
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package top.deepdog.yiaicodemaster.core.staticfile;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.deepdog.yiaicodemaster.config.StaticFileCacheConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热点静态文件内容缓存
+ * 小文件内容缓存在堆外内存中，按字节数限制总大小；键包含内容版本（ETag），文件变化后旧内容不会再被命中。
+ * 定期输出命中率
+ */
+@Slf4j
+@Component
+public class StaticFileContentCache {
+
+    private static final long REPORT_INTERVAL_MILLIS = 60_000;
+
+    @Resource
+    private StaticFileCacheConfig staticFileCacheConfig;
+
+    private Cache<CacheKey, ByteBuffer> cache;
+
+    private CacheStats lastStats = CacheStats.empty();
+
+    private final LongAdder servedBytes = new LongAdder();
+
+    private final LongAdder bypassCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(staticFileCacheConfig.getMaxBytes())
+                .weigher((CacheKey key, ByteBuffer buffer) -> buffer.capacity())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 获取文件内容
+     *
+     * @param file    文件（原文件或预压缩文件）
+     * @param version 内容版本
+     * @return 内容，未启用缓存或文件过大时返回 null
+     */
+    public ByteBuffer get(File file, String version) {
+        if (!staticFileCacheConfig.isEnabled() || file.length() > staticFileCacheConfig.getMaxFileBytes()) {
+            bypassCount.increment();
+            return null;
+        }
+        ByteBuffer buffer;
+        try {
+            buffer = cache.get(new CacheKey(file.toPath(), version), key -> load(key.path()));
+        } catch (UncheckedIOException e) {
+            log.warn("读取静态文件失败: {}, {}", file.getPath(), e.getMessage());
+            return null;
+        }
+        servedBytes.add(buffer.capacity());
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * 清除目录下所有文件的缓存内容（如重新部署后）
+     *
+     * @param dir 目录
+     */
+    public void invalidateDirectory(File dir) {
+        Path dirPath = dir.toPath();
+        cache.asMap().keySet().removeIf(key -> key.path().startsWith(dirPath));
+    }
+
+    /**
+     * 定期输出统计窗口内的命中率
+     */
+    @Scheduled(fixedRate = REPORT_INTERVAL_MILLIS, initialDelay = REPORT_INTERVAL_MILLIS)
+    public void report() {
+        CacheStats stats = cache.stats();
+        CacheStats window = stats.minus(lastStats);
+        lastStats = stats;
+        long bypassed = bypassCount.sumThenReset();
+        if (window.requestCount() == 0 && bypassed == 0) {
+            return;
+        }
+        log.info("静态文件缓存指标：{} 次请求，命中率 {}%，{} 次未缓存的大文件，淘汰 {} 个，返回 {} KB，当前占用 {} KB",
+                window.requestCount(), Math.round(window.hitRate() * 100), bypassed, window.evictionCount(),
+                servedBytes.sumThenReset() / 1024, cache.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L) / 1024);
+    }
+
+    private static ByteBuffer load(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // 读满为止
+            }
+            buffer.flip();
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record CacheKey(Path path, String version) {
+    }
+}
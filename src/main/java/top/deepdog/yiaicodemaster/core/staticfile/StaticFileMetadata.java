@@ -0,0 +1,63 @@
+package top.deepdog.yiaicodemaster.core.staticfile;
+
+import lombok.Getter;
+
+import java.io.File;
+
+/**
+ * 静态文件元数据
+ */
+@Getter
+public class StaticFileMetadata {
+
+    private final File file;
+
+    private final long size;
+
+    private final long lastModified;
+
+    /**
+     * 强 ETag（基于内容哈希，带引号）
+     */
+    private final String etag;
+
+    private final String contentType;
+
+    /**
+     * 未过期的 .gz 预压缩文件，没有时为 null
+     */
+    private final File gzipFile;
+
+    /**
+     * 未过期的 .br 预压缩文件，没有时为 null
+     */
+    private final File brotliFile;
+
+    /**
+     * 最近一次确认文件未变化的时间
+     */
+    private volatile long checkedTime;
+
+    StaticFileMetadata(File file, long size, long lastModified, String etag, String contentType,
+                       File gzipFile, File brotliFile, long checkedTime) {
+        this.file = file;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.etag = etag;
+        this.contentType = contentType;
+        this.gzipFile = gzipFile;
+        this.brotliFile = brotliFile;
+        this.checkedTime = checkedTime;
+    }
+
+    void setCheckedTime(long checkedTime) {
+        this.checkedTime = checkedTime;
+    }
+
+    /**
+     * 是否存在预压缩文件
+     */
+    public boolean hasPrecompressed() {
+        return gzipFile != null || brotliFile != null;
+    }
+}
@@ -0,0 +1,127 @@
+package top.deepdog.yiaicodemaster.core.staticfile;
+
+import cn.hutool.core.util.HexUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import top.deepdog.yiaicodemaster.utils.ContentTypeUtils;
+import top.deepdog.yiaicodemaster.utils.PrecompressUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * 静态文件元数据缓存
+ * 缓存大小、修改时间、强 ETag 和预压缩文件，同一文件每秒最多检查一次是否变化，内容变化时重新计算 ETag
+ */
+@Slf4j
+@Component
+public class StaticFileMetadataCache {
+
+    /**
+     * 缓存的元数据在该时间内直接使用，不检查文件
+     */
+    private static final long REVALIDATE_INTERVAL_MILLIS = 1000;
+
+    private static final int ETAG_HEX_LENGTH = 32;
+
+    private final Cache<Path, StaticFileMetadata> cache = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    /**
+     * 获取文件元数据
+     *
+     * @param file 文件
+     * @return 元数据，文件不存在或不是普通文件时返回 null
+     */
+    public StaticFileMetadata get(File file) {
+        Path path = file.toPath();
+        StaticFileMetadata cached = cache.getIfPresent(path);
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.getCheckedTime() < REVALIDATE_INTERVAL_MILLIS) {
+            return cached;
+        }
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            cache.invalidate(path);
+            return null;
+        } catch (IOException e) {
+            log.warn("读取文件属性失败: {}, {}", path, e.getMessage());
+            return null;
+        }
+        if (!attrs.isRegularFile()) {
+            cache.invalidate(path);
+            return null;
+        }
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        // 预压缩文件可能在原文件之后生成（如构建完成后），需要一起确认
+        if (cached != null && cached.getSize() == attrs.size() && cached.getLastModified() == lastModified
+                && Objects.equals(cached.getGzipFile(), findPrecompressed(file, PrecompressUtils.GZIP_SUFFIX, lastModified))
+                && Objects.equals(cached.getBrotliFile(), findPrecompressed(file, PrecompressUtils.BROTLI_SUFFIX, lastModified))) {
+            cached.setCheckedTime(now);
+            return cached;
+        }
+        StaticFileMetadata metadata;
+        try {
+            metadata = new StaticFileMetadata(file, attrs.size(), lastModified, computeEtag(path),
+                    ContentTypeUtils.getContentType(file.getName()),
+                    findPrecompressed(file, PrecompressUtils.GZIP_SUFFIX, lastModified),
+                    findPrecompressed(file, PrecompressUtils.BROTLI_SUFFIX, lastModified),
+                    now);
+        } catch (IOException e) {
+            log.warn("计算文件 ETag 失败: {}, {}", path, e.getMessage());
+            return null;
+        }
+        cache.put(path, metadata);
+        return metadata;
+    }
+
+    /**
+     * 清除目录下所有文件的元数据（如重新部署后）
+     *
+     * @param dir 目录
+     */
+    public void invalidateDirectory(File dir) {
+        Path dirPath = dir.toPath();
+        cache.asMap().keySet().removeIf(path -> path.startsWith(dirPath));
+    }
+
+    /**
+     * 预压缩文件不早于原文件时才使用，避免返回过期内容
+     */
+    private static File findPrecompressed(File file, String suffix, long lastModified) {
+        File precompressed = new File(file.getPath() + suffix);
+        return precompressed.isFile() && precompressed.lastModified() >= lastModified ? precompressed : null;
+    }
+
+    private static String computeEtag(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[8192];
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return "\"" + HexUtil.encodeHexStr(digest.digest()).substring(0, ETAG_HEX_LENGTH) + "\"";
+    }
+}
@@ -1,17 +1,38 @@
 package top.deepdog.yiaicodemaster.manager;
 
 import com.qcloud.cos.COSClient;
+import com.qcloud.cos.exception.CosClientException;
+import com.qcloud.cos.exception.CosServiceException;
+import com.qcloud.cos.model.ObjectMetadata;
 import com.qcloud.cos.model.PutObjectRequest;
 import com.qcloud.cos.model.PutObjectResult;
+import com.qcloud.cos.transfer.TransferManager;
+import com.qcloud.cos.transfer.TransferManagerConfiguration;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import top.deepdog.yiaicodemaster.config.CosClientConfig;
+import top.deepdog.yiaicodemaster.exception.BusinessException;
+import top.deepdog.yiaicodemaster.exception.ErrorCode;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * COS对象存储管理器
+ * 1. 大文件通过 TransferManager 分块并行上传，上传线程池有界；
+ *    TransferManager 会占用一个上传线程等待各分块完成，同时上传的文件数限制为线程数的一半，保证总有线程执行分块，避免互相等待
+ * 2. 网络错误、5xx、429 按指数退避重试，重试总量受重试预算限制，避免故障时放大请求
  *
  * @author yupi
  */
@@ -19,12 +40,60 @@ import java.io.File;
 @Slf4j
 public class CosManager {
 
+    /**
+     * 上传线程池的等待队列长度（每个线程）
+     */
+    private static final int UPLOAD_QUEUE_SIZE_PER_THREAD = 64;
+
     @Resource
     private CosClientConfig cosClientConfig;
 
     @Resource
     private COSClient cosClient;
 
+    @Resource
+    private CosUploadMetrics cosUploadMetrics;
+
+    private ThreadPoolExecutor uploadExecutor;
+
+    private TransferManager transferManager;
+
+    /**
+     * 同时上传的文件数
+     */
+    private Semaphore fileUploadPermits;
+
+    private final RetryBudget retryBudget = new RetryBudget();
+
+    @PostConstruct
+    public void init() {
+        // 至少两个线程，一个等待分块完成时另一个执行分块
+        int threadCount = Math.max(2, cosClientConfig.getUploadThreadCount());
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 队列满时由提交线程执行，形成背压
+        uploadExecutor = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(threadCount * UPLOAD_QUEUE_SIZE_PER_THREAD),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cos-upload-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        fileUploadPermits = new Semaphore(Math.max(1, threadCount / 2));
+        transferManager = new TransferManager(cosClient, uploadExecutor, false);
+        TransferManagerConfiguration configuration = new TransferManagerConfiguration();
+        configuration.setMultipartUploadThreshold(cosClientConfig.getMultipartThresholdBytes());
+        configuration.setMinimumUploadPartSize(cosClientConfig.getMultipartPartSizeBytes());
+        transferManager.setConfiguration(configuration);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        // COSClient 由容器管理，这里只关闭上传线程
+        transferManager.shutdownNow(false);
+        uploadExecutor.shutdownNow();
+    }
+
     /**
      * 上传对象
      *
@@ -38,23 +107,153 @@ public class CosManager {
     }
 
     /**
-     * 上传文件到 COS 并返回访问 URL
+     * 以流的方式上传对象，无需落盘（流无法重读，不做重试）
+     *
+     * @param key           唯一键
+     * @param inputStream   输入流
+     * @param contentLength 内容长度
+     * @param contentType   内容类型
+     * @return 上传结果
+     */
+    public PutObjectResult putObject(String key, InputStream inputStream, long contentLength, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(contentLength);
+        metadata.setContentType(contentType);
+        PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key, inputStream, metadata);
+        return cosClient.putObject(putObjectRequest);
+    }
+
+    /**
+     * 上传字节内容到 COS 并返回访问 URL
+     *
+     * @param key         COS对象键（完整路径）
+     * @param bytes       内容
+     * @param contentType 内容类型
+     * @return 文件的访问URL，失败返回null
+     */
+    public String uploadBytes(String key, byte[] bytes, String contentType) {
+        try {
+            executeWithRetry(key, bytes.length,
+                    () -> putObject(key, new ByteArrayInputStream(bytes), bytes.length, contentType));
+        } catch (BusinessException e) {
+            log.error("内容上传COS失败: {}, {}", key, e.getMessage());
+            return null;
+        }
+        String url = buildUrl(key);
+        log.info("内容上传COS成功: {} 字节 -> {}", bytes.length, url);
+        return url;
+    }
+
+    /**
+     * 上传文件到 COS 并返回访问 URL，超过阈值的文件自动分块并行上传
      *
      * @param key  COS对象键（完整路径）
      * @param file 要上传的文件
      * @return 文件的访问URL，失败返回null
      */
     public String uploadFile(String key, File file) {
-        // 上传文件
-        PutObjectResult result = putObject(key, file);
-        if (result != null) {
-            // 构建访问URL
-            String url = String.format("%s%s", cosClientConfig.getHost(), key);
-            log.info("文件上传COS成功: {} -> {}", file.getName(), url);
-            return url;
-        } else {
-            log.error("文件上传COS失败，返回结果为空");
+        try {
+            executeWithRetry(key, file.length(), () -> {
+                fileUploadPermits.acquire();
+                try {
+                    return transferManager.upload(cosClientConfig.getBucket(), key, file).waitForUploadResult();
+                } finally {
+                    fileUploadPermits.release();
+                }
+            });
+        } catch (BusinessException e) {
+            log.error("文件上传COS失败: {}, {}", file.getName(), e.getMessage());
             return null;
         }
+        String url = buildUrl(key);
+        log.info("文件上传COS成功: {} -> {}", file.getName(), url);
+        return url;
+    }
+
+    private String buildUrl(String key) {
+        return String.format("%s%s", cosClientConfig.getHost(), key);
+    }
+
+    /**
+     * 执行上传，可重试的错误按指数退避（带随机抖动）重试，并记录指标
+     */
+    private <T> T executeWithRetry(String key, long bytes, Callable<T> upload) {
+        long startTime = System.currentTimeMillis();
+        int maxRetries = cosClientConfig.getMaxUploadRetries();
+        retryBudget.onRequest();
+        int attempt = 1;
+        while (true) {
+            try {
+                T result = upload.call();
+                long duration = System.currentTimeMillis() - startTime;
+                cosUploadMetrics.recordUpload(bytes, attempt, duration, true);
+                log.info("COS 上传完成: {}，{} 字节，尝试 {} 次，耗时 {} ms", key, bytes, attempt, duration);
+                return result;
+            } catch (Exception e) {
+                boolean retry = attempt <= maxRetries && isRetryable(e) && retryBudget.tryAcquire();
+                if (!retry) {
+                    cosUploadMetrics.recordUpload(bytes, attempt, System.currentTimeMillis() - startTime, false);
+                    if (e instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new BusinessException(ErrorCode.OPERATION_ERROR, "上传失败：" + e.getMessage());
+                }
+                long delay = backoffDelay(attempt);
+                log.warn("COS 上传失败，{} ms 后第 {} 次重试: {}, {}", delay, attempt, key, e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    cosUploadMetrics.recordUpload(bytes, attempt, System.currentTimeMillis() - startTime, false);
+                    throw new BusinessException(ErrorCode.OPERATION_ERROR, "上传被中断");
+                }
+                attempt++;
+            }
+        }
+    }
+
+    /**
+     * 第 n 次重试的等待时间：base * 2^(n-1)，在 [一半, 全部] 之间随机，避免并发重试同时到达
+     */
+    private long backoffDelay(int attempt) {
+        long delay = cosClientConfig.getRetryBaseDelayMillis() << Math.min(attempt - 1, 10);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    /**
+     * 网络错误、服务端错误和限流可以重试，其他客户端错误（如 4xx）重试也不会成功
+     */
+    private static boolean isRetryable(Exception e) {
+        if (e instanceof CosServiceException serviceException) {
+            int statusCode = serviceException.getStatusCode();
+            return statusCode >= 500 || statusCode == 429;
+        }
+        return e instanceof CosClientException;
+    }
+
+    /**
+     * 重试预算（令牌桶）
+     * 每次请求存入 0.1 个令牌，每次重试消耗 1 个，上限 10 个：
+     * 偶发失败时可以正常重试，持续故障时重试量不超过请求量的 10%
+     */
+    static class RetryBudget {
+
+        private static final double TOKENS_PER_REQUEST = 0.1;
+
+        private static final double MAX_TOKENS = 10;
+
+        private double tokens = MAX_TOKENS;
+
+        synchronized void onRequest() {
+            tokens = Math.min(MAX_TOKENS, tokens + TOKENS_PER_REQUEST);
+        }
+
+        synchronized boolean tryAcquire() {
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
     }
 }
@@ -0,0 +1,64 @@
+package top.deepdog.yiaicodemaster.manager;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对象存储上传指标
+ * 统计上传次数、失败次数、重试次数、字节数和耗时，定期输出
+ */
+@Slf4j
+@Component
+public class CosUploadMetrics {
+
+    private static final long REPORT_INTERVAL_MILLIS = 60_000;
+
+    private final LongAdder uploadCount = new LongAdder();
+
+    private final LongAdder failureCount = new LongAdder();
+
+    private final LongAdder retryCount = new LongAdder();
+
+    private final LongAdder byteCount = new LongAdder();
+
+    private final LongAdder durationMillis = new LongAdder();
+
+    /**
+     * 记录一次上传
+     *
+     * @param bytes          上传字节数
+     * @param attempts       尝试次数（含首次）
+     * @param durationMillis 耗时（毫秒，含重试等待）
+     * @param success        是否成功
+     */
+    public void recordUpload(long bytes, int attempts, long durationMillis, boolean success) {
+        uploadCount.increment();
+        retryCount.add(attempts - 1);
+        this.durationMillis.add(durationMillis);
+        if (success) {
+            byteCount.add(bytes);
+        } else {
+            failureCount.increment();
+        }
+    }
+
+    /**
+     * 定期输出统计窗口内的指标
+     */
+    @Scheduled(fixedRate = REPORT_INTERVAL_MILLIS, initialDelay = REPORT_INTERVAL_MILLIS)
+    public void report() {
+        long uploads = uploadCount.sumThenReset();
+        long failures = failureCount.sumThenReset();
+        long retries = retryCount.sumThenReset();
+        long bytes = byteCount.sumThenReset();
+        long millis = durationMillis.sumThenReset();
+        if (uploads == 0) {
+            return;
+        }
+        log.info("COS 上传指标：{} 次上传，{} 次失败，{} 次重试，{} KB，平均耗时 {} ms",
+                uploads, failures, retries, bytes / 1024, millis / uploads);
+    }
+}
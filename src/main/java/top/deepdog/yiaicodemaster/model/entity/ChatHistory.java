@@ -38,10 +38,28 @@ public class ChatHistory implements Serializable {
     private Long id;
 
     /**
-     * 消息
+     * 消息（plain 格式为原文，blob 格式为外部存储的键）
      */
     private String message;
 
+    /**
+     * 消息存储格式：plain / deflate / blob（见 ChatMessageFormatEnum）
+     */
+    @Column("messageFormat")
+    private String messageFormat;
+
+    /**
+     * 压缩后的消息（deflate 格式）
+     */
+    @Column("messageData")
+    private byte[] messageData;
+
+    /**
+     * 消息预览（非 plain 格式）
+     */
+    @Column("messagePreview")
+    private String messagePreview;
+
     /**
      * user/ai
      */
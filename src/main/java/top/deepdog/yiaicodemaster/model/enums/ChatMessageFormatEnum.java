@@ -0,0 +1,42 @@
+package top.deepdog.yiaicodemaster.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * 对话消息存储格式
+ */
+@Getter
+public enum ChatMessageFormatEnum {
+
+    PLAIN("明文", "plain"),
+    DEFLATE("压缩", "deflate"),
+    BLOB("压缩后外部存储", "blob");
+
+    private final String text;
+
+    private final String value;
+
+    ChatMessageFormatEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value 枚举值的value
+     * @return 枚举值
+     */
+    public static ChatMessageFormatEnum getEnumByValue(String value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (ChatMessageFormatEnum anEnum : ChatMessageFormatEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,41 @@
+package top.deepdog.yiaicodemaster.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * 截图前判断页面就绪的策略
+ */
+@Getter
+public enum PageReadinessStrategyEnum {
+
+    NONE("仅等待文档加载完成", "none"),
+    NETWORK_IDLE("等待网络空闲", "network_idle"),
+    DOM_QUIET("等待 DOM 不再变化", "dom_quiet");
+
+    private final String text;
+    private final String value;
+
+    PageReadinessStrategyEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value 枚举值的value
+     * @return 枚举值
+     */
+    public static PageReadinessStrategyEnum getEnumByValue(String value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (PageReadinessStrategyEnum anEnum : PageReadinessStrategyEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
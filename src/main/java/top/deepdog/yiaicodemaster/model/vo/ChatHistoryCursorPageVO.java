@@ -0,0 +1,31 @@
+package top.deepdog.yiaicodemaster.model.vo;
+
+import lombok.Data;
+import top.deepdog.yiaicodemaster.model.entity.ChatHistory;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 对话历史游标分页结果
+ */
+@Data
+public class ChatHistoryCursorPageVO implements Serializable {
+
+    /**
+     * 本页记录（按创建时间倒序）
+     */
+    private List<ChatHistory> records;
+
+    /**
+     * 下一页游标，没有更多记录时为空
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有更多记录
+     */
+    private Boolean hasMore;
+
+    private static final long serialVersionUID = 1L;
+}
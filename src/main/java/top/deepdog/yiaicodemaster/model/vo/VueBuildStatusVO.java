@@ -0,0 +1,45 @@
+package top.deepdog.yiaicodemaster.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Vue 项目构建状态
+ */
+@Data
+public class VueBuildStatusVO implements Serializable {
+
+    /**
+     * 应用 id
+     */
+    private Long appId;
+
+    /**
+     * 构建状态（queued / building / success / failed），从未构建时为空
+     */
+    private String status;
+
+    /**
+     * 当前进度或失败原因
+     */
+    private String message;
+
+    /**
+     * 入队时间
+     */
+    private LocalDateTime queuedTime;
+
+    /**
+     * 开始构建时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 构建结束时间
+     */
+    private LocalDateTime finishTime;
+
+    private static final long serialVersionUID = 1L;
+}
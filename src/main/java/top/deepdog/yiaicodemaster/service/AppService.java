@@ -9,6 +9,7 @@ import top.deepdog.yiaicodemaster.model.entity.App;
 import top.deepdog.yiaicodemaster.model.entity.User;
 import top.deepdog.yiaicodemaster.model.vo.AppVO;
 
+import java.io.File;
 import java.util.List;
 
 /**
@@ -47,12 +48,13 @@ public interface AppService extends IService<App> {
     String deployApp(Long appId, User loginUser);
 
     /**
-     * 异步生成应用截图
+     * 异步生成应用截图，部署内容未变化时复用已有截图
      *
-     * @param appId 应用ID
-     * @param appUrl 应用URL
+     * @param appId     应用ID
+     * @param appUrl    应用URL
+     * @param deployDir 部署目录
      */
-    void generateAppScreenshotAsync(Long appId, String appUrl);
+    void generateAppScreenshotAsync(Long appId, String appUrl, File deployDir);
 
     Long createApp(AppAddRequest appAddRequest, User loginUser);
 }
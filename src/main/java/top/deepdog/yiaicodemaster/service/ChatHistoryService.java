@@ -1,14 +1,13 @@
 package top.deepdog.yiaicodemaster.service;
 
-import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.core.service.IService;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.memory.ChatMemory;
 import top.deepdog.yiaicodemaster.model.dto.chathistory.ChatHistoryQueryRequest;
 import top.deepdog.yiaicodemaster.model.entity.ChatHistory;
 import top.deepdog.yiaicodemaster.model.entity.User;
+import top.deepdog.yiaicodemaster.model.vo.ChatHistoryCursorPageVO;
 
-import java.time.LocalDateTime;
 
 /**
  * 对话历史 服务层。
@@ -26,15 +25,24 @@ public interface ChatHistoryService extends IService<ChatHistory> {
     QueryWrapper getQueryWrapper(ChatHistoryQueryRequest chatHistoryQueryRequest);
 
     /**
-     * 分页获取指定应用的对话历史（游标查询）
+     * 游标分页获取指定应用的对话历史（按创建时间倒序，不查询总数）
      *
      * @param appId 应用ID
      * @param pageSize 每页大小
-     * @param lastCreateTime 最后创建时间
+     * @param cursor 上一页返回的游标，为空时查询第一页
      * @param loginUser 登录用户
-     * @return 对话历史分页
+     * @return 对话历史和下一页游标
      */
-    public Page<ChatHistory> listAppChatHistoryByPage(Long appId, int pageSize, LocalDateTime lastCreateTime, User loginUser);
+    ChatHistoryCursorPageVO listAppChatHistoryByCursor(Long appId, int pageSize, String cursor, User loginUser);
+
+    /**
+     * 获取完整的对话消息（列表中的大消息只有预览）
+     *
+     * @param id 消息ID
+     * @param loginUser 登录用户
+     * @return 消息原文
+     */
+    String getChatMessage(Long id, User loginUser);
 
     /**
      * 添加对话消息
@@ -47,6 +55,17 @@ public interface ChatHistoryService extends IService<ChatHistory> {
      */
     public boolean addChatMessage(Long appId, String message, String messageType, Long userId);
 
+    /**
+     * 添加成功完成的 AI 回复，并推进会话记忆的水位线
+     * 失败时的错误提示不是 AI 服务写入记忆的内容，应通过 {@link #addChatMessage} 添加
+     *
+     * @param appId 应用ID
+     * @param aiResponse AI 回复内容
+     * @param userId 用户ID
+     * @return 是否添加成功
+     */
+    public boolean addAiResponse(Long appId, String aiResponse, Long userId);
+
     /**
      * 根据应用ID删除对话消息
      *
@@ -63,5 +82,5 @@ public interface ChatHistoryService extends IService<ChatHistory> {
      * @param maxCount 最大数量
      * @return 加载的条数
      */
-    int loadChatHistoryToMemory(long appId, MessageWindowChatMemory chatMemory, int maxCount);
+    int loadChatHistoryToMemory(long appId, ChatMemory chatMemory, int maxCount);
 }
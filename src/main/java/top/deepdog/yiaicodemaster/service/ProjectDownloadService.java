@@ -1,7 +1,16 @@
 package top.deepdog.yiaicodemaster.service;
 
-import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
 
 public interface ProjectDownloadService {
-    void downloadProjectAsZip(String projectPath, String downloadFileName, HttpServletResponse response);
+
+    /**
+     * 下载项目代码压缩包（支持 Range 断点续传）
+     *
+     * @param projectPath      项目目录
+     * @param downloadFileName 下载文件名（不含扩展名）
+     * @return 压缩包响应
+     */
+    ResponseEntity<Resource> downloadProjectAsZip(String projectPath, String downloadFileName);
 }
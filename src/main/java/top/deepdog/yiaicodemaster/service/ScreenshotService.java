@@ -2,4 +2,13 @@ package top.deepdog.yiaicodemaster.service;
 
 public interface ScreenshotService {
     String generateAndUploadScreenshot(String webUrl);
+
+    /**
+     * 获取内容对应的截图，相同内容只截图一次
+     *
+     * @param webUrl      网页URL
+     * @param contentHash 网页内容（部署目录）的哈希
+     * @return 截图的对象存储URL
+     */
+    String getOrGenerateScreenshot(String webUrl, String contentHash);
 }
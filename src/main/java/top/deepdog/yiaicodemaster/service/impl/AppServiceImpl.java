@@ -2,7 +2,6 @@ package top.deepdog.yiaicodemaster.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
 import com.mybatisflex.core.query.QueryWrapper;
@@ -13,10 +12,14 @@ import org.springframework.beans.factory.annotation.Value;
 import reactor.core.publisher.Flux;
 import top.deepdog.yiaicodemaster.ai.AiCodeGenTypeRoutingService;
 import top.deepdog.yiaicodemaster.ai.AiCodeGenTypeRoutingServiceFactory;
+import top.deepdog.yiaicodemaster.ai.model.message.StreamMessage;
 import top.deepdog.yiaicodemaster.constant.AppConstant;
 import top.deepdog.yiaicodemaster.core.AiCodeGeneratorFacade;
-import top.deepdog.yiaicodemaster.core.builder.VueProjectBuilder;
+import top.deepdog.yiaicodemaster.core.builder.VueBuildQueue;
+import top.deepdog.yiaicodemaster.core.deploy.VersionedDeployer;
 import top.deepdog.yiaicodemaster.core.handler.StreamHandlerExecutor;
+import top.deepdog.yiaicodemaster.core.staticfile.StaticFileContentCache;
+import top.deepdog.yiaicodemaster.core.staticfile.StaticFileMetadataCache;
 import top.deepdog.yiaicodemaster.exception.BusinessException;
 import top.deepdog.yiaicodemaster.exception.ErrorCode;
 import top.deepdog.yiaicodemaster.exception.ThrowUtils;
@@ -34,6 +37,7 @@ import org.springframework.stereotype.Service;
 import top.deepdog.yiaicodemaster.service.ChatHistoryService;
 import top.deepdog.yiaicodemaster.service.ScreenshotService;
 import top.deepdog.yiaicodemaster.service.UserService;
+import top.deepdog.yiaicodemaster.utils.ContentHashUtils;
 
 import java.io.File;
 import java.io.Serializable;
@@ -42,6 +46,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
@@ -53,6 +60,11 @@ import java.util.stream.Collectors;
 @Service
 public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppService {
 
+    /**
+     * 部署时等待 Vue 项目构建的最长时间（分钟），覆盖排队和 npm install + npm run build 的超时
+     */
+    private static final long VUE_BUILD_WAIT_MINUTES = 15;
+
     @Resource
     private UserService userService;
     @Resource
@@ -62,7 +74,16 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
     @Resource
     private StreamHandlerExecutor streamHandlerExecutor;
     @Resource
-    private VueProjectBuilder vueProjectBuilder;
+    private VueBuildQueue vueBuildQueue;
+
+    @Resource
+    private VersionedDeployer versionedDeployer;
+
+    @Resource
+    private StaticFileMetadataCache staticFileMetadataCache;
+
+    @Resource
+    private StaticFileContentCache staticFileContentCache;
     @Resource
     private ScreenshotService screenshotService;
     @Resource
@@ -176,7 +197,7 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         // 通过校验后，将用户消息添加到对话历史
         chatHistoryService.addChatMessage(appId, message, ChatHistoryMessageTypeEnum.USER.getValue(), loginUser.getId());
         // 调用 AI 生成代码
-        Flux<String> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(message, codeGenTypeEnum, appId);
+        Flux<StreamMessage> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(message, codeGenTypeEnum, appId);
         // 收集AI响应内容并在完成后添加到对话历史
         return streamHandlerExecutor.doExecute(codeStream, chatHistoryService, appId, loginUser, codeGenTypeEnum);
     }
@@ -208,20 +229,31 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         // 8. Vue 项目构建
         CodeGenTypeEnum codeGenTypeEnum = CodeGenTypeEnum.getEnumByValue(codeGenType);
         if (codeGenTypeEnum == CodeGenTypeEnum.VUE_PROJECT) {
-            boolean buildSuccess = vueProjectBuilder.buildProject(sourceDirPath);
+            // 通过构建队列构建，与生成后的自动构建合并，避免同一项目并发构建
+            boolean buildSuccess;
+            try {
+                buildSuccess = vueBuildQueue.submit(appId, sourceDirPath).getResult()
+                        .get(VUE_BUILD_WAIT_MINUTES, TimeUnit.MINUTES);
+            } catch (TimeoutException e) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "Vue项目构建超时，请稍后重试");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "Vue项目构建被中断");
+            } catch (ExecutionException e) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "Vue项目构建失败：" + e.getMessage());
+            }
             ThrowUtils.throwIf(!buildSuccess, ErrorCode.SYSTEM_ERROR, "Vue项目构建失败，请检查代码和依赖");
             File distDir = new File(sourceDirPath, "dist");
             ThrowUtils.throwIf(!distDir.exists(), ErrorCode.SYSTEM_ERROR, "Vue项目构建完成，但未生成 dist 目录");
             sourceDir = distDir;
             log.info("Vue项目构建完成，将部署 dist 目录：{}", distDir.getAbsolutePath());
         }
-        // 9. 复制源目录到目标目录
-        String deployDirPath = AppConstant.CODE_DEPLOY_ROOT_DIR + File.separator + deployKey;
-        try {
-            FileUtil.copyContent(sourceDir, new File(deployDirPath), true);
-        } catch (Exception e) {
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "代码部署失败" + e.getMessage());
-        }
+        // 9. 写入新的部署版本（未变化的文件硬链接），并原子切换到新版本
+        File deployDir = versionedDeployer.deploy(deployKey, sourceDir);
+        // 清除该应用静态文件的缓存，释放旧内容占用的内存
+        File appOutputDir = new File(sourceDirPath);
+        staticFileMetadataCache.invalidateDirectory(appOutputDir);
+        staticFileContentCache.invalidateDirectory(appOutputDir);
         // 10. 更新应用的deployKey和部署时间
         App updateApp = new App();
         updateApp.setId(appId);
@@ -232,14 +264,19 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         // 11. 返回可访问的URL
         String appDeployUrl = String.format("%s/%s/", deployHost, deployKey);
         // 12. 异步生成截图并更新应用封面
-        generateAppScreenshotAsync(appId, appDeployUrl);
+        generateAppScreenshotAsync(appId, appDeployUrl, deployDir);
         return appDeployUrl;
     }
 
     @Override
-    public void generateAppScreenshotAsync(Long appId, String appUrl) {
+    public void generateAppScreenshotAsync(Long appId, String appUrl, File deployDir) {
         Thread.startVirtualThread(() -> {
-            String screenshotUrl = screenshotService.generateAndUploadScreenshot(appUrl);
+            String contentHash = ContentHashUtils.hashDirectory(deployDir);
+            String screenshotUrl = screenshotService.getOrGenerateScreenshot(appUrl, contentHash);
+            App app = this.getById(appId);
+            if (app != null && screenshotUrl.equals(app.getCover())) {
+                return;
+            }
             App updateApp = new App();
             updateApp.setId(appId);
             updateApp.setCover(screenshotUrl);
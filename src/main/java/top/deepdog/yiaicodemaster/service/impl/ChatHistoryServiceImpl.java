@@ -2,16 +2,23 @@ package top.deepdog.yiaicodemaster.service.impl;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.StrUtil;
-import com.mybatisflex.core.paginate.Page;
+import com.mybatisflex.core.keygen.KeyGeneratorFactory;
+import com.mybatisflex.core.keygen.KeyGenerators;
+import com.mybatisflex.core.query.QueryMethods;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.spring.service.impl.ServiceImpl;
 
 import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.memory.ChatMemory;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
+import top.deepdog.yiaicodemaster.core.history.ChatHistoryWriter;
+import top.deepdog.yiaicodemaster.core.history.ChatMemoryWatermark;
+import top.deepdog.yiaicodemaster.core.history.ChatMessageCodec;
+import top.deepdog.yiaicodemaster.exception.BusinessException;
 import top.deepdog.yiaicodemaster.exception.ErrorCode;
 import top.deepdog.yiaicodemaster.exception.ThrowUtils;
 import top.deepdog.yiaicodemaster.model.dto.chathistory.ChatHistoryQueryRequest;
@@ -21,11 +28,16 @@ import top.deepdog.yiaicodemaster.mapper.ChatHistoryMapper;
 import top.deepdog.yiaicodemaster.model.entity.User;
 import top.deepdog.yiaicodemaster.model.enums.ChatHistoryMessageTypeEnum;
 import top.deepdog.yiaicodemaster.model.enums.UserRoleEnum;
+import top.deepdog.yiaicodemaster.model.vo.ChatHistoryCursorPageVO;
 import top.deepdog.yiaicodemaster.service.AppService;
 import top.deepdog.yiaicodemaster.service.ChatHistoryService;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 
 /**
@@ -37,10 +49,24 @@ import java.util.List;
 @Service
 public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatHistory>  implements ChatHistoryService{
 
+    /**
+     * 游标中创建时间和 id 的分隔符
+     */
+    private static final String CURSOR_SEPARATOR = "|";
+
     @Resource
     @Lazy
     private AppService appService;
 
+    @Resource
+    private ChatHistoryWriter chatHistoryWriter;
+
+    @Resource
+    private ChatMessageCodec chatMessageCodec;
+
+    @Resource
+    private ChatMemoryWatermark chatMemoryWatermark;
+
     /**
      * 获取查询包装类
      *
@@ -49,7 +75,12 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
      */
     @Override
     public QueryWrapper getQueryWrapper(ChatHistoryQueryRequest chatHistoryQueryRequest) {
-        QueryWrapper queryWrapper = QueryWrapper.create();
+        // 列表只查询预览，不读取压缩后的消息内容
+        QueryWrapper queryWrapper = QueryWrapper.create()
+                .select(QueryMethods.column("id"), QueryMethods.column("messageType"), QueryMethods.column("messageFormat"),
+                        QueryMethods.column("appId"), QueryMethods.column("userId"),
+                        QueryMethods.column("createTime"), QueryMethods.column("updateTime"),
+                        QueryMethods.ifNull(QueryMethods.column("messagePreview"), QueryMethods.column("message")).as("message"));
         if (chatHistoryQueryRequest == null) {
             return queryWrapper;
         }
@@ -63,11 +94,15 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         String sortOrder = chatHistoryQueryRequest.getSortOrder();
         // 拼接查询条件
         queryWrapper.eq("id", id)
-                .like("message", message)
                 .eq("messageType", messageType)
                 .eq("appId", appId)
                 .eq("userId", userId);
-        // 游标查询逻辑 - 只使用 createTime 作为游标
+        // 按展示的内容匹配：压缩和外部存储的消息匹配预览，不匹配压缩数据或外部存储的键
+        if (StrUtil.isNotBlank(message)) {
+            queryWrapper.and(QueryMethods.ifNull(QueryMethods.column("messagePreview"), QueryMethods.column("message"))
+                    .like(message));
+        }
+        // 管理员查询保留的 lastCreateTime 时间过滤；用户侧游标分页由 applyCursor 按 (createTime, id) 处理
         if (lastCreateTime != null) {
             queryWrapper.lt("createTime", lastCreateTime);
         }
@@ -82,8 +117,7 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
     }
 
     @Override
-    public Page<ChatHistory> listAppChatHistoryByPage(Long appId, int pageSize,
-                                                      LocalDateTime lastCreateTime, User loginUser) {
+    public ChatHistoryCursorPageVO listAppChatHistoryByCursor(Long appId, int pageSize, String cursor, User loginUser) {
         // 校验参数
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
         ThrowUtils.throwIf(pageSize <= 0 || pageSize > 50, ErrorCode.PARAMS_ERROR, "分页大小必须在1-50之间");
@@ -94,66 +128,176 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         boolean isCreator = loginUser.getId().equals(app.getUserId());
         boolean isAdmin = UserRoleEnum.ADMIN.getValue().equals(loginUser.getUserRole());
         ThrowUtils.throwIf(!isCreator && !isAdmin, ErrorCode.NO_AUTH_ERROR, "无查看该应用历史对话权限");
-        // 分页查询
+        // 等待该应用待写入的消息落库，保证能查到刚发送的消息
+        chatHistoryWriter.awaitWritten(appId);
+        // 按 (createTime, id) 倒序的键集分页：每页只扫描索引 (appId, createTime) 上的一段（二级索引隐含主键 id），
+        // 不查询总数，多取一条判断是否还有下一页
         ChatHistoryQueryRequest chatHistoryQueryRequest = new ChatHistoryQueryRequest();
         chatHistoryQueryRequest.setAppId(appId);
-        chatHistoryQueryRequest.setLastCreateTime(lastCreateTime);
-        QueryWrapper queryWrapper = getQueryWrapper(chatHistoryQueryRequest);
-        return this.page(new Page<>(1, pageSize),queryWrapper);
+        QueryWrapper queryWrapper = getQueryWrapper(chatHistoryQueryRequest)
+                .orderBy("id", false)
+                .limit(pageSize + 1);
+        if (StrUtil.isNotBlank(cursor)) {
+            applyCursor(queryWrapper, cursor);
+        }
+        List<ChatHistory> records = this.list(queryWrapper);
+        boolean hasMore = records.size() > pageSize;
+        if (hasMore) {
+            records = records.subList(0, pageSize);
+        }
+        ChatHistoryCursorPageVO pageVO = new ChatHistoryCursorPageVO();
+        pageVO.setRecords(records);
+        pageVO.setHasMore(hasMore);
+        pageVO.setNextCursor(hasMore ? encodeCursor(records.getLast()) : null);
+        return pageVO;
+    }
+
+    /**
+     * 只查询排在游标之后的记录，即 (createTime, id) < 游标位置
+     * 展开为 createTime < ? OR (createTime = ? AND id < ?)，MySQL 对行值比较不一定能使用索引范围扫描
+     */
+    static void applyCursor(QueryWrapper queryWrapper, String cursor) {
+        Object[] position = decodeCursor(cursor);
+        queryWrapper.and((QueryWrapper wrapper) -> {
+            wrapper.lt("createTime", position[0]);
+            wrapper.or((QueryWrapper tie) -> {
+                tie.eq("createTime", position[0]).lt("id", position[1]);
+            });
+        });
     }
 
+    /**
+     * 游标为最后一条记录的 (createTime, id)，Base64 编码后对调用方不透明
+     */
+    static String encodeCursor(ChatHistory last) {
+        String position = last.getCreateTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标
+     *
+     * @return [createTime, id]
+     */
+    static Object[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = position.lastIndexOf(CURSOR_SEPARATOR);
+            LocalDateTime createTime = LocalDateTime.parse(position.substring(0, separatorIndex), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            long id = Long.parseLong(position.substring(separatorIndex + 1));
+            return new Object[]{createTime, id};
+        } catch (RuntimeException e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标无效");
+        }
+    }
+
+    @Override
+    public String getChatMessage(Long id, User loginUser) {
+        ThrowUtils.throwIf(id == null || id <= 0, ErrorCode.PARAMS_ERROR, "消息ID无效");
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NOT_LOGIN_ERROR, "用户未登录");
+        ChatHistory chatHistory = this.getById(id);
+        ThrowUtils.throwIf(chatHistory == null, ErrorCode.NOT_FOUND_ERROR, "消息不存在");
+        // 校验权限，只有应用创建者和管理员才能查看
+        App app = appService.getById(chatHistory.getAppId());
+        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR, "应用不存在");
+        boolean isCreator = loginUser.getId().equals(app.getUserId());
+        boolean isAdmin = UserRoleEnum.ADMIN.getValue().equals(loginUser.getUserRole());
+        ThrowUtils.throwIf(!isCreator && !isAdmin, ErrorCode.NO_AUTH_ERROR, "无查看该应用历史对话权限");
+        return chatMessageCodec.decode(chatHistory);
+    }
 
     @Override
     public boolean addChatMessage(Long appId, String message, String messageType, Long userId) {
+        return saveChatMessage(appId, message, messageType, userId) != null;
+    }
+
+    @Override
+    public boolean addAiResponse(Long appId, String aiResponse, Long userId) {
+        ChatHistory chatHistory = saveChatMessage(appId, aiResponse, ChatHistoryMessageTypeEnum.AI.getValue(), userId);
+        // 回复成功时，本轮的用户消息和回复都已由 AI 服务写入会话记忆
+        if (chatHistory != null) {
+            chatMemoryWatermark.set(appId, chatHistory.getId());
+        }
+        return chatHistory != null;
+    }
+
+    /**
+     * 保存对话消息
+     *
+     * @return 保存的消息，失败时返回 null
+     */
+    private ChatHistory saveChatMessage(Long appId, String message, String messageType, Long userId) {
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
         ThrowUtils.throwIf(message == null || message.isEmpty(), ErrorCode.PARAMS_ERROR, "消息内容不能为空");
         ThrowUtils.throwIf(messageType == null || messageType.isEmpty(), ErrorCode.PARAMS_ERROR, "消息类型不能为空");
         ThrowUtils.throwIf(userId == null || userId <= 0, ErrorCode.PARAMS_ERROR, "用户ID无效");
         ChatHistoryMessageTypeEnum messageTypeEnum = ChatHistoryMessageTypeEnum.getEnumByValue(messageType);
         ThrowUtils.throwIf(messageTypeEnum == null, ErrorCode.PARAMS_ERROR, "消息类型错误，不支持的类型：" + messageType);
+        // 异步批量写入时由应用侧生成 id 和创建时间，保证消息顺序与提交顺序一致
+        LocalDateTime now = LocalDateTime.now();
         ChatHistory chatHistory = ChatHistory.builder()
                 .appId(appId)
                 .message(message)
                 .messageType(messageType)
                 .userId(userId)
+                .createTime(now)
+                .updateTime(now)
+                .isDelete(0)
                 .build();
-        return this.save(chatHistory);
+        chatMessageCodec.encode(chatHistory);
+        chatHistory.setId((Long) KeyGeneratorFactory.getKeyGenerator(KeyGenerators.snowFlakeId).generate(chatHistory, "id"));
+        boolean saved = chatHistoryWriter.submit(chatHistory) || this.save(chatHistory);
+        return saved ? chatHistory : null;
     }
 
     @Override
     public boolean deleteByAppId(Long appId) {
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
+        // 先等待待写入的消息落库，避免删除后再被写入
+        chatHistoryWriter.awaitWritten(appId);
+        chatMemoryWatermark.clear(appId);
         return this.remove(QueryWrapper.create().eq("appId", appId));
     }
 
     @Override
-    public int loadChatHistoryToMemory(long appId, MessageWindowChatMemory chatMemory, int maxCount) {
+    public int loadChatHistoryToMemory(long appId, ChatMemory chatMemory, int maxCount) {
         try {
-            int loadedCount = 0;
-            // 构造查询条件，起点从1开始，用于排除最新的用户消息
-            QueryWrapper queryWrapper = QueryWrapper.create()
+            // 查询排除了最新的一条用户消息，需要先等待它落库
+            chatHistoryWriter.awaitWritten(appId);
+            // 最新的一条是本轮的用户消息，由 AI 服务自己写入记忆，记忆应包含到它的前一条
+            List<ChatHistory> latest = this.list(QueryWrapper.create()
+                    .select(QueryMethods.column("id"))
                     .eq(ChatHistory::getAppId, appId)
                     .orderBy(ChatHistory::getCreateTime, false)
-                    .limit(1, maxCount);
-            List<ChatHistory> chatHistories = this.list(queryWrapper);
+                    .orderBy(ChatHistory::getId, false)
+                    .limit(1, 1));
             // 若无历史会话，则返回0
-            if (CollUtil.isEmpty(chatHistories)) {
+            if (CollUtil.isEmpty(latest)) {
                 return 0;
             }
-            // 反转列表，确保时间正序
-            chatHistories = chatHistories.reversed();
-            // 清理历史缓存，防止重复加载
-            chatMemory.clear();
-            // 遍历列表，将消息添加到会话记忆中
-            for (ChatHistory chatHistory : chatHistories) {
-                if (chatHistory.getMessageType().equals(ChatHistoryMessageTypeEnum.USER.getValue())) {
-                    chatMemory.add(UserMessage.from(chatHistory.getMessage()));
-                    loadedCount++;
-                } else if (chatHistory.getMessageType().equals(ChatHistoryMessageTypeEnum.AI.getValue())) {
-                    chatMemory.add(AiMessage.from(chatHistory.getMessage()));
-                    loadedCount++;
+            long lastHistoryId = latest.getFirst().getId();
+            // Redis 中的记忆存在且水位线不低于最新一条时，直接复用，不读数据库也不重写 Redis
+            Long watermark = chatMemoryWatermark.get(appId);
+            boolean memoryWarm = watermark != null && !chatMemory.messages().isEmpty();
+            if (memoryWarm && watermark >= lastHistoryId) {
+                log.info("会话记忆已是最新，跳过加载，appId: {}", appId);
+                return 0;
+            }
+            if (memoryWarm) {
+                // 只追加水位线之后的消息，落后太多时完整加载
+                List<ChatHistory> delta = listRecentChatHistories(appId, watermark, lastHistoryId, maxCount);
+                if (delta.size() < maxCount) {
+                    int loadedCount = addToMemory(chatMemory, delta);
+                    chatMemoryWatermark.set(appId, lastHistoryId);
+                    log.info("追加历史会话到内存，共追加{}条记录", loadedCount);
+                    return loadedCount;
                 }
             }
+            List<ChatHistory> chatHistories = listRecentChatHistories(appId, null, lastHistoryId, maxCount);
+            // 清理历史缓存，防止重复加载
+            chatMemory.clear();
+            int loadedCount = addToMemory(chatMemory, chatHistories);
+            chatMemoryWatermark.set(appId, lastHistoryId);
             log.info("加载历史会话到内存，共加载{}条记录", loadedCount);
             return loadedCount;
         } catch (Exception e) {
@@ -162,5 +306,41 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         }
     }
 
+    /**
+     * 查询 (afterId, untilId] 范围内最近的对话历史
+     *
+     * @return 时间正序的对话历史
+     */
+    private List<ChatHistory> listRecentChatHistories(long appId, Long afterId, long untilId, int maxCount) {
+        QueryWrapper queryWrapper = QueryWrapper.create()
+                .eq(ChatHistory::getAppId, appId)
+                .gt(ChatHistory::getId, afterId)
+                .le(ChatHistory::getId, untilId)
+                .orderBy(ChatHistory::getCreateTime, false)
+                .orderBy(ChatHistory::getId, false)
+                .limit(maxCount);
+        // 反转列表，确保时间正序
+        return this.list(queryWrapper).reversed();
+    }
+
+    /**
+     * 将对话历史依次添加到会话记忆中
+     */
+    private int addToMemory(ChatMemory chatMemory, List<ChatHistory> chatHistories) {
+        List<ChatMessage> messages = new ArrayList<>();
+        for (ChatHistory chatHistory : chatHistories) {
+            if (chatHistory.getMessageType().equals(ChatHistoryMessageTypeEnum.USER.getValue())) {
+                messages.add(UserMessage.from(chatMessageCodec.decode(chatHistory)));
+            } else if (chatHistory.getMessageType().equals(ChatHistoryMessageTypeEnum.AI.getValue())) {
+                messages.add(AiMessage.from(chatMessageCodec.decode(chatHistory)));
+            }
+        }
+        // 一次性添加，记忆只读写一次存储
+        if (!messages.isEmpty()) {
+            chatMemory.add(messages);
+        }
+        return messages.size();
+    }
+
 
 }
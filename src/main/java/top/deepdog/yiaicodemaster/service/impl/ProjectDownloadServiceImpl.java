@@ -1,21 +1,55 @@
 package top.deepdog.yiaicodemaster.service.impl;
 
+import cn.hutool.core.util.HexUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.core.util.ZipUtil;
-import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import top.deepdog.yiaicodemaster.constant.AppConstant;
 import top.deepdog.yiaicodemaster.exception.BusinessException;
 import top.deepdog.yiaicodemaster.exception.ErrorCode;
 import top.deepdog.yiaicodemaster.exception.ThrowUtils;
 import top.deepdog.yiaicodemaster.service.ProjectDownloadService;
+import top.deepdog.yiaicodemaster.utils.ContentTypeUtils;
+import top.deepdog.yiaicodemaster.utils.PrecompressUtils;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+/**
+ * 项目代码下载
+ * 压缩包按（项目目录, 文件指纹）缓存在磁盘上，代码未变化时重复下载直接返回已有压缩包
+ */
 @Service
 @Slf4j
 public class ProjectDownloadServiceImpl implements ProjectDownloadService {
@@ -33,7 +67,8 @@ public class ProjectDownloadServiceImpl implements ProjectDownloadService {
             "target",
             ".mvn",
             ".idea",
-            ".vscode"
+            ".vscode",
+            AppConstant.CODE_PREVIEW_DIR_NAME
     );
 
     /**
@@ -45,33 +80,50 @@ public class ProjectDownloadServiceImpl implements ProjectDownloadService {
             ".cache"
     );
 
+    private static final String ZIP_SUFFIX = ".zip";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     /**
-     * 检查路径是否允许包含在压缩包中
+     * 旧压缩包在最后一次使用后保留的时间
+     * 响应体（FileSystemResource）在返回后才打开文件，断点续传也会重新打开，不能在生成新压缩包时立即删除旧的
+     */
+    private static final Duration STALE_ZIP_RETENTION = Duration.ofMinutes(10);
+
+    /**
+     * 同一项目同时只生成一个压缩包
+     */
+    private final Map<String, Object> zipLocks = new ConcurrentHashMap<>();
+
+    /**
+     * 检查文件或目录名是否需要过滤
      *
-     * @param projectRoot 项目根目录
-     * @param fullPath    完整路径
-     * @return 是否允许
+     * @param name 文件或目录名
+     * @return 是否过滤
      */
-    private boolean isPathAllowed(Path projectRoot, Path fullPath) {
-        // 获取相对路径
-        Path relativePath = projectRoot.relativize(fullPath);
-        // 检查路径中的每一部分
-        for (Path part : relativePath) {
-            String partName = part.toString();
-            // 检查是否在忽略名称列表中
-            if (IGNORED_NAMES.contains(partName)) {
-                return false;
-            }
-            // 检查文件扩展名
-            if (IGNORED_EXTENSIONS.stream().anyMatch(partName::endsWith)) {
-                return false;
+    private boolean isIgnored(String name) {
+        if (IGNORED_NAMES.contains(name)) {
+            return true;
+        }
+        for (String extension : IGNORED_EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                return true;
             }
         }
-        return true;
+        return false;
+    }
+
+    /**
+     * 静态服务生成的预压缩文件（与原文件同名加 .gz 后缀）不打包
+     */
+    private boolean isPrecompressed(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(PrecompressUtils.GZIP_SUFFIX)
+                && Files.isRegularFile(file.resolveSibling(name.substring(0, name.length() - PrecompressUtils.GZIP_SUFFIX.length())));
     }
 
     @Override
-    public void downloadProjectAsZip(String projectPath, String downloadFileName, HttpServletResponse response) {
+    public ResponseEntity<Resource> downloadProjectAsZip(String projectPath, String downloadFileName) {
         // 基础校验
         ThrowUtils.throwIf(StrUtil.isBlank(projectPath), ErrorCode.PARAMS_ERROR, "项目路径不能为空");
         ThrowUtils.throwIf(StrUtil.isBlank(downloadFileName), ErrorCode.PARAMS_ERROR, "下载文件名不能为空");
@@ -79,21 +131,154 @@ public class ProjectDownloadServiceImpl implements ProjectDownloadService {
         ThrowUtils.throwIf(!projectDir.exists(), ErrorCode.NOT_FOUND_ERROR, "项目目录不存在");
         ThrowUtils.throwIf(!projectDir.isDirectory(), ErrorCode.PARAMS_ERROR, "指定路径不是目录");
         log.info("开始打包下载项目: {} -> {}.zip", projectPath, downloadFileName);
-        // 设置 HTTP 响应头
-        response.setStatus(HttpServletResponse.SC_OK);
-        response.setContentType("application/zip");
-        response.addHeader("Content-Disposition",
-                String.format("attachment; filename=\"%s.zip\"", downloadFileName));
-        // 定义文件过滤器
-        FileFilter filter = file -> isPathAllowed(projectDir.toPath(), file.toPath());
+        File zipFile;
+        String fingerprint;
         try {
-            // 使用 Hutool 的 ZipUtil 直接将过滤后的目录压缩到响应输出流
-            ZipUtil.zip(response.getOutputStream(), StandardCharsets.UTF_8, false, filter, projectDir);
-            log.info("项目打包下载完成: {}", downloadFileName);
-        } catch (Exception e) {
+            List<ProjectFile> files = collectFiles(projectDir.toPath());
+            fingerprint = fingerprint(files);
+            zipFile = getOrCreateZip(projectDir.getName(), files, fingerprint);
+        } catch (IOException e) {
             log.error("项目打包下载异常", e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "项目打包下载失败");
         }
+        log.info("项目打包完成: {}，{} 字节", downloadFileName, zipFile.length());
+        // Content-Length 和 Range 由 Spring 根据文件资源处理
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        String.format("attachment; filename=\"%s.zip\"", downloadFileName))
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .eTag("\"" + fingerprint + "\"")
+                .body(new FileSystemResource(zipFile));
+    }
+
+    /**
+     * 遍历项目文件，过滤的目录在进入前整体跳过，不再遍历其中的文件
+     *
+     * @return 按相对路径排序的文件
+     */
+    private List<ProjectFile> collectFiles(Path projectRoot) throws IOException {
+        List<ProjectFile> files = new ArrayList<>();
+        Files.walkFileTree(projectRoot, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(projectRoot) && isIgnored(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && !isIgnored(file.getFileName().toString()) && !isPrecompressed(file)) {
+                    String relativePath = projectRoot.relativize(file).toString().replace('\\', '/');
+                    files.add(new ProjectFile(file, relativePath, attrs.size(), attrs.lastModifiedTime().toMillis()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        files.sort(Comparator.comparing(ProjectFile::relativePath));
+        return files;
+    }
+
+    /**
+     * 文件指纹：相对路径、大小和修改时间的 SHA-256，不读取文件内容
+     */
+    private String fingerprint(List<ProjectFile> files) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持 SHA-256");
+        }
+        ByteBuffer numbers = ByteBuffer.allocate(Long.BYTES * 2);
+        for (ProjectFile file : files) {
+            digest.update(file.relativePath().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            numbers.clear();
+            numbers.putLong(file.size()).putLong(file.lastModified());
+            digest.update(numbers.array());
+        }
+        return HexUtil.encodeHexStr(digest.digest()).substring(0, 32);
+    }
+
+    /**
+     * 获取缓存的压缩包，不存在时生成，并删除该项目超过保留时间未使用的旧压缩包
+     * 压缩包的修改时间记录最后一次使用的时间
+     */
+    private File getOrCreateZip(String projectName, List<ProjectFile> files, String fingerprint) throws IOException {
+        Path cacheDir = Paths.get(AppConstant.CODE_DOWNLOAD_CACHE_ROOT_DIR, projectName);
+        Path zipPath = cacheDir.resolve(fingerprint + ZIP_SUFFIX);
+        synchronized (zipLocks.computeIfAbsent(projectName, key -> new Object())) {
+            if (Files.isRegularFile(zipPath)) {
+                Files.setLastModifiedTime(zipPath, FileTime.fromMillis(System.currentTimeMillis()));
+            } else {
+                Files.createDirectories(cacheDir);
+                Path tempPath = Files.createTempFile(cacheDir, fingerprint, ".tmp");
+                try {
+                    writeZip(files, tempPath);
+                    Files.move(tempPath, zipPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(tempPath);
+                }
+            }
+            deleteStaleZips(cacheDir, zipPath);
+            return zipPath.toFile();
+        }
+    }
+
+    private void deleteStaleZips(Path cacheDir, Path currentZipPath) throws IOException {
+        long expireBefore = System.currentTimeMillis() - STALE_ZIP_RETENTION.toMillis();
+        try (Stream<Path> stream = Files.list(cacheDir)) {
+            for (Path path : stream.filter(path -> !path.equals(currentZipPath)
+                    && path.getFileName().toString().endsWith(ZIP_SUFFIX)).toList()) {
+                try {
+                    if (Files.getLastModifiedTime(path).toMillis() < expireBefore) {
+                        Files.deleteIfExists(path);
+                    }
+                } catch (NoSuchFileException e) {
+                    // 已被删除
+                }
+            }
+        }
+    }
+
+    /**
+     * 写入压缩包，图片、字体等本身已压缩的文件直接存储
+     */
+    private void writeZip(List<ProjectFile> files, Path zipPath) throws IOException {
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(zipPath), BUFFER_SIZE), StandardCharsets.UTF_8)) {
+            for (ProjectFile file : files) {
+                ZipEntry entry = new ZipEntry(file.relativePath());
+                entry.setTime(file.lastModified());
+                if (ContentTypeUtils.isAlreadyCompressed(file.relativePath())) {
+                    // STORED 条目需要预先写入大小和 CRC
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(file.size());
+                    entry.setCompressedSize(file.size());
+                    entry.setCrc(crc32(file.path()));
+                }
+                zipOutputStream.putNextEntry(entry);
+                Files.copy(file.path(), zipOutputStream);
+                zipOutputStream.closeEntry();
+            }
+        }
+    }
+
+    private static long crc32(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private record ProjectFile(Path path, String relativePath, long size, long lastModified) {
     }
 
 }
@@ -1,66 +1,121 @@
 package top.deepdog.yiaicodemaster.service.impl;
 
-import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.StrUtil;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
 import org.springframework.stereotype.Service;
+import top.deepdog.yiaicodemaster.config.ScreenshotConfig;
+import top.deepdog.yiaicodemaster.core.screenshot.BrowserPool;
 import top.deepdog.yiaicodemaster.exception.ErrorCode;
 import top.deepdog.yiaicodemaster.exception.ThrowUtils;
 import top.deepdog.yiaicodemaster.manager.CosManager;
 import top.deepdog.yiaicodemaster.service.ScreenshotService;
 import top.deepdog.yiaicodemaster.utils.WebScreenshotUtils;
 
-import java.io.File;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Slf4j
 public class ScreenshotServiceImpl implements ScreenshotService {
 
+    /**
+     * 内容哈希到截图URL的缓存
+     */
+    private static final String SCREENSHOT_CACHE_KEY_PREFIX = "screenshot:content:";
+
+    private static final Duration SCREENSHOT_CACHE_TTL = Duration.ofDays(30);
+
+    private static final String SCREENSHOT_CONTENT_TYPE = "image/jpeg";
+
+    /**
+     * 正在截图的内容，相同内容的并发请求共享同一次截图
+     */
+    private final Map<String, CompletableFuture<String>> inFlightScreenshots = new ConcurrentHashMap<>();
+
+    @Resource
+    private RedissonClient redissonClient;
+
     @Resource
     private CosManager cosManager;
 
+    @Resource
+    private BrowserPool browserPool;
+
+    @Resource
+    private ScreenshotConfig screenshotConfig;
+
     @Override
     public String generateAndUploadScreenshot(String webUrl) {
         ThrowUtils.throwIf(StrUtil.isBlank(webUrl), ErrorCode.PARAMS_ERROR, "网页URL不能为空");
         log.info("开始生成网页截图，URL: {}", webUrl);
-        // 1. 生成本地截图
-        String localScreenshotPath = WebScreenshotUtils.saveWebPageScreenshot(webUrl);
-        ThrowUtils.throwIf(StrUtil.isBlank(localScreenshotPath), ErrorCode.OPERATION_ERROR, "本地截图生成失败");
+        // 1. 在内存中生成截图缩略图
+        byte[] screenshotBytes = browserPool.execute(
+                webDriver -> WebScreenshotUtils.captureWebPageScreenshot(webDriver, webUrl, screenshotConfig));
+        ThrowUtils.throwIf(screenshotBytes == null, ErrorCode.OPERATION_ERROR, "截图生成失败");
+        // 2. 直接上传到对象存储
+        String fileName = UUID.randomUUID().toString().substring(0, 8) + "_compressed.jpg";
+        String cosUrl = cosManager.uploadBytes(generateScreenshotKey(fileName), screenshotBytes, SCREENSHOT_CONTENT_TYPE);
+        ThrowUtils.throwIf(StrUtil.isBlank(cosUrl), ErrorCode.OPERATION_ERROR, "截图上传对象存储失败");
+        log.info("网页截图生成并上传成功: {} -> {}", webUrl, cosUrl);
+        return cosUrl;
+    }
+
+    @Override
+    public String getOrGenerateScreenshot(String webUrl, String contentHash) {
+        ThrowUtils.throwIf(StrUtil.isBlank(contentHash), ErrorCode.PARAMS_ERROR, "内容哈希不能为空");
+        RBucket<String> bucket = redissonClient.getBucket(SCREENSHOT_CACHE_KEY_PREFIX + contentHash, StringCodec.INSTANCE);
+        String cachedUrl = getCachedUrl(bucket);
+        if (StrUtil.isNotBlank(cachedUrl)) {
+            log.info("内容未变化，复用已有截图: {} -> {}", webUrl, cachedUrl);
+            return cachedUrl;
+        }
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> inFlight = inFlightScreenshots.putIfAbsent(contentHash, future);
+        if (inFlight != null) {
+            log.info("相同内容正在截图，等待结果: {}", webUrl);
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
         try {
-            // 2. 上传到对象存储
-            String cosUrl = uploadScreenshotToCos(localScreenshotPath);
-            ThrowUtils.throwIf(StrUtil.isBlank(cosUrl), ErrorCode.OPERATION_ERROR, "截图上传对象存储失败");
-            log.info("网页截图生成并上传成功: {} -> {}", webUrl, cosUrl);
+            String cosUrl = generateAndUploadScreenshot(webUrl);
+            try {
+                bucket.set(cosUrl, SCREENSHOT_CACHE_TTL);
+            } catch (Exception e) {
+                log.warn("缓存截图URL失败: {}", e.getMessage());
+            }
+            future.complete(cosUrl);
             return cosUrl;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
         } finally {
-            // 3. 清理本地文件
-            cleanupLocalFile(localScreenshotPath);
+            inFlightScreenshots.remove(contentHash, future);
         }
     }
 
     /**
-     * 上传截图到对象存储
-     *
-     * @param localScreenshotPath 本地截图路径
-     * @return 对象存储访问URL，失败返回null
+     * 读取缓存的截图URL，缓存不可用时视为未命中
      */
-    private String uploadScreenshotToCos(String localScreenshotPath) {
-        if (StrUtil.isBlank(localScreenshotPath)) {
-            return null;
-        }
-        File screenshotFile = new File(localScreenshotPath);
-        if (!screenshotFile.exists()) {
-            log.error("截图文件不存在: {}", localScreenshotPath);
+    private String getCachedUrl(RBucket<String> bucket) {
+        try {
+            return bucket.get();
+        } catch (Exception e) {
+            log.warn("读取截图缓存失败: {}", e.getMessage());
             return null;
         }
-        // 生成 COS 对象键
-        String fileName = UUID.randomUUID().toString().substring(0, 8) + "_compressed.jpg";
-        String cosKey = generateScreenshotKey(fileName);
-        return cosManager.uploadFile(cosKey, screenshotFile);
     }
 
     /**
@@ -71,18 +126,4 @@ public class ScreenshotServiceImpl implements ScreenshotService {
         String datePath = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
         return String.format("/screenshots/%s/%s", datePath, fileName);
     }
-
-    /**
-     * 清理本地文件
-     *
-     * @param localFilePath 本地文件路径
-     */
-    private void cleanupLocalFile(String localFilePath) {
-        File localFile = new File(localFilePath);
-        if (localFile.exists()) {
-            File parentDir = localFile.getParentFile();
-            FileUtil.del(parentDir);
-            log.info("本地截图文件已清理: {}", localFilePath);
-        }
-    }
 }
@@ -0,0 +1,68 @@
+package top.deepdog.yiaicodemaster.utils;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.HexUtil;
+import top.deepdog.yiaicodemaster.exception.BusinessException;
+import top.deepdog.yiaicodemaster.exception.ErrorCode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 内容哈希工具类
+ * 目录的哈希只取决于其中文件的相对路径和内容，与修改时间、所在位置无关
+ */
+public class ContentHashUtils {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 计算目录内容的 SHA-256
+     *
+     * @param dir 目录
+     * @return 十六进制哈希
+     */
+    public static String hashDirectory(File dir) {
+        MessageDigest digest = newDigest();
+        String rootPath = dir.getAbsolutePath();
+        List<File> files = FileUtil.loopFiles(dir).stream()
+                .sorted(Comparator.comparing(file -> relativePath(rootPath, file)))
+                .toList();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (File file : files) {
+            // 路径和长度作为分隔，避免不同的文件划分得到相同的字节序列
+            digest.update(relativePath(rootPath, file).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(ByteBuffer.allocate(Long.BYTES).putLong(file.length()).array());
+            try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "读取文件失败：" + e.getMessage());
+            }
+        }
+        return HexUtil.encodeHexStr(digest.digest());
+    }
+
+    private static String relativePath(String rootPath, File file) {
+        return file.getAbsolutePath().substring(rootPath.length()).replace('\\', '/');
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持 SHA-256");
+        }
+    }
+}
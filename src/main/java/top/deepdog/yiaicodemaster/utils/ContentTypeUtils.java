@@ -0,0 +1,87 @@
+package top.deepdog.yiaicodemaster.utils;
+
+import cn.hutool.core.io.FileUtil;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 静态文件内容类型工具类
+ */
+public class ContentTypeUtils {
+
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    /**
+     * 扩展名到内容类型的映射，文本类型带 UTF-8 编码
+     */
+    private static final Map<String, String> CONTENT_TYPES = Map.ofEntries(
+            Map.entry("html", "text/html; charset=UTF-8"),
+            Map.entry("htm", "text/html; charset=UTF-8"),
+            Map.entry("css", "text/css; charset=UTF-8"),
+            Map.entry("js", "application/javascript; charset=UTF-8"),
+            Map.entry("mjs", "application/javascript; charset=UTF-8"),
+            Map.entry("json", "application/json; charset=UTF-8"),
+            Map.entry("map", "application/json; charset=UTF-8"),
+            Map.entry("webmanifest", "application/manifest+json; charset=UTF-8"),
+            Map.entry("txt", "text/plain; charset=UTF-8"),
+            Map.entry("md", "text/markdown; charset=UTF-8"),
+            Map.entry("xml", "application/xml; charset=UTF-8"),
+            Map.entry("svg", "image/svg+xml; charset=UTF-8"),
+            Map.entry("png", "image/png"),
+            Map.entry("jpg", "image/jpeg"),
+            Map.entry("jpeg", "image/jpeg"),
+            Map.entry("gif", "image/gif"),
+            Map.entry("webp", "image/webp"),
+            Map.entry("avif", "image/avif"),
+            Map.entry("ico", "image/x-icon"),
+            Map.entry("woff", "font/woff"),
+            Map.entry("woff2", "font/woff2"),
+            Map.entry("ttf", "font/ttf"),
+            Map.entry("otf", "font/otf"),
+            Map.entry("wasm", "application/wasm"),
+            Map.entry("mp4", "video/mp4"),
+            Map.entry("webm", "video/webm"),
+            Map.entry("mp3", "audio/mpeg"),
+            Map.entry("pdf", "application/pdf")
+    );
+
+    /**
+     * 值得压缩的文本类扩展名（图片、字体、音视频本身已压缩）
+     */
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = Set.of(
+            "html", "htm", "css", "js", "mjs", "json", "map", "webmanifest", "txt", "md", "xml", "svg", "wasm", "ttf", "otf");
+
+    /**
+     * 本身已压缩的格式，打包时再压缩没有收益
+     */
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "png", "jpg", "jpeg", "gif", "webp", "avif", "woff", "woff2", "mp4", "webm", "mp3",
+            "zip", "gz", "br", "7z", "rar", "jar");
+
+    /**
+     * 根据文件名获取内容类型
+     */
+    public static String getContentType(String fileName) {
+        return CONTENT_TYPES.getOrDefault(extension(fileName), DEFAULT_CONTENT_TYPE);
+    }
+
+    /**
+     * 是否值得压缩
+     */
+    public static boolean isCompressible(String fileName) {
+        return COMPRESSIBLE_EXTENSIONS.contains(extension(fileName));
+    }
+
+    /**
+     * 是否本身已是压缩格式
+     */
+    public static boolean isAlreadyCompressed(String fileName) {
+        return COMPRESSED_EXTENSIONS.contains(extension(fileName));
+    }
+
+    private static String extension(String fileName) {
+        String suffix = FileUtil.getSuffix(fileName);
+        return suffix == null ? "" : suffix.toLowerCase();
+    }
+}
@@ -0,0 +1,95 @@
+package top.deepdog.yiaicodemaster.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 静态文件预压缩工具类
+ * 为文本类文件生成同目录的 .gz 文件，静态服务按 Accept-Encoding 直接返回，无需每次请求压缩。
+ * 生成目录（code_output）在保存代码和构建完成后生成，部署目录（code_deploy）在部署时生成
+ */
+@Slf4j
+public class PrecompressUtils {
+
+    public static final String GZIP_SUFFIX = ".gz";
+
+    public static final String BROTLI_SUFFIX = ".br";
+
+    /**
+     * 小于该大小的文件压缩收益不明显
+     */
+    private static final long MIN_COMPRESS_SIZE = 1024;
+
+    /**
+     * 生成 .gz 文件，不值得压缩或压缩后没有变小时不生成
+     *
+     * @param file 原文件
+     * @return 是否生成
+     */
+    public static boolean precompress(Path file) {
+        String fileName = file.getFileName().toString();
+        try {
+            if (!ContentTypeUtils.isCompressible(fileName) || Files.size(file) < MIN_COMPRESS_SIZE) {
+                return false;
+            }
+            Path gzipFile = file.resolveSibling(fileName + GZIP_SUFFIX);
+            Path tempFile = file.resolveSibling(fileName + GZIP_SUFFIX + ".tmp");
+            try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(tempFile)) {
+                {
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            }) {
+                Files.copy(file, outputStream);
+            }
+            if (Files.size(tempFile) >= Files.size(file)) {
+                Files.delete(tempFile);
+                return false;
+            }
+            // 压缩文件的修改时间与原文件一致，便于判断是否过期
+            Files.setLastModifiedTime(tempFile, Files.getLastModifiedTime(file));
+            Files.move(tempFile, gzipFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            log.warn("预压缩文件失败: {}, {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 为目录下所有文件生成 .gz 文件，已有不早于原文件的 .gz 时跳过
+     *
+     * @param dir 目录
+     * @return 生成的文件数
+     */
+    public static int precompressDirectory(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        int count = 0;
+        try (Stream<Path> stream = Files.walk(dir)) {
+            List<Path> files = stream.filter(Files::isRegularFile).toList();
+            for (Path file : files) {
+                Path gzipFile = file.resolveSibling(file.getFileName() + GZIP_SUFFIX);
+                if (Files.exists(gzipFile)
+                        && Files.getLastModifiedTime(gzipFile).compareTo(Files.getLastModifiedTime(file)) >= 0) {
+                    continue;
+                }
+                if (precompress(file)) {
+                    count++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("预压缩目录失败: {}, {}", dir, e.getMessage());
+        }
+        return count;
+    }
+}
@@ -1,11 +1,9 @@
 package top.deepdog.yiaicodemaster.utils;
 
+import cn.hutool.core.img.Img;
 import cn.hutool.core.img.ImgUtil;
-import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
 import io.github.bonigarcia.wdm.WebDriverManager;
-import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.OutputType;
@@ -14,36 +12,73 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.support.ui.WebDriverWait;
+import top.deepdog.yiaicodemaster.config.ScreenshotConfig;
 import top.deepdog.yiaicodemaster.exception.BusinessException;
 import top.deepdog.yiaicodemaster.exception.ErrorCode;
+import top.deepdog.yiaicodemaster.model.enums.PageReadinessStrategyEnum;
 
-import java.io.File;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.time.Duration;
-import java.util.UUID;
 
 @Slf4j
 public class WebScreenshotUtils {
 
-    private static final WebDriver webDriver;
-
-    static {
-        final int DEFAULT_WIDTH = 1600;
-        final int DEFAULT_HEIGHT = 900;
-        webDriver = initChromeDriver(DEFAULT_WIDTH, DEFAULT_HEIGHT);
-    }
+    /**
+     * 页面就绪检测脚本，参数：策略、静默时间、超时时间、回调
+     * network_idle：资源请求数不再增加，且图片和字体都已加载，持续静默时间
+     * dom_quiet：MutationObserver 在静默时间内没有观察到 DOM 变化
+     */
+    private static final String READINESS_SCRIPT = """
+            const [strategy, quietMillis, timeoutMillis, done] = arguments;
+            const start = Date.now();
+            let lastChange = start;
+            let lastResourceCount = -1;
+            let observer = null;
+            if (strategy === 'dom_quiet') {
+                observer = new MutationObserver(() => lastChange = Date.now());
+                observer.observe(document, {subtree: true, childList: true, attributes: true, characterData: true});
+            }
+            const check = () => {
+                const now = Date.now();
+                if (strategy === 'network_idle') {
+                    const resourceCount = performance.getEntriesByType('resource').length;
+                    const pending = Array.from(document.images).some(img => !img.complete)
+                        || (document.fonts && document.fonts.status !== 'loaded');
+                    if (pending || resourceCount !== lastResourceCount) {
+                        lastResourceCount = resourceCount;
+                        lastChange = now;
+                    }
+                }
+                if (now - lastChange >= quietMillis || now - start >= timeoutMillis) {
+                    if (observer) {
+                        observer.disconnect();
+                    }
+                    done(now - start);
+                    return;
+                }
+                setTimeout(check, 50);
+            };
+            check();
+            """;
 
-    @PreDestroy
-    public void destroy() {
-        webDriver.quit();
-    }
+    /**
+     * ChromeDriver 是否已完成下载和配置
+     */
+    private static volatile boolean driverSetup;
 
     /**
-     * 初始化 Chrome 浏览器驱动
+     * 创建 Chrome 浏览器驱动（由浏览器池在首次使用时调用）
+     *
+     * @param width  窗口宽度
+     * @param height 窗口高度
+     * @return 浏览器驱动
      */
-    private static WebDriver initChromeDriver(int width, int height) {
+    public static WebDriver createChromeDriver(int width, int height) {
         try {
-            // 自动管理 ChromeDriver
-            WebDriverManager.chromedriver().setup();
+            // 自动管理 ChromeDriver，只需配置一次
+            setupChromeDriver();
             // 配置 Chrome 选项
             ChromeOptions options = new ChromeOptions();
             // 无头模式
@@ -73,44 +108,38 @@ public class WebScreenshotUtils {
         }
     }
 
+    private static synchronized void setupChromeDriver() {
+        if (!driverSetup) {
+            WebDriverManager.chromedriver().setup();
+            driverSetup = true;
+        }
+    }
+
     /**
-     * 生成网页截图
+     * 生成网页截图，截图、缩放和 JPEG 编码都在内存中完成
      *
-     * @param webUrl 网页URL
-     * @return 压缩后的截图文件路径，失败则返回 null
+     * @param webDriver        浏览器驱动（从浏览器池借用）
+     * @param webUrl           网页URL
+     * @param screenshotConfig 截图配置（页面就绪策略、缩略图尺寸和质量）
+     * @return 缩略图 JPEG 字节，失败则返回 null
      */
-    public static String saveWebPageScreenshot(String webUrl) {
+    public static byte[] captureWebPageScreenshot(WebDriver webDriver, String webUrl, ScreenshotConfig screenshotConfig) {
         if (StrUtil.isBlank(webUrl)) {
             log.error("网页URL不能为空");
             return null;
         }
         try {
-            // 创建临时目录
-            String rootPath = System.getProperty("user.dir") + File.separator + "tmp" + File.separator + "screenshots"
-                    + File.separator + UUID.randomUUID().toString().substring(0, 8);
-            FileUtil.mkdir(rootPath);
-            // 图片后缀
-            final String IMAGE_SUFFIX = ".png";
-            // 原始截图文件路径
-            String originalImagePath = rootPath + File.separator + RandomUtil.randomNumbers(5) + IMAGE_SUFFIX;
             // 访问网页
             webDriver.get(webUrl);
             // 等待页面加载完成
-            waitForPageLoad(webDriver);
+            waitForPageLoad(webDriver, screenshotConfig);
             // 截图
             byte[] screenshotBytes = ((TakesScreenshot) webDriver).getScreenshotAs(OutputType.BYTES);
-            // 保存原始图片
-            saveImage(screenshotBytes, originalImagePath);
-            log.info("原始图片保存成功: {}", originalImagePath);
-            // 压缩图片
-            final String COMPRESSED_IMAGE_SUFFIX = "_compressed.jpg";
-            String compressedImagePath = rootPath + File.separator + RandomUtil.randomNumbers(5) + COMPRESSED_IMAGE_SUFFIX;
-            compressImage(originalImagePath, compressedImagePath);
-            log.info("压缩图片保存成功: {}", compressedImagePath);
-            // 删除原始图片
-            FileUtil.del(originalImagePath);
-            // 返回压缩图片路径
-            return compressedImagePath;
+            // 缩放为缩略图并编码为 JPEG
+            byte[] thumbnailBytes = createThumbnail(screenshotBytes, screenshotConfig);
+            log.info("网页截图生成成功: {}，原图 {} KB，缩略图 {} KB", webUrl,
+                    screenshotBytes.length / 1024, thumbnailBytes.length / 1024);
+            return thumbnailBytes;
         } catch (Exception e) {
             log.error("生成网页截图失败: {}", webUrl, e);
             return null;
@@ -118,39 +147,30 @@ public class WebScreenshotUtils {
     }
 
     /**
-     * 保存图片到文件
-     */
-    private static void saveImage(byte[] imageBytes, String imagePath) {
-        try {
-            FileUtil.writeBytes(imageBytes, imagePath);
-        } catch (Exception e) {
-            log.error("保存图片失败: {}", imagePath, e);
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存图片失败");
-        }
-    }
-
-    /**
-     * 压缩图片
+     * 按目标宽度等比缩放截图并编码为 JPEG
      */
-    private static void compressImage(String originalImagePath, String compressedImagePath) {
-        // 压缩图片质量（0.1 = 10% 质量）
-        final float COMPRESSION_QUALITY = 0.3f;
+    private static byte[] createThumbnail(byte[] screenshotBytes, ScreenshotConfig screenshotConfig) {
         try {
-            ImgUtil.compress(
-                    FileUtil.file(originalImagePath),
-                    FileUtil.file(compressedImagePath),
-                    COMPRESSION_QUALITY
-            );
+            BufferedImage screenshot = ImgUtil.read(new ByteArrayInputStream(screenshotBytes));
+            float scale = Math.min(1f, (float) screenshotConfig.getThumbnailWidth() / screenshot.getWidth());
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(screenshotBytes.length / 4);
+            Img.from(screenshot)
+                    .setTargetImageType(ImgUtil.IMAGE_TYPE_JPG)
+                    .setQuality(screenshotConfig.getThumbnailQuality())
+                    .scale(scale)
+                    .write(outputStream);
+            return outputStream.toByteArray();
         } catch (Exception e) {
-            log.error("压缩图片失败: {} -> {}", originalImagePath, compressedImagePath, e);
+            log.error("压缩图片失败", e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "压缩图片失败");
         }
     }
 
     /**
      * 等待页面加载完成
+     * 先等待 document.readyState 为 complete，再按就绪策略等待动态内容，超过上限时直接截图
      */
-    private static void waitForPageLoad(WebDriver driver) {
+    private static void waitForPageLoad(WebDriver driver, ScreenshotConfig screenshotConfig) {
         try {
             // 创建等待页面加载对象
             WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
@@ -159,9 +179,17 @@ public class WebScreenshotUtils {
                     ((JavascriptExecutor) webDriver).executeScript("return document.readyState")
                             .equals("complete")
             );
-            // 额外等待一段时间，确保动态内容加载完成
-            Thread.sleep(2000);
-            log.info("页面加载完成");
+            PageReadinessStrategyEnum strategy = PageReadinessStrategyEnum.getEnumByValue(screenshotConfig.getReadinessStrategy());
+            if (strategy == null || strategy == PageReadinessStrategyEnum.NONE) {
+                log.info("页面加载完成");
+                return;
+            }
+            long timeoutMillis = screenshotConfig.getReadinessTimeoutMillis();
+            // 脚本自身在超时时返回，驱动的脚本超时留出余量
+            driver.manage().timeouts().scriptTimeout(Duration.ofMillis(timeoutMillis + 1000));
+            Object waitedMillis = ((JavascriptExecutor) driver).executeAsyncScript(
+                    READINESS_SCRIPT, strategy.getValue(), screenshotConfig.getReadinessQuietMillis(), timeoutMillis);
+            log.info("页面加载完成，就绪等待 {} ms", waitedMillis);
         } catch (Exception e) {
             log.error("等待页面加载时出现异常，继续执行截图", e);
         }
@@ -0,0 +1,249 @@
+package dev.langchain4j.model.openai;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.internal.chat.ChatCompletionChoice;
+import dev.langchain4j.model.openai.internal.chat.ChatCompletionResponse;
+import dev.langchain4j.model.openai.internal.chat.Delta;
+import dev.langchain4j.model.openai.internal.chat.FunctionCall;
+import dev.langchain4j.model.openai.internal.chat.ToolCall;
+import dev.langchain4j.model.openai.internal.chat.ToolType;
+import dev.langchain4j.model.output.FinishReason;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static dev.langchain4j.model.openai.internal.OpenAiUtils.finishReasonFrom;
+
+/**
+ * Compares the single-writer builder with the previous synchronized one on a 10k-delta stream.
+ * <p>
+ * The stream replays the shape of a recorded code generation: one role chunk, 1-8 character content deltas
+ * cut from generated Vue code, then a {@code writeFile} tool call whose arguments arrive in small pieces,
+ * and a final chunk with the finish reason. Run {@link #main} from the test classpath;
+ * the GC profiler reports allocation per operation next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenAiStreamingResponseBuilderBenchmark {
+
+    private static final String GENERATED_CODE = """
+            <template>
+              <div class="todo-app">
+                <h1>{{ title }}</h1>
+                <input v-model="draft" @keyup.enter="add" placeholder="写点什么..." />
+                <ul>
+                  <li v-for="item in items" :key="item.id" :class="{ done: item.done }">
+                    <input type="checkbox" v-model="item.done" />
+                    <span>{{ item.text }}</span>
+                  </li>
+                </ul>
+              </div>
+            </template>
+            """;
+
+    private static final int MAX_OUTPUT_TOKENS = 32_000;
+
+    @Param({"10000"})
+    public int deltas;
+
+    private List<ChatCompletionResponse> stream;
+
+    @Setup
+    public void setUp() {
+        stream = recordedStream(deltas);
+    }
+
+    @Benchmark
+    public ChatResponse singleWriter() {
+        OpenAiStreamingResponseBuilder builder = new OpenAiStreamingResponseBuilder(MAX_OUTPUT_TOKENS);
+        for (ChatCompletionResponse partialResponse : stream) {
+            builder.append(partialResponse);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public ChatResponse synchronizedBaseline() {
+        SynchronizedResponseBuilder builder = new SynchronizedResponseBuilder();
+        for (ChatCompletionResponse partialResponse : stream) {
+            builder.append(partialResponse);
+        }
+        return builder.build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OpenAiStreamingResponseBuilderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    /**
+     * Three quarters of the deltas are content, the rest are tool call argument pieces
+     */
+    static List<ChatCompletionResponse> recordedStream(int deltas) {
+        List<ChatCompletionResponse> stream = new ArrayList<>(deltas);
+        stream.add(ChatCompletionResponse.builder()
+                .id("chatcmpl-bench")
+                .created(1_722_000_000L)
+                .model("deepseek-chat")
+                .systemFingerprint("fp_bench")
+                .choices(List.of(ChatCompletionChoice.builder()
+                        .delta(Delta.builder().role("assistant").content("").build())
+                        .build()))
+                .build());
+        int contentDeltas = deltas * 3 / 4;
+        int position = 0;
+        for (int i = 1; i < contentDeltas; i++) {
+            int length = 1 + i % 8;
+            stream.add(chunk(Delta.builder().content(slice(position, length)).build()));
+            position += length;
+        }
+        ToolCall firstCall = ToolCall.builder()
+                .index(0)
+                .id("call_bench")
+                .type(ToolType.FUNCTION)
+                .function(FunctionCall.builder().name("writeFile").arguments("{\"relativeFilePath\":\"src/App.vue\",\"content\":\"").build())
+                .build();
+        stream.add(chunk(Delta.builder().toolCalls(List.of(firstCall)).build()));
+        for (int i = contentDeltas + 1; i < deltas - 1; i++) {
+            int length = 1 + i % 8;
+            ToolCall toolCall = ToolCall.builder()
+                    .index(0)
+                    .function(FunctionCall.builder().arguments(slice(position, length).replace("\"", "\\\"")).build())
+                    .build();
+            stream.add(chunk(Delta.builder().toolCalls(List.of(toolCall)).build()));
+            position += length;
+        }
+        stream.add(ChatCompletionResponse.builder()
+                .choices(List.of(ChatCompletionChoice.builder().finishReason("tool_calls").build()))
+                .build());
+        return stream;
+    }
+
+    private static String slice(int position, int length) {
+        int start = position % GENERATED_CODE.length();
+        int end = Math.min(start + length, GENERATED_CODE.length());
+        return GENERATED_CODE.substring(start, end);
+    }
+
+    private static ChatCompletionResponse chunk(Delta delta) {
+        return ChatCompletionResponse.builder()
+                .id("chatcmpl-bench")
+                .model("deepseek-chat")
+                .choices(List.of(ChatCompletionChoice.builder().delta(delta).build()))
+                .build();
+    }
+
+    /**
+     * The previous builder, reduced to the chat completion path: every delta goes through
+     * {@link StringBuffer}s, {@link AtomicReference}s and a {@link ConcurrentHashMap}
+     */
+    static class SynchronizedResponseBuilder {
+
+        private final StringBuffer contentBuilder = new StringBuffer();
+
+        private final Map<Integer, ToolExecutionRequestBuilder> indexToToolExecutionRequestBuilder = new ConcurrentHashMap<>();
+
+        private final AtomicReference<String> id = new AtomicReference<>();
+        private final AtomicReference<Long> created = new AtomicReference<>();
+        private final AtomicReference<String> model = new AtomicReference<>();
+        private final AtomicReference<String> systemFingerprint = new AtomicReference<>();
+        private final AtomicReference<FinishReason> finishReason = new AtomicReference<>();
+
+        void append(ChatCompletionResponse partialResponse) {
+            if (partialResponse.id() != null && !partialResponse.id().isBlank()) {
+                id.set(partialResponse.id());
+            }
+            if (partialResponse.created() != null) {
+                created.set(partialResponse.created());
+            }
+            if (partialResponse.model() != null && !partialResponse.model().isBlank()) {
+                model.set(partialResponse.model());
+            }
+            if (partialResponse.systemFingerprint() != null && !partialResponse.systemFingerprint().isBlank()) {
+                systemFingerprint.set(partialResponse.systemFingerprint());
+            }
+            ChatCompletionChoice choice = partialResponse.choices().get(0);
+            if (choice.finishReason() != null) {
+                finishReason.set(finishReasonFrom(choice.finishReason()));
+            }
+            Delta delta = choice.delta();
+            if (delta == null) {
+                return;
+            }
+            if (delta.content() != null && !delta.content().isEmpty()) {
+                contentBuilder.append(delta.content());
+            }
+            if (delta.toolCalls() != null) {
+                for (ToolCall toolCall : delta.toolCalls()) {
+                    ToolExecutionRequestBuilder builder = indexToToolExecutionRequestBuilder.computeIfAbsent(
+                            toolCall.index(), idx -> new ToolExecutionRequestBuilder());
+                    if (toolCall.id() != null) {
+                        builder.idBuilder.append(toolCall.id());
+                    }
+                    if (toolCall.function().name() != null) {
+                        builder.nameBuilder.append(toolCall.function().name());
+                    }
+                    if (toolCall.function().arguments() != null) {
+                        builder.argumentsBuilder.append(toolCall.function().arguments());
+                    }
+                }
+            }
+        }
+
+        ChatResponse build() {
+            OpenAiChatResponseMetadata metadata = OpenAiChatResponseMetadata.builder()
+                    .id(id.get())
+                    .modelName(model.get())
+                    .finishReason(finishReason.get())
+                    .created(created.get())
+                    .systemFingerprint(systemFingerprint.get())
+                    .build();
+            String text = contentBuilder.toString();
+            List<ToolExecutionRequest> toolExecutionRequests = indexToToolExecutionRequestBuilder.values().stream()
+                    .map(it -> ToolExecutionRequest.builder()
+                            .id(it.idBuilder.toString())
+                            .name(it.nameBuilder.toString())
+                            .arguments(it.argumentsBuilder.toString())
+                            .build())
+                    .toList();
+            AiMessage aiMessage = text.isBlank()
+                    ? AiMessage.from(toolExecutionRequests)
+                    : AiMessage.from(text, toolExecutionRequests);
+            return ChatResponse.builder().aiMessage(aiMessage).metadata(metadata).build();
+        }
+
+        private static class ToolExecutionRequestBuilder {
+
+            private final StringBuffer idBuilder = new StringBuffer();
+            private final StringBuffer nameBuilder = new StringBuffer();
+            private final StringBuffer argumentsBuilder = new StringBuffer();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package dev.langchain4j.model.openai;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.internal.chat.ChatCompletionChoice;
+import dev.langchain4j.model.openai.internal.chat.ChatCompletionResponse;
+import dev.langchain4j.model.openai.internal.chat.Delta;
+import dev.langchain4j.model.openai.internal.chat.FunctionCall;
+import dev.langchain4j.model.openai.internal.chat.ToolCall;
+import dev.langchain4j.model.output.FinishReason;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAiStreamingResponseBuilderTest {
+
+    @Test
+    void toolCallArgumentsAreAssembledAcrossChunks() {
+        OpenAiStreamingResponseBuilder builder = new OpenAiStreamingResponseBuilder(32_000);
+        // two parallel tool calls whose arguments arrive interleaved; only the first chunk carries id and name
+        builder.append(toolCallChunk(0, "call_1", "writeFile", "{\"relativeFilePath\":"));
+        builder.append(toolCallChunk(1, "call_2", "readFile", "{\"relative"));
+        builder.append(toolCallChunk(0, null, null, "\"src/App.vue\",\"content\":\"<tem"));
+        builder.append(toolCallChunk(1, null, null, "FilePath\":\"package.json\"}"));
+        builder.append(toolCallChunk(0, null, null, "plate/>\"}"));
+        builder.append(ChatCompletionResponse.builder()
+                .choices(List.of(ChatCompletionChoice.builder().finishReason("tool_calls").build()))
+                .build());
+
+        ChatResponse response = builder.build();
+
+        AiMessage aiMessage = response.aiMessage();
+        assertNull(aiMessage.text());
+        List<ToolExecutionRequest> requests = aiMessage.toolExecutionRequests();
+        assertEquals(2, requests.size());
+        assertEquals("call_1", requests.get(0).id());
+        assertEquals("writeFile", requests.get(0).name());
+        assertEquals("{\"relativeFilePath\":\"src/App.vue\",\"content\":\"<template/>\"}", requests.get(0).arguments());
+        assertEquals("call_2", requests.get(1).id());
+        assertEquals("{\"relativeFilePath\":\"package.json\"}", requests.get(1).arguments());
+        assertEquals(FinishReason.TOOL_EXECUTION, response.finishReason());
+        // a tool-only turn never allocates the content buffer
+        assertNull(ReflectionTestUtils.getField(builder, "contentBuilder"));
+    }
+
+    @Test
+    void contentIsAssembledAcrossChunks() {
+        OpenAiStreamingResponseBuilder builder = new OpenAiStreamingResponseBuilder(4);
+        builder.append(contentChunk("你好，"));
+        builder.append(contentChunk("这是一段超过预估容量的回复"));
+
+        assertEquals("你好，这是一段超过预估容量的回复", builder.build().aiMessage().text());
+    }
+
+    @Test
+    void emptyResponseBuildsNull() {
+        assertNull(new OpenAiStreamingResponseBuilder().build());
+    }
+
+    private static ChatCompletionResponse toolCallChunk(int index, String id, String name, String arguments) {
+        ToolCall toolCall = ToolCall.builder()
+                .index(index)
+                .id(id)
+                .function(FunctionCall.builder().name(name).arguments(arguments).build())
+                .build();
+        return chunk(Delta.builder().toolCalls(List.of(toolCall)).build());
+    }
+
+    private static ChatCompletionResponse contentChunk(String content) {
+        return chunk(Delta.builder().content(content).build());
+    }
+
+    private static ChatCompletionResponse chunk(Delta delta) {
+        return ChatCompletionResponse.builder()
+                .choices(List.of(ChatCompletionChoice.builder().delta(delta).build()))
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+package top.deepdog.yiaicodemaster.ai.memory;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.deepdog.yiaicodemaster.ai.tools.BaseTool;
+import top.deepdog.yiaicodemaster.ai.tools.FileReadTool;
+import top.deepdog.yiaicodemaster.ai.tools.FileWriteTool;
+import top.deepdog.yiaicodemaster.ai.tools.ToolManager;
+import top.deepdog.yiaicodemaster.config.ChatMemoryConfig;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBudgetChatMemoryTest {
+
+    private ChatMemoryConfig config;
+
+    private TokenBudgetChatMemory chatMemory;
+
+    @BeforeEach
+    void setUp() {
+        config = new ChatMemoryConfig();
+        config.setMaxTokens(100_000);
+        config.setKeepRecentTurns(1);
+        config.setCompactThresholdChars(100);
+        ToolManager toolManager = new ToolManager();
+        ReflectionTestUtils.setField(toolManager, "tools", new BaseTool[]{new FileWriteTool(), new FileReadTool()});
+        toolManager.initTools();
+        chatMemory = new TokenBudgetChatMemory(1L, new InMemoryChatMemoryStore(), config, toolManager);
+    }
+
+    @Test
+    void oldToolCallsAreCollapsedIntoReferences() {
+        String content = "<template><div>hello</div></template>\n".repeat(20);
+        ToolExecutionRequest write = ToolExecutionRequest.builder()
+                .id("call-1")
+                .name("writeFile")
+                .arguments("{\"relativeFilePath\":\"src/App.vue\",\"content\":\"" + content.replace("\n", "\\n") + "\"}")
+                .build();
+        chatMemory.add(UserMessage.from("做一个页面"));
+        chatMemory.add(AiMessage.from(write));
+        chatMemory.add(ToolExecutionResultMessage.from(write, "文件写入成功：src/App.vue"));
+        chatMemory.add(AiMessage.from("完成"));
+        // 当前轮次保持原样
+        AiMessage current = (AiMessage) chatMemory.messages().get(1);
+        assertTrue(current.toolExecutionRequests().getFirst().arguments().contains("hello"));
+
+        chatMemory.add(UserMessage.from("改个颜色"));
+        AiMessage compacted = (AiMessage) chatMemory.messages().get(1);
+        String arguments = compacted.toolExecutionRequests().getFirst().arguments();
+        assertFalse(arguments.contains("hello"));
+        assertTrue(arguments.contains("[已写入文件 src/App.vue（"));
+        assertTrue(arguments.contains("src/App.vue"));
+        assertEquals("call-1", compacted.toolExecutionRequests().getFirst().id());
+    }
+
+    @Test
+    void oldTurnsAreSummarizedWhenOverBudget() {
+        config.setMaxTokens(200);
+        chatMemory.add(SystemMessage.from("你是前端工程师"));
+        for (int i = 0; i < 10; i++) {
+            chatMemory.add(UserMessage.from("需求" + i));
+            chatMemory.add(AiMessage.from("回复" + i + " " + "x".repeat(200)));
+        }
+        List<ChatMessage> messages = chatMemory.messages();
+        int tokens = messages.stream().mapToInt(TokenBudgetChatMemory::estimateTokens).sum();
+        assertTrue(tokens <= 200, "tokens: " + tokens);
+        SystemMessage systemMessage = (SystemMessage) messages.getFirst();
+        assertTrue(systemMessage.text().startsWith("你是前端工程师" + TokenBudgetChatMemory.SUMMARY_HEADER));
+        // 摘要也受预算限制，只保留最近被合并的轮次
+        assertTrue(systemMessage.text().contains("用户：需求8"));
+        assertFalse(systemMessage.text().contains("用户：需求0"));
+        assertEquals("需求9", ((UserMessage) messages.get(messages.size() - 2)).singleText());
+
+        // 相同的系统提示词不会覆盖摘要
+        chatMemory.add(SystemMessage.from("你是前端工程师"));
+        assertTrue(((SystemMessage) chatMemory.messages().getFirst()).text().contains("用户：需求8"));
+    }
+
+    @Test
+    void currentTurnIsAlwaysKept() {
+        config.setMaxTokens(10);
+        chatMemory.add(UserMessage.from("需求"));
+        chatMemory.add(AiMessage.from("y".repeat(1000)));
+        assertEquals(2, chatMemory.messages().size());
+    }
+}
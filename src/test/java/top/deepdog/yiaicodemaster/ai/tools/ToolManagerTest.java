@@ -0,0 +1,34 @@
+package top.deepdog.yiaicodemaster.ai.tools;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.service.tool.DefaultToolExecutor;
+import dev.langchain4j.service.tool.ReadOnlyToolExecutor;
+import dev.langchain4j.service.tool.ToolExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolManagerTest {
+
+    @Test
+    void readOnlyToolsAreMarked() {
+        ToolManager toolManager = new ToolManager();
+        ReflectionTestUtils.setField(toolManager, "tools",
+                new BaseTool[]{new FileReadTool(), new FileDirReadTool(), new FileWriteTool(), new FileDeleteTool()});
+        toolManager.initTools();
+
+        Map<String, ToolExecutor> executorsByName = new HashMap<>();
+        for (Map.Entry<ToolSpecification, ToolExecutor> entry : toolManager.getToolExecutors().entrySet()) {
+            executorsByName.put(entry.getKey().name(), entry.getValue());
+        }
+        assertEquals(4, executorsByName.size());
+        assertInstanceOf(ReadOnlyToolExecutor.class, executorsByName.get("readFile"));
+        assertInstanceOf(ReadOnlyToolExecutor.class, executorsByName.get("readDir"));
+        assertInstanceOf(DefaultToolExecutor.class, executorsByName.get("writeFile"));
+        assertInstanceOf(DefaultToolExecutor.class, executorsByName.get("deleteFile"));
+    }
+}
@@ -4,10 +4,13 @@ import jakarta.annotation.Resource;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import reactor.core.publisher.Flux;
+import top.deepdog.yiaicodemaster.ai.model.message.AiResponseMessage;
+import top.deepdog.yiaicodemaster.ai.model.message.StreamMessage;
 import top.deepdog.yiaicodemaster.model.enums.CodeGenTypeEnum;
 
 import java.io.File;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,25 +29,25 @@ class AiCodeGeneratorFacadeTest {
 
     @Test
     void generateAndSaveCodeStream() {
-        Flux<String> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream("做一个简单的任务记录网站",
+        Flux<StreamMessage> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream("做一个简单的任务记录网站",
                 CodeGenTypeEnum.MULTI_FILE, 1L);
-        List<String> result = codeStream.collectList().block();
+        List<StreamMessage> result = codeStream.collectList().block();
         assertNotNull(result);
-        String completeContent = String.join("", result);
+        String completeContent = result.stream()
+                .map(message -> ((AiResponseMessage) message).getData())
+                .collect(Collectors.joining());
         assertNotNull(completeContent);
     }
 
     @Test
     void generateVueProjectCodeStream() {
-        Flux<String> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(
+        Flux<StreamMessage> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(
                 "简单的任务记录网站，总代码量不超过 200 行",
                 CodeGenTypeEnum.VUE_PROJECT, 1L);
         // 阻塞等待所有数据收集完成
-        List<String> result = codeStream.collectList().block();
+        List<StreamMessage> result = codeStream.collectList().block();
         // 验证结果
         assertNotNull(result);
-        String completeContent = String.join("", result);
-        assertNotNull(result);
     }
 
 }
\ No newline at end of file
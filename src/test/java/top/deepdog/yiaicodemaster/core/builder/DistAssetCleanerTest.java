@@ -0,0 +1,40 @@
+package top.deepdog.yiaicodemaster.core.builder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistAssetCleanerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void unreferencedOldAssetsAreRemoved() throws Exception {
+        Path assets = Files.createDirectories(tempDir.resolve("assets"));
+        Files.writeString(tempDir.resolve("index.html"), "<script src=\"/assets/index-AAAAAAAA.js\"></script>");
+        Files.writeString(assets.resolve("index-AAAAAAAA.js"), "import(\"./About-BBBBBBBB.js\")");
+        Files.writeString(assets.resolve("About-BBBBBBBB.js"), "const logo = \"/assets/logo-CCCCCCCC.png\"");
+        Files.writeString(assets.resolve("logo-CCCCCCCC.png"), "png");
+        Files.writeString(assets.resolve("index-OLDOLDOL.js"), "old");
+        Files.writeString(assets.resolve("index-OLDOLDOL.js.gz"), "old");
+        Files.writeString(assets.resolve("index-NEWNEWNE.js"), "building");
+        long buildStartTime = System.currentTimeMillis() + 10_000;
+        // 正在进行的构建刚写入的文件不删除
+        Files.setLastModifiedTime(assets.resolve("index-NEWNEWNE.js"),
+                FileTime.fromMillis(buildStartTime + 1));
+
+        assertEquals(1, DistAssetCleaner.removeUnreferencedAssets(tempDir, buildStartTime));
+        assertTrue(Files.exists(assets.resolve("index-AAAAAAAA.js")));
+        assertTrue(Files.exists(assets.resolve("About-BBBBBBBB.js")));
+        assertTrue(Files.exists(assets.resolve("logo-CCCCCCCC.png")));
+        assertTrue(Files.exists(assets.resolve("index-NEWNEWNE.js")));
+        assertFalse(Files.exists(assets.resolve("index-OLDOLDOL.js")));
+        assertFalse(Files.exists(assets.resolve("index-OLDOLDOL.js.gz")));
+    }
+}
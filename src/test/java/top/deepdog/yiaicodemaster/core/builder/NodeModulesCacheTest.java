@@ -0,0 +1,90 @@
+package top.deepdog.yiaicodemaster.core.builder;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.deepdog.yiaicodemaster.config.VueBuildConfig;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeModulesCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private VueBuildConfig config;
+
+    private NodeModulesCache cache;
+
+    @BeforeEach
+    void setUp() {
+        config = new VueBuildConfig();
+        config.setNodeModulesCacheEnabled(true);
+        cache = new NodeModulesCache(tempDir.resolve("cache"));
+        ReflectionTestUtils.setField(cache, "vueBuildConfig", config);
+    }
+
+    @Test
+    void restoredProjectDoesNotWriteIntoCache() throws Exception {
+        File installed = createProject("a", "^3.5.0", true);
+        String cacheKey = cache.getCacheKey(installed);
+        cache.store(installed, cacheKey);
+
+        File restored = createProject("b", "^3.5.0", false);
+        assertTrue(cache.restore(restored, cache.getCacheKey(restored)));
+        Path nodeModules = restored.toPath().resolve("node_modules");
+        assertFalse(Files.isSymbolicLink(nodeModules));
+        assertEquals("module.exports = 'vue'", Files.readString(nodeModules.resolve("vue/index.js")));
+
+        // 构建时写入的文件留在项目中，不进入缓存条目
+        Files.createDirectories(nodeModules.resolve(".vite"));
+        Files.writeString(nodeModules.resolve(".vite/deps.js"), "cache");
+        Path entryNodeModules = tempDir.resolve("cache/entries").resolve(cacheKey).resolve("node_modules");
+        assertTrue(Files.isDirectory(entryNodeModules.resolve("vue")));
+        assertFalse(Files.exists(entryNodeModules.resolve(".vite")));
+
+        // 已是同一条目时不重复链接
+        assertTrue(cache.restore(restored, cache.getCacheKey(restored)));
+        assertTrue(Files.exists(nodeModules.resolve(".vite/deps.js")));
+    }
+
+    @Test
+    void evictionDoesNotBreakRestoredProjects() throws Exception {
+        File first = createProject("a", "^3.4.0", true);
+        String firstKey = cache.getCacheKey(first);
+        cache.store(first, firstKey);
+        File restored = createProject("b", "^3.4.0", false);
+        assertTrue(cache.restore(restored, cache.getCacheKey(restored)));
+
+        // 上限只够保留一个条目，写入新条目时淘汰最早的条目
+        config.setNodeModulesCacheMaxBytes(30);
+        Thread.sleep(20);
+        File second = createProject("c", "^3.5.0", true);
+        cache.store(second, cache.getCacheKey(second));
+
+        assertFalse(Files.exists(tempDir.resolve("cache/entries").resolve(firstKey)));
+        assertFalse(cache.restore(createProject("d", "^3.4.0", false), firstKey));
+        assertEquals("module.exports = 'vue'",
+                Files.readString(restored.toPath().resolve("node_modules/vue/index.js")));
+    }
+
+    /**
+     * @param installed 是否模拟已执行 npm install
+     */
+    private File createProject(String name, String vueVersion, boolean installed) throws Exception {
+        Path projectDir = tempDir.resolve(name);
+        Files.createDirectories(projectDir);
+        Files.writeString(projectDir.resolve("package.json"),
+                "{\"name\":\"" + name + "\",\"dependencies\":{\"vue\":\"" + vueVersion + "\"}}");
+        if (installed) {
+            Files.createDirectories(projectDir.resolve("node_modules/vue"));
+            Files.writeString(projectDir.resolve("node_modules/vue/index.js"), "module.exports = 'vue'");
+        }
+        return projectDir.toFile();
+    }
+}
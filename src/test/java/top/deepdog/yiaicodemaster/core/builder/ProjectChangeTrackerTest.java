@@ -0,0 +1,44 @@
+package top.deepdog.yiaicodemaster.core.builder;
+
+import org.junit.jupiter.api.Test;
+import top.deepdog.yiaicodemaster.constant.AppConstant;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectChangeTrackerTest {
+
+    @Test
+    void recordedChangesAreRelativeAndDrainedOnce() {
+        ProjectChangeTracker tracker = new ProjectChangeTracker();
+        Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, "vue_project_1");
+        long startTime = System.currentTimeMillis();
+        tracker.recordChange(1L, Paths.get("src/App.vue"));
+        tracker.recordChange(1L, projectRoot.resolve("src/../package.json").toAbsolutePath());
+        tracker.recordChange(1L, Paths.get("src/App.vue"));
+        tracker.recordChange(2L, Paths.get("index.html"));
+
+        ProjectChanges changes = tracker.drainChanges(1L);
+        assertEquals(Set.of("src/App.vue", "package.json"), changes.getPaths());
+        assertTrue(changes.getLastChangeTime() >= startTime);
+        assertTrue(changes.containsAny(Set.of("package.json", "package-lock.json")));
+        // 取出后清空，其他应用不受影响
+        assertTrue(tracker.drainChanges(1L).isEmpty());
+        assertEquals(Set.of("index.html"), tracker.drainChanges(2L).getPaths());
+    }
+
+    @Test
+    void mergeKeepsAllPathsAndLatestTime() {
+        ProjectChanges first = new ProjectChanges(Set.of("a.vue"), 100);
+        ProjectChanges second = new ProjectChanges(Set.of("b.vue"), 50);
+        ProjectChanges merged = ProjectChanges.merge(first, second);
+        assertEquals(Set.of("a.vue", "b.vue"), merged.getPaths());
+        assertEquals(100, merged.getLastChangeTime());
+        // 任意一方未知（完整构建）时合并结果也是完整构建
+        assertNull(ProjectChanges.merge(first, null));
+        assertNull(ProjectChanges.merge(null, second));
+    }
+}
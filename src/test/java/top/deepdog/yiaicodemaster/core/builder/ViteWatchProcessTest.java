@@ -0,0 +1,22 @@
+package top.deepdog.yiaicodemaster.core.builder;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ViteWatchProcessTest {
+
+    @Test
+    void onlyViteErrorMarkersFailTheBuild() {
+        assertTrue(ViteWatchProcess.isErrorLine("error during build:"));
+        assertTrue(ViteWatchProcess.isErrorLine("[vite:vue] At least one <template> or <script> is required"));
+        assertTrue(ViteWatchProcess.isErrorLine("[vite]: Rollup failed to resolve import \"axios\" from \"src/main.js\"."));
+        assertTrue(ViteWatchProcess.isErrorLine("file: /code/vue_project_1/src/App.vue:3:5"));
+        assertTrue(ViteWatchProcess.isErrorLine("SyntaxError: Unexpected token (3:5)"));
+
+        assertFalse(ViteWatchProcess.isErrorLine("dist/assets/ErrorPage-Bx3k_9aZ.js   1.20 kB │ gzip: 0.61 kB"));
+        assertFalse(ViteWatchProcess.isErrorLine("transforming (12) src/components/ErrorBoundary.vue"));
+        assertFalse(ViteWatchProcess.isErrorLine("[plugin vite:reporter] (!) error.js is dynamically imported"));
+        assertFalse(ViteWatchProcess.isErrorLine("built in 812ms."));
+    }
+}
@@ -0,0 +1,41 @@
+package top.deepdog.yiaicodemaster.core.builder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VueProjectBuilderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void buildIsSkippedOnlyWithoutChangesAndWithExistingDist() throws Exception {
+        File projectDir = tempDir.toFile();
+        ProjectChanges sourceChange = new ProjectChanges(Set.of("src/App.vue"), 1);
+        // 还没有构建产物
+        assertFalse(VueProjectBuilder.canSkipBuild(projectDir, ProjectChanges.empty()));
+        Files.createDirectories(tempDir.resolve("dist"));
+        assertTrue(VueProjectBuilder.canSkipBuild(projectDir, ProjectChanges.empty()));
+        assertFalse(VueProjectBuilder.canSkipBuild(projectDir, sourceChange));
+        // 变更未知时完整构建
+        assertFalse(VueProjectBuilder.canSkipBuild(projectDir, null));
+    }
+
+    @Test
+    void dependenciesAreInstalledOnlyWhenNeeded() throws Exception {
+        File projectDir = tempDir.toFile();
+        ProjectChanges sourceChange = new ProjectChanges(Set.of("src/App.vue"), 1);
+        assertTrue(VueProjectBuilder.isInstallRequired(projectDir, sourceChange));
+        Files.createDirectories(tempDir.resolve("node_modules"));
+        assertFalse(VueProjectBuilder.isInstallRequired(projectDir, sourceChange));
+        assertTrue(VueProjectBuilder.isInstallRequired(projectDir, new ProjectChanges(Set.of("package.json"), 1)));
+        assertTrue(VueProjectBuilder.isInstallRequired(projectDir, null));
+    }
+}
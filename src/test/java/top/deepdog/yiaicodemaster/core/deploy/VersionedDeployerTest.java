@@ -0,0 +1,54 @@
+package top.deepdog.yiaicodemaster.core.deploy;
+
+import cn.hutool.core.io.FileUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionedDeployerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void deployPublishesNewVersionAndLinksUnchangedFiles() throws Exception {
+        Path deployRoot = tempDir.resolve("deploy");
+        File source = tempDir.resolve("source").toFile();
+        FileUtil.writeUtf8String("<h1>v1</h1>", new File(source, "index.html"));
+        FileUtil.writeUtf8String("body {}", new File(source, "assets/style.css"));
+        VersionedDeployer deployer = new VersionedDeployer(deployRoot);
+
+        File first = deployer.deploy("abc123", source);
+        Thread.sleep(5);
+        FileUtil.writeUtf8String("<h1>v2</h1>", new File(source, "index.html"));
+        File second = deployer.deploy("abc123", source);
+
+        Path link = deployRoot.resolve("abc123");
+        assertTrue(Files.isSymbolicLink(link));
+        assertEquals(second.toPath().getFileName(), Files.readSymbolicLink(link));
+        assertEquals("<h1>v2</h1>", Files.readString(link.resolve("index.html")));
+        // 旧版本不受影响，未变化的文件与旧版本共享同一份数据
+        assertEquals("<h1>v1</h1>", Files.readString(first.toPath().resolve("index.html")));
+        assertTrue(Files.isSameFile(first.toPath().resolve("assets/style.css"), second.toPath().resolve("assets/style.css")));
+        assertFalse(Files.isSameFile(first.toPath().resolve("index.html"), second.toPath().resolve("index.html")));
+    }
+
+    @Test
+    void legacyDeployDirectoryIsMigratedToVersion() throws IOException {
+        Path deployRoot = tempDir.resolve("deploy");
+        FileUtil.writeUtf8String("old", deployRoot.resolve("legacy/index.html").toFile());
+        File source = tempDir.resolve("source").toFile();
+        FileUtil.writeUtf8String("old", new File(source, "index.html"));
+
+        File version = new VersionedDeployer(deployRoot).deploy("legacy", source);
+
+        assertTrue(Files.isSymbolicLink(deployRoot.resolve("legacy")));
+        assertTrue(Files.isSameFile(deployRoot.resolve("legacy@0/index.html"), version.toPath().resolve("index.html")));
+    }
+}
@@ -0,0 +1,75 @@
+package top.deepdog.yiaicodemaster.core.history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import top.deepdog.yiaicodemaster.model.entity.ChatHistory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatHistoryJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void uncommittedMessagesAreRecovered() throws Exception {
+        ChatHistoryJournal journal = new ChatHistoryJournal(tempDir, 1024 * 1024);
+        LocalDateTime createTime = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        journal.append(1, message(1L, "第一行\n第二行", createTime));
+        journal.append(2, message(2L, "second", createTime));
+        journal.force();
+        journal.close();
+        // 模拟写入中断的半行
+        try (var stream = Files.list(tempDir)) {
+            Path segment = stream.findFirst().orElseThrow();
+            Files.writeString(segment, "{\"id\":3,\"mess", StandardOpenOption.APPEND);
+        }
+
+        List<ChatHistoryJournal.RecoveredSegment> recovered = new ChatHistoryJournal(tempDir, 1024 * 1024).recover();
+
+        assertEquals(1, recovered.size());
+        List<ChatHistory> messages = recovered.getFirst().messages();
+        assertEquals(2, messages.size());
+        assertEquals(1L, messages.get(0).getId());
+        assertEquals("第一行\n第二行", messages.get(0).getMessage());
+        assertEquals(createTime, messages.get(0).getCreateTime());
+        assertEquals("second", messages.get(1).getMessage());
+    }
+
+    @Test
+    void committedSegmentsAreRemoved() throws Exception {
+        // 每条消息都会写满一个文件
+        ChatHistoryJournal journal = new ChatHistoryJournal(tempDir, 1);
+        LocalDateTime createTime = LocalDateTime.now();
+        journal.append(1, message(1L, "a", createTime));
+        journal.append(2, message(2L, "b", createTime));
+        journal.append(3, message(3L, "c", createTime));
+
+        journal.markCommitted(2);
+        List<ChatHistoryJournal.RecoveredSegment> recovered = journal.recover();
+        assertEquals(1, recovered.size());
+        assertEquals(3L, recovered.getFirst().messages().getFirst().getId());
+
+        journal.markCommitted(3);
+        assertTrue(journal.recover().stream().allMatch(segment -> segment.messages().isEmpty()));
+        journal.close();
+    }
+
+    private static ChatHistory message(Long id, String text, LocalDateTime createTime) {
+        return ChatHistory.builder()
+                .id(id)
+                .appId(10L)
+                .userId(20L)
+                .messageType("user")
+                .message(text)
+                .createTime(createTime)
+                .build();
+    }
+}
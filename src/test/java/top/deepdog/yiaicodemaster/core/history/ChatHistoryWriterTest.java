@@ -0,0 +1,110 @@
+package top.deepdog.yiaicodemaster.core.history;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.deepdog.yiaicodemaster.mapper.ChatHistoryMapper;
+import top.deepdog.yiaicodemaster.model.entity.ChatHistory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLTransientConnectionException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ChatHistoryWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ChatHistoryWriter writer;
+
+    private ChatHistoryMapper chatHistoryMapper;
+
+    private ChatHistoryJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        writer = new ChatHistoryWriter();
+        chatHistoryMapper = mock(ChatHistoryMapper.class);
+        journal = new ChatHistoryJournal(tempDir, 1024 * 1024);
+        ReflectionTestUtils.setField(writer, "chatHistoryMapper", chatHistoryMapper);
+        ReflectionTestUtils.setField(writer, "journal", journal);
+        ReflectionTestUtils.setField(writer, "running", true);
+    }
+
+    @Test
+    void transientErrorsAreRecognized() {
+        assertTrue(ChatHistoryWriter.isTransient(new QueryTimeoutException("timeout")));
+        assertTrue(ChatHistoryWriter.isTransient(new CannotGetJdbcConnectionException("no connection")));
+        assertTrue(ChatHistoryWriter.isTransient(
+                new RuntimeException(new SQLTransientConnectionException("pool timeout"))));
+        assertFalse(ChatHistoryWriter.isTransient(new DataIntegrityViolationException("data too long")));
+        assertFalse(ChatHistoryWriter.isTransient(new IllegalStateException("bad")));
+    }
+
+    @Test
+    void poisonRowIsDeadLetteredAndOthersAreWritten() throws Exception {
+        List<Long> inserted = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<ChatHistory> chatHistories = invocation.getArgument(0);
+            if (chatHistories.stream().anyMatch(chatHistory -> chatHistory.getId() == 3L)) {
+                throw new DataIntegrityViolationException("Data too long for column 'message'");
+            }
+            chatHistories.forEach(chatHistory -> inserted.add(chatHistory.getId()));
+            return chatHistories.size();
+        }).when(chatHistoryMapper).insertBatch(anyList());
+
+        List<ChatHistory> batch = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            batch.add(message(id));
+        }
+        ReflectionTestUtils.invokeMethod(writer, "write", batch);
+
+        assertEquals(List.of(1L, 2L, 4L, 5L), inserted);
+        List<String> deadLetters = Files.readAllLines(journal.deadLetterPath());
+        assertEquals(1, deadLetters.size());
+        assertTrue(deadLetters.getFirst().contains("\"id\":3"));
+        assertTrue(deadLetters.getFirst().contains("Data too long"));
+        // 死信文件不参与重放
+        assertTrue(journal.recover().isEmpty());
+    }
+
+    @Test
+    void transientErrorsAreRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new CannotGetJdbcConnectionException("no connection");
+            }
+            return 1;
+        }).when(chatHistoryMapper).insertBatch(anyList());
+
+        ReflectionTestUtils.invokeMethod(writer, "write", List.of(message(1L)));
+
+        assertEquals(3, attempts.get());
+        assertFalse(Files.exists(journal.deadLetterPath()));
+    }
+
+    private static ChatHistory message(Long id) {
+        return ChatHistory.builder()
+                .id(id)
+                .appId(10L)
+                .userId(20L)
+                .messageType("user")
+                .message("message" + id)
+                .createTime(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package top.deepdog.yiaicodemaster.core.history;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.deepdog.yiaicodemaster.config.ChatHistoryStorageConfig;
+import top.deepdog.yiaicodemaster.exception.BusinessException;
+import top.deepdog.yiaicodemaster.model.entity.ChatHistory;
+import top.deepdog.yiaicodemaster.model.enums.ChatMessageFormatEnum;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatMessageCodecTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ChatMessageCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        ChatHistoryStorageConfig config = new ChatHistoryStorageConfig();
+        config.setCompressThresholdBytes(100);
+        config.setBlobThresholdBytes(200);
+        config.setPreviewLength(10);
+        codec = new ChatMessageCodec();
+        ReflectionTestUtils.setField(codec, "chatHistoryStorageConfig", config);
+        ReflectionTestUtils.setField(codec, "chatMessageBlobStore", new ChatMessageBlobStore(tempDir));
+    }
+
+    @Test
+    void smallMessageIsStoredAsPlainText() {
+        ChatHistory chatHistory = ChatHistory.builder().message("你好").build();
+        codec.encode(chatHistory);
+        assertEquals(ChatMessageFormatEnum.PLAIN.getValue(), chatHistory.getMessageFormat());
+        assertEquals("你好", chatHistory.getMessage());
+        assertNull(chatHistory.getMessagePreview());
+        assertEquals("你好", codec.decode(chatHistory));
+    }
+
+    @Test
+    void largeMessageIsCompressedWithPreview() {
+        String message = "```vue\n<template><div>hello</div></template>\n```\n".repeat(20);
+        ChatHistory chatHistory = ChatHistory.builder().message(message).build();
+        codec.encode(chatHistory);
+        assertEquals(ChatMessageFormatEnum.DEFLATE.getValue(), chatHistory.getMessageFormat());
+        assertEquals("", chatHistory.getMessage());
+        assertTrue(chatHistory.getMessageData().length < message.length());
+        assertEquals(message.substring(0, 10) + "…", chatHistory.getMessagePreview());
+        assertEquals(message, codec.decode(chatHistory));
+    }
+
+    @Test
+    void hugeMessageIsStoredInBlobStoreByContent() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            builder.append("line ").append(i * 7919 % 1000).append('\n');
+        }
+        String message = builder.toString();
+        ChatHistory first = ChatHistory.builder().message(message).build();
+        ChatHistory second = ChatHistory.builder().message(message).build();
+        codec.encode(first);
+        codec.encode(second);
+        assertEquals(ChatMessageFormatEnum.BLOB.getValue(), first.getMessageFormat());
+        assertNull(first.getMessageData());
+        // 相同内容共用同一个键
+        assertEquals(first.getMessage(), second.getMessage());
+        assertEquals(message, codec.decode(first));
+    }
+
+    @Test
+    void unreferencedBlobsAreDeletedAfterMinAge() throws Exception {
+        ChatMessageBlobStore blobStore = new ChatMessageBlobStore(tempDir);
+        String kept = blobStore.put("kept".getBytes());
+        String orphan = blobStore.put("orphan".getBytes());
+        // 刚写入的文件受最短保留时间保护
+        assertEquals(0, blobStore.deleteUnreferenced(Set.of(kept), Duration.ofHours(1)));
+        assertEquals(1, blobStore.deleteUnreferenced(Set.of(kept), Duration.ZERO.minusSeconds(1)));
+        assertArrayEquals("kept".getBytes(), blobStore.get(kept));
+        assertThrows(BusinessException.class, () -> blobStore.get(orphan));
+    }
+}
@@ -0,0 +1,110 @@
+package top.deepdog.yiaicodemaster.core.parser;
+
+import org.junit.jupiter.api.Test;
+import top.deepdog.yiaicodemaster.ai.model.HtmlCodeResult;
+import top.deepdog.yiaicodemaster.ai.model.MultiFileCodeResult;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingCodeParserTest {
+
+    private static final String MULTI_FILE_CONTENT = """
+            创建一个完整的网页：
+            ```html
+            <!DOCTYPE html>
+            <html>
+            <head>
+                <title>多文件示例</title>
+                <link rel="stylesheet" href="style.css">
+            </head>
+            <body>
+                <h1>欢迎使用 `code` 和 ``double``</h1>
+                <script src="script.js"></script>
+            </body>
+            </html>
+            ```
+            ```json
+            {"ignored": true}
+            ```
+            ```CSS
+            h1 {
+                color: blue;
+                text-align: center;
+            }
+            ```
+            ```javascript
+            console.log('页面加载完成');
+            ```
+            文件创建完成！
+            """;
+
+    @Test
+    void parseMultiFileCodeInChunks() {
+        MultiFileCodeResult expected = new MultiFileCodeParser().parseCode(MULTI_FILE_CONTENT);
+        for (int chunkSize : new int[]{1, 2, 3, 7, 64, MULTI_FILE_CONTENT.length()}) {
+            Map<CodeBlockTypeEnum, String> blocks = parse(MULTI_FILE_CONTENT, chunkSize,
+                    EnumSet.allOf(CodeBlockTypeEnum.class), false);
+            assertEquals(expected.getHtmlCode(), blocks.get(CodeBlockTypeEnum.HTML), "chunkSize=" + chunkSize);
+            assertEquals(expected.getCssCode(), blocks.get(CodeBlockTypeEnum.CSS), "chunkSize=" + chunkSize);
+            assertEquals(expected.getJsCode(), blocks.get(CodeBlockTypeEnum.JS), "chunkSize=" + chunkSize);
+        }
+    }
+
+    @Test
+    void parseHtmlCodeInChunks() {
+        String content = "说明文字\n```html\n\n  <div>Hello</div>\n  \n```\n```html\n<p>second</p>\n```";
+        HtmlCodeResult expected = new HtmlCodeParser().parseCode(content);
+        for (int chunkSize : new int[]{1, 4, content.length()}) {
+            Map<CodeBlockTypeEnum, String> blocks = parse(content, chunkSize, EnumSet.of(CodeBlockTypeEnum.HTML), true);
+            assertEquals(expected.getHtmlCode(), blocks.get(CodeBlockTypeEnum.HTML));
+        }
+    }
+
+    @Test
+    void fallbackToWholeContentWithoutHtmlBlock() {
+        String content = "  <html><body>no fence</body></html>\n";
+        HtmlCodeResult expected = new HtmlCodeParser().parseCode(content);
+        Map<CodeBlockTypeEnum, String> blocks = parse(content, 5, EnumSet.of(CodeBlockTypeEnum.HTML), true);
+        assertEquals(expected.getHtmlCode(), blocks.get(CodeBlockTypeEnum.HTML));
+    }
+
+    @Test
+    void keepTruncatedBlockOnFinish() {
+        Map<CodeBlockTypeEnum, String> blocks = parse("```css\nbody { margin: 0; }\n``", 3,
+                EnumSet.allOf(CodeBlockTypeEnum.class), false);
+        assertEquals("body { margin: 0; }", blocks.get(CodeBlockTypeEnum.CSS));
+        assertNull(blocks.get(CodeBlockTypeEnum.HTML));
+    }
+
+    private Map<CodeBlockTypeEnum, String> parse(String content, int chunkSize,
+                                                  EnumSet<CodeBlockTypeEnum> acceptedTypes, boolean fallbackToHtml) {
+        Map<CodeBlockTypeEnum, StringBuilder> builders = new EnumMap<>(CodeBlockTypeEnum.class);
+        Map<CodeBlockTypeEnum, String> blocks = new EnumMap<>(CodeBlockTypeEnum.class);
+        StreamingCodeParser parser = new StreamingCodeParser(acceptedTypes, fallbackToHtml, new CodeBlockListener() {
+            @Override
+            public void onBlockStart(CodeBlockTypeEnum blockType) {
+                assertFalse(builders.containsKey(blockType));
+                builders.put(blockType, new StringBuilder());
+            }
+
+            @Override
+            public void onBlockContent(CodeBlockTypeEnum blockType, CharSequence content) {
+                builders.get(blockType).append(content);
+            }
+
+            @Override
+            public void onBlockEnd(CodeBlockTypeEnum blockType) {
+                blocks.put(blockType, builders.get(blockType).toString());
+            }
+        });
+        for (int i = 0; i < content.length(); i += chunkSize) {
+            parser.feed(content.substring(i, Math.min(content.length(), i + chunkSize)));
+        }
+        parser.finish();
+        return blocks;
+    }
+}
@@ -0,0 +1,46 @@
+package top.deepdog.yiaicodemaster.core.saver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import top.deepdog.yiaicodemaster.constant.AppConstant;
+import top.deepdog.yiaicodemaster.core.parser.CodeBlockTypeEnum;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingCodeFileSaverTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void pausedContentIsFlushedByTrailingFlush() throws Exception {
+        StreamingCodeFileSaver saver = new StreamingCodeFileSaver(new HtmlCodeFileSaverTemplate(), tempDir.toString());
+        Path previewDir = tempDir.resolve(AppConstant.CODE_PREVIEW_DIR_NAME);
+        Path previewFile = previewDir.resolve("index.html");
+
+        saver.onBlockStart(CodeBlockTypeEnum.HTML);
+        saver.onBlockContent(CodeBlockTypeEnum.HTML, "<html><body>");
+        assertEquals("<html><body>", Files.readString(previewFile));
+
+        // 间隔内到达后模型停顿，由延迟刷新输出
+        saver.onBlockContent(CodeBlockTypeEnum.HTML, "<h1>标题</h1><p");
+        assertEquals("<html><body>", Files.readString(previewFile));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Files.readString(previewFile).equals("<html><body>") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals("<html><body><h1>标题</h1>", Files.readString(previewFile));
+        // 快照都经临时文件重命名发布，不留下临时文件
+        try (Stream<Path> files = Files.list(previewDir)) {
+            assertEquals(1, files.count());
+        }
+
+        saver.onBlockContent(CodeBlockTypeEnum.HTML, ">正文</p></body></html>");
+        saver.onBlockEnd(CodeBlockTypeEnum.HTML);
+        assertEquals("<html><body><h1>标题</h1><p>正文</p></body></html>", Files.readString(previewFile));
+    }
+}
@@ -0,0 +1,83 @@
+package top.deepdog.yiaicodemaster.core.sse;
+
+import cn.hutool.json.JSONUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.codec.ServerSentEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SSE 帧编码基准测试
+ * 对比 {@link SseFrameEncoder} 与原先逐块构造 Map、JSON 字符串和 ServerSentEvent 再编码为字节的方式，
+ * 分块内容取自生成的 Vue 代码，包含引号、换行和中文。
+ * 在测试 classpath 下运行 {@link #main}，GC profiler 输出每次编码的分配字节数（gc.alloc.rate.norm）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SseFrameEncoderBenchmark {
+
+    private static final String GENERATED_CODE = """
+            <template>
+              <div class="todo-app">
+                <h1>{{ title }}</h1>
+                <input v-model="draft" @keyup.enter="add" placeholder="写点什么..." />
+                <li v-for="item in items" :key="item.id" :class="{ done: item.done }">{{ item.text }}</li>
+              </div>
+            </template>
+            """;
+
+    /**
+     * 分块字符数：单个 token、默认批量大小附近、大批量
+     */
+    @Param({"4", "256", "4096"})
+    public int chunkLength;
+
+    private String chunk;
+
+    @Setup
+    public void setUp() {
+        chunk = GENERATED_CODE.repeat(chunkLength / GENERATED_CODE.length() + 1).substring(0, chunkLength);
+    }
+
+    @Benchmark
+    public byte[] encoder() {
+        return SseFrameEncoder.encodeData(chunk);
+    }
+
+    @Benchmark
+    public byte[] mapJsonBaseline() {
+        Map<String, String> wrapper = Map.of("d", chunk);
+        ServerSentEvent<String> event = ServerSentEvent.<String>builder()
+                .data(JSONUtil.toJsonStr(wrapper))
+                .build();
+        // 与 Spring 的 SSE 编码一致：拼接成文本后再编码为 UTF-8
+        return ("data:" + event.data() + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SseFrameEncoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
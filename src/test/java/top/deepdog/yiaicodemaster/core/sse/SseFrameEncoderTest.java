@@ -0,0 +1,32 @@
+package top.deepdog.yiaicodemaster.core.sse;
+
+import cn.hutool.json.JSONUtil;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseFrameEncoderTest {
+
+    @Test
+    void encodeDataFrame() {
+        String[] chunks = {
+                "",
+                "<div class=\"title\">Hello</div>\n",
+                "路径 C:\\code\t结束\r\n",
+                "控制字符\u0001\u001f\b\f",
+                "表情 😀 与 é",
+                "x".repeat(1000)
+        };
+        for (String chunk : chunks) {
+            String frame = new String(SseFrameEncoder.encodeData(chunk), StandardCharsets.UTF_8);
+            assertTrue(frame.startsWith("data: "));
+            assertTrue(frame.endsWith("\n\n"));
+            String json = frame.substring("data: ".length(), frame.length() - 2);
+            // 帧内不能出现换行，否则会被 EventSource 拆成多行
+            assertFalse(json.contains("\n"));
+            assertEquals(chunk, JSONUtil.parseObj(json).getStr("d"));
+        }
+    }
+}
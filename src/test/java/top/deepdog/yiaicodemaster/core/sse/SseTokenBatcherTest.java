@@ -0,0 +1,57 @@
+package top.deepdog.yiaicodemaster.core.sse;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseTokenBatcherTest {
+
+    @Test
+    void flushByBytes() {
+        Flux<String> source = Flux.just("ab", "cd", "ef", "g");
+        List<String> frames = SseTokenBatcher.batch(source, Duration.ofSeconds(10), 4).collectList().block();
+        assertEquals(List.of("abcd", "efg"), frames);
+    }
+
+    @Test
+    void flushByDelay() {
+        Flux<String> source = Flux.concat(
+                Flux.just("a", "b"),
+                Flux.just("c").delaySubscription(Duration.ofMillis(300)));
+        List<String> frames = SseTokenBatcher.batch(source, Duration.ofMillis(50), 1024).collectList().block();
+        assertEquals(List.of("ab", "c"), frames);
+    }
+
+    @Test
+    void timerFlushRunsOnBoundedElastic() {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        Flux<String> source = Flux.concat(Flux.just("a"), Flux.<String>never().take(Duration.ofMillis(300)));
+        List<String> frames = SseTokenBatcher.batch(source, Duration.ofMillis(50), 1024)
+                .doOnNext(frame -> threads.add(Thread.currentThread().getName()))
+                .collectList().block();
+        assertEquals(List.of("a"), frames);
+        assertTrue(threads.getFirst().startsWith("boundedElastic"), threads.getFirst());
+    }
+
+    @Test
+    void countUtf8Bytes() {
+        // 每个汉字 3 字节
+        Flux<String> source = Flux.just("你", "好", "世界");
+        List<String> frames = SseTokenBatcher.batch(source, Duration.ofSeconds(10), 6).collectList().block();
+        assertEquals(List.of("你好", "世界"), frames);
+    }
+
+    @Test
+    void keepContentBeforeError() {
+        Flux<String> source = Flux.concat(Flux.just("a", "b"), Flux.error(new IllegalStateException("boom")));
+        List<String> frames = SseTokenBatcher.batch(source, Duration.ofSeconds(10), 1024)
+                .onErrorResume(e -> Flux.just("error"))
+                .collectList().block();
+        assertEquals(List.of("ab", "error"), frames);
+    }
+}
@@ -0,0 +1,179 @@
+package top.deepdog.yiaicodemaster.manager;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.deepdog.yiaicodemaster.config.CosClientConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 使用本地 HTTP 服务模拟 COS，验证上传与重试
+ */
+class CosManagerTest {
+
+    private static final int PART_SIZE = 1024;
+
+    private HttpServer server;
+
+    private final AtomicInteger failuresBeforeSuccess = new AtomicInteger();
+
+    private final AtomicInteger failureStatus = new AtomicInteger(503);
+
+    private final List<byte[]> receivedBodies = new CopyOnWriteArrayList<>();
+
+    private final List<byte[]> partBodies = new CopyOnWriteArrayList<>();
+
+    @TempDir
+    Path tempDir;
+
+    private CosManager cosManager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            String query = exchange.getRequestURI().getQuery();
+            if (query != null && query.contains("uploads")) {
+                // 初始化分块上传
+                sendXml(exchange, "<InitiateMultipartUploadResult><Bucket>test-1250000000</Bucket><Key>"
+                        + exchange.getRequestURI().getPath().substring(1)
+                        + "</Key><UploadId>upload-1</UploadId></InitiateMultipartUploadResult>");
+                return;
+            }
+            if (query != null && query.contains("uploadId") && !query.contains("partNumber")) {
+                // 完成分块上传
+                sendXml(exchange, "<CompleteMultipartUploadResult><Location>loc</Location><Bucket>test-1250000000</Bucket>"
+                        + "<Key>key</Key><ETag>\"etag\"</ETag></CompleteMultipartUploadResult>");
+                return;
+            }
+            if (query != null && query.contains("partNumber")) {
+                partBodies.add(body);
+            } else {
+                receivedBodies.add(body);
+            }
+            if (failuresBeforeSuccess.getAndDecrement() > 0) {
+                exchange.sendResponseHeaders(failureStatus.get(), -1);
+            } else {
+                exchange.getResponseHeaders().add("ETag", "\"" + DigestUtil.md5Hex(body) + "\"");
+                exchange.sendResponseHeaders(200, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+
+        CosClientConfig config = new CosClientConfig();
+        config.setHost("https://cdn.example.com");
+        config.setSecretId("id");
+        config.setSecretKey("key");
+        config.setRegion("ap-shanghai");
+        config.setBucket("test-1250000000");
+        config.setEndpoint("127.0.0.1:" + server.getAddress().getPort());
+        config.setProtocol("http");
+        config.setRetryBaseDelayMillis(10);
+        config.setUploadThreadCount(2);
+        config.setMultipartThresholdBytes(PART_SIZE);
+        config.setMultipartPartSizeBytes(PART_SIZE);
+        cosManager = new CosManager();
+        ReflectionTestUtils.setField(cosManager, "cosClientConfig", config);
+        ReflectionTestUtils.setField(cosManager, "cosClient", config.cosClient());
+        ReflectionTestUtils.setField(cosManager, "cosUploadMetrics", new CosUploadMetrics());
+        cosManager.init();
+    }
+
+    private static void sendXml(HttpExchange exchange, String xml) throws IOException {
+        byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cosManager.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void retriesServerErrorsWithBackoff() {
+        failuresBeforeSuccess.set(2);
+        byte[] content = "cover".getBytes(StandardCharsets.UTF_8);
+        String url = cosManager.uploadBytes("/screenshots/a.jpg", content, "image/jpeg");
+        assertEquals("https://cdn.example.com/screenshots/a.jpg", url);
+        assertEquals(3, receivedBodies.size());
+        // 每次重试都重新发送完整内容
+        receivedBodies.forEach(body -> assertArrayEquals(content, body));
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        failuresBeforeSuccess.set(1);
+        failureStatus.set(403);
+        assertNull(cosManager.uploadBytes("/screenshots/b.jpg", new byte[]{1, 2, 3}, "image/jpeg"));
+        assertEquals(1, receivedBodies.size());
+    }
+
+    @Test
+    void concurrentMultipartUploadsDoNotExhaustUploadThreads() throws IOException {
+        // 两个上传线程、四个文件同时分块上传：等待分块完成的线程不能占满线程池
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Path file = tempDir.resolve("chunk-" + i + ".js");
+            Files.write(file, new byte[PART_SIZE * 4]);
+            files.add(file.toFile());
+        }
+        List<String> urls = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<String>> futures = new ArrayList<>();
+                for (File file : files) {
+                    futures.add(executor.submit(() -> cosManager.uploadFile("/dist/" + file.getName(), file)));
+                }
+                List<String> results = new ArrayList<>();
+                for (Future<String> future : futures) {
+                    results.add(future.get());
+                }
+                return results;
+            }
+        });
+        urls.forEach(Assertions::assertNotNull);
+        assertEquals(16, partBodies.size());
+        partBodies.forEach(body -> assertEquals(PART_SIZE, body.length));
+    }
+
+    @Test
+    void retryBudgetLimitsRetriesUnderSustainedFailure() {
+        CosManager.RetryBudget budget = new CosManager.RetryBudget();
+        int retries = 0;
+        for (int i = 0; i < 100; i++) {
+            budget.onRequest();
+            while (budget.tryAcquire()) {
+                retries++;
+            }
+        }
+        // 初始 10 个令牌 + 每次请求 0.1 个
+        assertTrue(retries <= 20, "retries=" + retries);
+    }
+}
@@ -0,0 +1,42 @@
+package top.deepdog.yiaicodemaster.service.impl;
+
+import com.mybatisflex.core.query.CPI;
+import com.mybatisflex.core.query.QueryWrapper;
+import org.junit.jupiter.api.Test;
+import top.deepdog.yiaicodemaster.exception.BusinessException;
+import top.deepdog.yiaicodemaster.model.entity.ChatHistory;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatHistoryCursorTest {
+
+    private static final LocalDateTime CREATE_TIME = LocalDateTime.of(2025, 8, 1, 12, 30, 15, 123_000_000);
+
+    @Test
+    void cursorRoundTrip() {
+        ChatHistory last = ChatHistory.builder().id(1234567890123L).createTime(CREATE_TIME).build();
+        String cursor = ChatHistoryServiceImpl.encodeCursor(last);
+        assertFalse(cursor.contains("="));
+        assertArrayEquals(new Object[]{CREATE_TIME, 1234567890123L}, ChatHistoryServiceImpl.decodeCursor(cursor));
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        assertThrows(BusinessException.class, () -> ChatHistoryServiceImpl.decodeCursor("not-a-cursor"));
+    }
+
+    @Test
+    void tiedTimestampsContinueById() {
+        // 同一毫秒内的两条消息，第一页停在 id=20 时下一页仍要包含同一时间的 id=10
+        ChatHistory last = ChatHistory.builder().id(20L).createTime(CREATE_TIME).build();
+        QueryWrapper queryWrapper = QueryWrapper.create().from("chat_history").eq("appId", 1L);
+        ChatHistoryServiceImpl.applyCursor(queryWrapper, ChatHistoryServiceImpl.encodeCursor(last));
+        String sql = queryWrapper.toSQL();
+        assertTrue(sql.endsWith("WHERE appId = 1 AND (createTime < '2025-08-01 12:30:15'"
+                + " OR (createTime = '2025-08-01 12:30:15' AND id < 20))"), sql);
+        // toSQL 只显示到秒，实际绑定的参数保留毫秒
+        assertArrayEquals(new Object[]{1L, CREATE_TIME, CREATE_TIME, 20L}, CPI.getValueArray(queryWrapper));
+    }
+}
@@ -0,0 +1,41 @@
+package top.deepdog.yiaicodemaster.utils;
+
+import cn.hutool.core.io.FileUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentHashUtilsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void hashDependsOnlyOnPathsAndContent() {
+        File first = writeSite(tempDir.resolve("first").toFile(), "<h1>Hello</h1>");
+        File second = writeSite(tempDir.resolve("second").toFile(), "<h1>Hello</h1>");
+        assertEquals(ContentHashUtils.hashDirectory(first), ContentHashUtils.hashDirectory(second));
+
+        FileUtil.writeUtf8String("<h1>Changed</h1>", new File(second, "index.html"));
+        assertNotEquals(ContentHashUtils.hashDirectory(first), ContentHashUtils.hashDirectory(second));
+    }
+
+    @Test
+    void hashDistinguishesRenamedFiles() {
+        File first = writeSite(tempDir.resolve("first").toFile(), "<h1>Hello</h1>");
+        File second = writeSite(tempDir.resolve("second").toFile(), "<h1>Hello</h1>");
+        FileUtil.rename(new File(second, "style.css"), "main.css", false);
+        assertNotEquals(ContentHashUtils.hashDirectory(first), ContentHashUtils.hashDirectory(second));
+    }
+
+    private static File writeSite(File dir, String html) {
+        FileUtil.writeUtf8String(html, new File(dir, "index.html"));
+        FileUtil.writeUtf8String("body { margin: 0; }", new File(dir, "style.css"));
+        FileUtil.writeUtf8String("console.log('hi');", new File(dir, "assets/app.js"));
+        return dir;
+    }
+}
@@ -17,6 +17,19 @@ export async function listAllChatHistoryByPageForAdmin(
   })
 }
 
+/** 此处后端没有提供注释 GET /chatHistory/message/${param0} */
+export async function getChatMessage(
+  // 叠加生成的Param类型 (非body参数swagger默认没有生成对象)
+  params: API.getChatMessageParams,
+  options?: { [key: string]: any }
+) {
+  const { id: param0 } = params
+  return request<API.BaseResponseString>(`/chatHistory/message/${param0}`, {
+    method: 'GET',
+    ...(options || {}),
+  })
+}
+
 /** 此处后端没有提供注释 GET /chatHistory/app/${param0} */
 export async function listAppChatHistory(
   // 叠加生成的Param类型 (非body参数swagger默认没有生成对象)
@@ -24,7 +37,7 @@ export async function listAppChatHistory(
   options?: { [key: string]: any }
 ) {
   const { appId: param0, ...queryParams } = params
-  return request<API.BaseResponsePageChatHistory>(`/chatHistory/app/${param0}`, {
+  return request<API.BaseResponseChatHistoryCursorPageVO>(`/chatHistory/app/${param0}`, {
     method: 'GET',
     params: {
       // pageSize has a default value: 10
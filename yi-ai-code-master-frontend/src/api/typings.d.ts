@@ -79,6 +79,12 @@ declare namespace API {
     message?: string
   }
 
+  type BaseResponseChatHistoryCursorPageVO = {
+    code?: number
+    data?: ChatHistoryCursorPageVO
+    message?: string
+  }
+
   type BaseResponsePageChatHistory = {
     code?: number
     data?: PageChatHistory
@@ -112,6 +118,8 @@ declare namespace API {
   type ChatHistory = {
     id?: number
     message?: string
+    messageFormat?: string
+    messagePreview?: string
     messageType?: string
     appId?: number
     userId?: number
@@ -120,6 +128,12 @@ declare namespace API {
     isDelete?: number
   }
 
+  type ChatHistoryCursorPageVO = {
+    records?: ChatHistory[]
+    nextCursor?: string
+    hasMore?: boolean
+  }
+
   type ChatHistoryQueryRequest = {
     pageNum?: number
     pageSize?: number
@@ -154,6 +168,10 @@ declare namespace API {
     id: number
   }
 
+  type getChatMessageParams = {
+    id: number
+  }
+
   type getUserByIdParams = {
     id: number
   }
@@ -165,7 +183,7 @@ declare namespace API {
   type listAppChatHistoryParams = {
     appId: number
     pageSize?: number
-    lastCreateTime?: string
+    cursor?: string
   }
 
   type LoginUserVO = {
@@ -26,3 +26,8 @@ export const getStaticPreviewUrl = (codeGenType: string, appId: string) => {
   }
   return baseUrl
 }
+
+// 获取生成过程中的实时预览URL（仅 HTML / 多文件模式）
+export const getLivePreviewUrl = (codeGenType: string, appId: string) => {
+  return `${STATIC_BASE_URL}/${codeGenType}_${appId}/.preview/`
+}